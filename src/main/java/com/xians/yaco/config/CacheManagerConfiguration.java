@@ -0,0 +1,174 @@
+package com.xians.yaco.config;
+
+import com.xians.yaco.service.cache.CacheValueSerializer;
+import com.xians.yaco.service.cache.DependencyTrackingCacheManager;
+import com.xians.yaco.service.cache.EhcacheCacheManager;
+import org.ehcache.CacheManager;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.impl.copy.SerializingCopier;
+import org.ehcache.impl.internal.statistics.DefaultStatisticsService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ *     缓存配置
+ *     Ehcache 3两级存储：堆内按字节数限制，保存序列化后的值；堆外保存全部的值，
+ *     超过单个大小上限的值（如包含正文的文章列表）只放在堆外，堆内存占用与文章大小无关；
+ *     条目过了刷新时间后在STALE_SECONDS内仍返回旧值，同时在后台刷新
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Configuration
+public class CacheManagerConfiguration {
+
+    /**
+     * 单个值超过该大小时不放在堆内
+     */
+    private static final long MAX_HEAP_OBJECT_KB = 256;
+
+    /**
+     * 过了刷新时间后仍可返回旧值的时长
+     */
+    private static final long STALE_SECONDS = 120;
+
+    /**
+     * 缓存名称、堆内MB、堆外MB、刷新时间（秒）
+     */
+    private static final List<CacheSpec> CACHES = Arrays.asList(
+            new CacheSpec("posts", 16, 128, 600),
+            new CacheSpec("comments", 8, 32, 300),
+            new CacheSpec("attachments", 2, 8, 300),
+            new CacheSpec("links", 1, 4, 300),
+            new CacheSpec("menus", 1, 4, 300),
+            new CacheSpec("galleries", 1, 4, 300),
+            new CacheSpec("tags", 1, 4, 300));
+
+    private static final CacheSpec DEFAULT_CACHE = new CacheSpec(null, 2, 8, 600);
+
+    /**
+     * Ehcache各存储层的条目数、占用字节数、淘汰次数
+     *
+     * @return StatisticsService
+     */
+    @Bean
+    public StatisticsService cacheStatisticsService() {
+        return new DefaultStatisticsService();
+    }
+
+    /**
+     * Ehcache 3的缓存，容器关闭时释放堆外内存
+     *
+     * @param cacheStatisticsService cacheStatisticsService
+     * @return CacheManager
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager ehcacheManager(StatisticsService cacheStatisticsService) {
+        CacheManagerBuilder<CacheManager> builder = CacheManagerBuilder.newCacheManagerBuilder().using(cacheStatisticsService);
+        for (CacheSpec spec : CACHES) {
+            builder = builder.withCache(spec.name, cacheConfiguration(spec));
+        }
+        return builder.build(true);
+    }
+
+    /**
+     * 后台刷新缓存的线程，队列满时放弃刷新，继续返回旧值
+     *
+     * @return ThreadPoolExecutor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor cacheRefreshExecutor() {
+        return new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64), runnable -> {
+            final Thread thread = new Thread(runnable, "cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 缓存写入时记录依赖，由变更事件按依赖失效
+     *
+     * @param ehcacheManager        ehcacheManager
+     * @param cacheRefreshExecutor  cacheRefreshExecutor
+     * @param transactionManager    transactionManager
+     * @return DependencyTrackingCacheManager
+     */
+    @Bean
+    public DependencyTrackingCacheManager cacheManager(CacheManager ehcacheManager,
+                                                      ThreadPoolExecutor cacheRefreshExecutor,
+                                                      ObjectProvider<PlatformTransactionManager> transactionManager) {
+        final Map<String, Duration> refreshAfter = new HashMap<>();
+        for (CacheSpec spec : CACHES) {
+            refreshAfter.put(spec.name, Duration.ofSeconds(spec.refreshSeconds));
+        }
+        //后台刷新在只读事务中执行，写入缓存前可以加载文章的标签和分类
+        final Executor transactional = task -> cacheRefreshExecutor.execute(() -> {
+            final TransactionTemplate template = new TransactionTemplate(transactionManager.getObject());
+            template.setReadOnly(true);
+            template.execute(status -> {
+                task.run();
+                return null;
+            });
+        });
+        return new DependencyTrackingCacheManager(new EhcacheCacheManager(ehcacheManager, cacheConfiguration(DEFAULT_CACHE),
+                refreshAfter, Duration.ofSeconds(DEFAULT_CACHE.refreshSeconds), transactional));
+    }
+
+    /**
+     * 缓存配置，过期时间为刷新时间加上STALE_SECONDS
+     *
+     * @param spec spec
+     * @return CacheConfiguration
+     */
+    private CacheConfiguration<Serializable, Serializable> cacheConfiguration(CacheSpec spec) {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Serializable.class, Serializable.class,
+                ResourcePoolsBuilder.newResourcePoolsBuilder()
+                        .heap(spec.heapMb, MemoryUnit.MB)
+                        .offheap(spec.offheapMb, MemoryUnit.MB))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(spec.refreshSeconds + STALE_SECONDS)))
+                .withValueSerializer(CacheValueSerializer.class)
+                //堆内保存序列化后的字节，按字节计算大小，读取时得到副本
+                .withValueCopier(SerializingCopier.<Serializable>asCopierClass())
+                .withSizeOfMaxObjectSize(MAX_HEAP_OBJECT_KB, MemoryUnit.KB)
+                .build();
+    }
+
+    private static class CacheSpec {
+
+        private final String name;
+
+        private final long heapMb;
+
+        private final long offheapMb;
+
+        private final long refreshSeconds;
+
+        CacheSpec(String name, long heapMb, long offheapMb, long refreshSeconds) {
+            this.name = name;
+            this.heapMb = heapMb;
+            this.offheapMb = offheapMb;
+            this.refreshSeconds = refreshSeconds;
+        }
+    }
+}
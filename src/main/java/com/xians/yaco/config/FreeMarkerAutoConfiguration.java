@@ -8,10 +8,15 @@ import com.xians.yaco.model.freemarker.tag.ArticleTagDirective;
 import com.xians.yaco.model.freemarker.tag.CommonTagDirective;
 import com.xians.yaco.service.OptionsService;
 import com.xians.yaco.service.UserService;
+import com.xians.yaco.web.view.StreamingFreeMarkerViewResolver;
 import freemarker.template.TemplateModelException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.freemarker.FreeMarkerProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerViewResolver;
 
 import javax.annotation.PostConstruct;
 
@@ -68,4 +73,20 @@ public class FreeMarkerAutoConfiguration {
         }
     }
 
+    /**
+     * 流式输出的视图解析器，替换Spring Boot默认的freeMarkerViewResolver
+     *
+     * @param properties     spring.freemarker配置
+     * @param bufferSize     输出缓冲区大小
+     * @param earlyHeadFlush 是否在输出到 &lt;/head&gt; 时立即发送
+     * @return FreeMarkerViewResolver
+     */
+    @Bean
+    public FreeMarkerViewResolver freeMarkerViewResolver(FreeMarkerProperties properties,
+                                                         @Value("${yaco.render.buffer-size:8192}") int bufferSize,
+                                                         @Value("${yaco.render.early-head-flush:true}") boolean earlyHeadFlush) {
+        final FreeMarkerViewResolver resolver = new StreamingFreeMarkerViewResolver(bufferSize, earlyHeadFlush);
+        properties.applyToMvcViewResolver(resolver);
+        return resolver;
+    }
 }
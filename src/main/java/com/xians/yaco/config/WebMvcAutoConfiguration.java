@@ -1,13 +1,21 @@
 package com.xians.yaco.config;
 
 
+import com.xians.yaco.filter.ConditionalRequestFilter;
 import com.xians.yaco.filter.CorsFilter;
+import com.xians.yaco.filter.PageCacheFilter;
+import com.xians.yaco.filter.QueryCountFilter;
+import com.xians.yaco.service.PostService;
+import com.xians.yaco.service.cache.ContentVersions;
+import com.xians.yaco.service.cache.PageCache;
 import com.xians.yaco.web.interceptor.ApiInterceptor;
 import com.xians.yaco.web.interceptor.InstallInterceptor;
 import com.xians.yaco.web.interceptor.LocaleInterceptor;
 import com.xians.yaco.web.interceptor.LoginInterceptor;
+import com.xians.yaco.web.interceptor.PageCacheInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -48,6 +56,9 @@ public class WebMvcAutoConfiguration implements WebMvcConfigurer {
     @Autowired
     private LocaleInterceptor localeInterceptor;
 
+    @Autowired
+    private PageCacheInterceptor pageCacheInterceptor;
+
     /**
      * 注册拦截器
      *
@@ -66,6 +77,7 @@ public class WebMvcAutoConfiguration implements WebMvcConfigurer {
                 .addPathPatterns("/**")
                 .excludePathPatterns("/install")
                 .excludePathPatterns("/install/do")
+                .excludePathPatterns("/health/**")
                 .excludePathPatterns("/static/**");
         registry.addInterceptor(apiInterceptor)
                 .addPathPatterns("/api/**");
@@ -75,6 +87,12 @@ public class WebMvcAutoConfiguration implements WebMvcConfigurer {
                 .addPathPatterns("/install");
         registry.addInterceptor(localeChangeInterceptor())
                 .addPathPatterns("/install");
+        registry.addInterceptor(pageCacheInterceptor)
+                .addPathPatterns("/**")
+                .excludePathPatterns("/admin/**")
+                .excludePathPatterns("/api/**")
+                .excludePathPatterns("/health/**")
+                .excludePathPatterns("/static/**");
     }
 
     /**
@@ -132,6 +150,59 @@ public class WebMvcAutoConfiguration implements WebMvcConfigurer {
         return corsFilter;
     }
 
+    /**
+     * 统计每个请求执行的SQL数，包括页面缓存命中的请求
+     *
+     * @param warnThreshold 超过该数量时记录警告，0为不警告
+     * @return Query count filter registration bean
+     */
+    @Bean
+    FilterRegistrationBean<QueryCountFilter> queryCountFilter(@Value("${yaco.query-count.warn-threshold:20}") int warnThreshold) {
+        FilterRegistrationBean<QueryCountFilter> queryCountFilter = new FilterRegistrationBean<>();
+
+        queryCountFilter.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        queryCountFilter.setFilter(new QueryCountFilter(warnThreshold));
+        queryCountFilter.addUrlPatterns("/*");
+
+        return queryCountFilter;
+    }
+
+    /**
+     * 条件请求，在页面缓存之前执行
+     *
+     * @param contentVersions contentVersions
+     * @param postService     postService
+     * @return Conditional request filter registration bean
+     */
+    @Bean
+    FilterRegistrationBean<ConditionalRequestFilter> conditionalRequestFilter(ContentVersions contentVersions, PostService postService) {
+        FilterRegistrationBean<ConditionalRequestFilter> conditionalRequestFilter = new FilterRegistrationBean<>();
+
+        conditionalRequestFilter.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        conditionalRequestFilter.setFilter(new ConditionalRequestFilter(contentVersions, postService));
+        conditionalRequestFilter.addUrlPatterns("/*");
+
+        return conditionalRequestFilter;
+    }
+
+    /**
+     * 前台页面输出缓存
+     *
+     * @param pageCache   pageCache
+     * @param postService postService
+     * @return Page cache filter registration bean
+     */
+    @Bean
+    FilterRegistrationBean<PageCacheFilter> pageCacheFilter(PageCache pageCache, PostService postService) {
+        FilterRegistrationBean<PageCacheFilter> pageCacheFilter = new FilterRegistrationBean<>();
+
+        pageCacheFilter.setOrder(Ordered.LOWEST_PRECEDENCE);
+        pageCacheFilter.setFilter(new PageCacheFilter(pageCache, postService));
+        pageCacheFilter.addUrlPatterns("/*");
+
+        return pageCacheFilter;
+    }
+
     /**
      * 国际化设置
      *
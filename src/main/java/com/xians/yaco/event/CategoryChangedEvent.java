@@ -0,0 +1,22 @@
+package com.xians.yaco.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <pre>
+ *     分类目录变更事件
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Getter
+public class CategoryChangedEvent extends ApplicationEvent {
+
+    private final Long cateId;
+
+    public CategoryChangedEvent(Object source, Long cateId) {
+        super(source);
+        this.cateId = cateId;
+    }
+}
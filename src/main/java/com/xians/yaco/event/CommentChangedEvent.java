@@ -0,0 +1,28 @@
+package com.xians.yaco.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <pre>
+ *     评论变更事件
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Getter
+public class CommentChangedEvent extends ApplicationEvent {
+
+    private final Long commentId;
+
+    /**
+     * 评论所属文章
+     */
+    private final Long postId;
+
+    public CommentChangedEvent(Object source, Long commentId, Long postId) {
+        super(source);
+        this.commentId = commentId;
+        this.postId = postId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.xians.yaco.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <pre>
+ *     博客设置变更事件
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class OptionsChangedEvent extends ApplicationEvent {
+
+    public OptionsChangedEvent(Object source) {
+        super(source);
+    }
+}
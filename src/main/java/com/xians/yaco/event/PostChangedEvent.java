@@ -0,0 +1,50 @@
+package com.xians.yaco.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * <pre>
+ *     文章变更事件
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Getter
+public class PostChangedEvent extends ApplicationEvent {
+
+    /**
+     * 文章编号，为空表示所有文章
+     */
+    private final Long postId;
+
+    /**
+     * 是否影响文章列表，如新增、删除、发布状态变化
+     */
+    private final boolean structural;
+
+    /**
+     * 变更前后时间线上相邻的文章，它们的上一篇/下一篇可能随之变化
+     */
+    private final Collection<Long> neighbourIds;
+
+    public PostChangedEvent(Object source, Long postId, boolean structural, Collection<Long> neighbourIds) {
+        super(source);
+        this.postId = postId;
+        this.structural = structural;
+        this.neighbourIds = neighbourIds;
+    }
+
+    /**
+     * 所有文章都发生了变更，如批量更新摘要
+     *
+     * @param source source
+     * @return PostChangedEvent
+     */
+    public static PostChangedEvent all(Object source) {
+        return new PostChangedEvent(source, null, true, Collections.emptyList());
+    }
+}
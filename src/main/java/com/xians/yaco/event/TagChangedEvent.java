@@ -0,0 +1,22 @@
+package com.xians.yaco.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <pre>
+ *     标签变更事件
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Getter
+public class TagChangedEvent extends ApplicationEvent {
+
+    private final Long tagId;
+
+    public TagChangedEvent(Object source, Long tagId) {
+        super(source);
+        this.tagId = tagId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.xians.yaco.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <pre>
+ *     用户资料变更事件
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class UserChangedEvent extends ApplicationEvent {
+
+    public UserChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,141 @@
+package com.xians.yaco.filter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * <pre>
+ *     边输出边留存的响应
+ *     内容直接写入原响应，模板中途flush时浏览器即可收到；同时保留一份副本用于写入页面缓存，
+ *     超过上限后不再保留
+ * </pre>
+ *
+ * @author : XIANS
+ */
+class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int maxCapture;
+
+    private final ByteArrayOutputStream copy = new ByteArrayOutputStream(16 * 1024);
+
+    private boolean overflowed;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    CapturingResponseWrapper(HttpServletResponse response, int maxCapture) {
+        super(response);
+        this.maxCapture = maxCapture;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (null != writer) {
+            throw new IllegalStateException("getWriter() has already been called on this response");
+        }
+        if (null == outputStream) {
+            outputStream = new CapturingOutputStream(getResponse().getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (null != outputStream && null == writer) {
+            throw new IllegalStateException("getOutputStream() has already been called on this response");
+        }
+        if (null == writer) {
+            outputStream = new CapturingOutputStream(getResponse().getOutputStream());
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (null != writer) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        copy.reset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        copy.reset();
+    }
+
+    /**
+     * 已输出内容的副本
+     *
+     * @return 超过上限时为null
+     */
+    byte[] getContent() {
+        if (null != writer) {
+            writer.flush();
+        }
+        return overflowed ? null : copy.toByteArray();
+    }
+
+    private void capture(byte[] bytes, int off, int len) {
+        if (overflowed) {
+            return;
+        }
+        if (copy.size() + len > maxCapture) {
+            overflowed = true;
+            copy.reset();
+            return;
+        }
+        copy.write(bytes, off, len);
+    }
+
+    private class CapturingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream out;
+
+        CapturingOutputStream(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            out.setWriteListener(listener);
+        }
+    }
+}
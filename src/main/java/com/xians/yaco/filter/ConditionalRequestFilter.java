@@ -0,0 +1,304 @@
+package com.xians.yaco.filter;
+
+import com.xians.yaco.service.PostService;
+import com.xians.yaco.service.cache.ContentVersions;
+import com.xians.yaco.service.cache.PageCache;
+import com.xians.yaco.web.interceptor.PageCacheInterceptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.xians.yaco.model.dto.HaloConst.USER_SESSION_KEY;
+
+/**
+ * <pre>
+ *     条件请求
+ *     按页面所依赖内容的版本生成ETag和Last-Modified，If-None-Match、If-Modified-Since匹配时
+ *     在页面缓存、控制器和模板渲染之前直接返回304；
+ *     页面的依赖在上次渲染时由页面缓存拦截器收集，没有渲染过的页面依赖所有文章。
+ *     HTML页面中的最新评论、热门文章等不在依赖中，与页面缓存一样，版本最多保持PAGE_TTL_SECONDS。
+ *     文章页返回304时与页面缓存命中一样计入阅读数；/api/** 只依赖内容版本，设置、用户变更时推进全站版本。
+ *     ETag等响应头在开始输出时才写入，只有2xx响应带有，客户端不会因错误页面得到304
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class ConditionalRequestFilter extends OncePerRequestFilter {
+
+    /**
+     * 页面缓存直接输出gzip时在ETag后追加的后缀
+     */
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private static final String PASSWORD_COOKIE_PREFIX = "halo-post-password-";
+
+    private static final long PAGE_TTL_SECONDS = 5 * 60;
+
+    private static final String[] EXCLUDED_PREFIXES = {"/admin", "/health", "/install", "/backup", "/upload", "/static", "/search"};
+
+    /**
+     * 带扩展名的路径中只有这些是动态生成的
+     */
+    private static final String[] DYNAMIC_EXTENSIONS = {".xml", ".html", ".txt"};
+
+    /**
+     * 订阅缓存按自己的版本处理条件请求
+     */
+    private static final List<String> FEED_PATHS = Arrays.asList("/feed", "/feed.xml", "/rss", "/rss.xml", "/atom", "/atom.xml");
+
+    /**
+     * 不含模板指令输出的最新评论、热门文章等，版本不随时间推进
+     */
+    private static final List<String> UNTIMED_PATHS = Arrays.asList("/sitemap", "/sitemap.xml", "/robots.txt");
+
+    private static final String SITEMAP_CHILD_PREFIX = "/sitemap-";
+
+    private static final Set<String> DEFAULT_DEPENDENCIES = new HashSet<>(Arrays.asList(PageCache.LIST_TAG, ContentVersions.ANY_POST));
+
+    private final ContentVersions contentVersions;
+
+    private final PostService postService;
+
+    public ConditionalRequestFilter(ContentVersions contentVersions, PostService postService) {
+        this.contentVersions = contentVersions;
+        this.postService = postService;
+    }
+
+    /**
+     * 页面缓存输出gzip时使用的ETag
+     *
+     * @param etag etag
+     * @return 不是本过滤器生成的ETag时原样返回
+     */
+    public static String gzipETag(String etag) {
+        if (null == etag || !etag.endsWith("\"") || etag.endsWith(GZIP_SUFFIX + "\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"";
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!conditional(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final String uri = request.getRequestURI();
+        final String key = uri + (null == request.getQueryString() ? "" : "?" + request.getQueryString());
+        final Set<String> recorded = contentVersions.dependencies(key);
+        final Collection<String> dependencies;
+        if (null == recorded) {
+            dependencies = DEFAULT_DEPENDENCIES;
+        } else {
+            //最新文章、归档等列表在所有页面中都可能出现
+            dependencies = new HashSet<>(recorded);
+            dependencies.add(PageCache.LIST_TAG);
+        }
+        long version = contentVersions.version(dependencies);
+        if (!uri.startsWith("/api/") && !UNTIMED_PATHS.contains(uri) && !uri.startsWith(SITEMAP_CHILD_PREFIX)) {
+            final long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+            version = Math.max(version, now - now % PAGE_TTL_SECONDS);
+        }
+        final String etag = "\"" + Long.toString(version, 36) + "\"";
+        final long lastModified = TimeUnit.SECONDS.toMillis(version);
+
+        if (notModified(request, etag, lastModified)) {
+            final Long viewPostId = contentVersions.viewPostId(key);
+            if (null != viewPostId) {
+                postService.cacheViews(viewPostId, request);
+            }
+            setValidators(response, etag, lastModified);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        final ValidatorResponseWrapper wrapper = new ValidatorResponseWrapper(response, etag, lastModified);
+        filterChain.doFilter(request, wrapper);
+        //没有输出内容的响应
+        wrapper.apply();
+        final Object tags = request.getAttribute(PageCacheInterceptor.TAGS_ATTRIBUTE);
+        if (tags instanceof Set && response.getStatus() == HttpServletResponse.SC_OK) {
+            @SuppressWarnings("unchecked") final Set<String> rendered = (Set<String>) tags;
+            contentVersions.record(key, rendered, (Long) request.getAttribute(PageCacheInterceptor.VIEW_POST_ATTRIBUTE));
+        }
+    }
+
+    private static void setValidators(HttpServletResponse response, String etag, long lastModified) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        //每次都向服务器验证，避免浏览器按Last-Modified启发式缓存旧页面
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+
+    private boolean conditional(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return false;
+        }
+        final String uri = request.getRequestURI();
+        if (FEED_PATHS.contains(uri)) {
+            return false;
+        }
+        for (String prefix : EXCLUDED_PREFIXES) {
+            if (uri.startsWith(prefix)) {
+                return false;
+            }
+        }
+        if (uri.lastIndexOf('.') > uri.lastIndexOf('/')) {
+            final String extension = uri.substring(uri.lastIndexOf('.'));
+            if (!Arrays.asList(DYNAMIC_EXTENSIONS).contains(extension)) {
+                return false;
+            }
+        }
+        final HttpSession session = request.getSession(false);
+        if (null != session && null != session.getAttribute(USER_SESSION_KEY)) {
+            return false;
+        }
+        final Cookie[] cookies = request.getCookies();
+        if (null != cookies) {
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().startsWith(PASSWORD_COOKIE_PREFIX)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 有If-None-Match时只比较ETag，否则比较If-Modified-Since
+     *
+     * @param request      request
+     * @param etag         当前的ETag，不带gzip后缀
+     * @param lastModified 当前的最后修改时间
+     * @return 客户端的内容仍然有效时为true
+     */
+    public static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (null != ifNoneMatch) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if ("*".equals(tag)) {
+                    return true;
+                }
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.endsWith(GZIP_SUFFIX + "\"")) {
+                    tag = tag.substring(0, tag.length() - GZIP_SUFFIX.length() - 1) + "\"";
+                }
+                if (etag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            final long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 开始输出时状态码已经确定，此时才写入ETag等响应头，错误页面不带。
+     * 写入前页面缓存读取、修改的ETag只保存在这里
+     */
+    private static final class ValidatorResponseWrapper extends HttpServletResponseWrapper {
+
+        private final long lastModified;
+
+        private String etag;
+
+        private boolean applied;
+
+        ValidatorResponseWrapper(HttpServletResponse response, String etag, long lastModified) {
+            super(response);
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!applied && HttpHeaders.ETAG.equalsIgnoreCase(name)) {
+                etag = value;
+                return;
+            }
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (!applied && HttpHeaders.ETAG.equalsIgnoreCase(name)) {
+                return successful() ? etag : null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            apply();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            apply();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            apply();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            applied = true;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            applied = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            applied = true;
+            super.sendRedirect(location);
+        }
+
+        private void apply() {
+            if (applied) {
+                return;
+            }
+            applied = true;
+            if (successful() && !isCommitted()) {
+                setValidators((HttpServletResponse) getResponse(), etag, lastModified);
+            }
+        }
+
+        private boolean successful() {
+            return getStatus() >= HttpServletResponse.SC_OK && getStatus() < HttpServletResponse.SC_MULTIPLE_CHOICES;
+        }
+    }
+}
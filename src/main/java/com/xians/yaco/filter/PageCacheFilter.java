@@ -0,0 +1,152 @@
+package com.xians.yaco.filter;
+
+import cn.hutool.core.util.StrUtil;
+import com.xians.yaco.service.PostService;
+import com.xians.yaco.service.cache.PageCache;
+import com.xians.yaco.web.controller.core.BaseController;
+import com.xians.yaco.web.interceptor.PageCacheInterceptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.xians.yaco.model.dto.HaloConst.USER_SESSION_KEY;
+
+/**
+ * <pre>
+ *     前台页面输出缓存
+ *     匿名访客的GET请求直接返回缓存的页面，不经过控制器和模板渲染；
+ *     已登录后台或带有文章密码cookie的请求不使用缓存；
+ *     未命中时页面边渲染边输出，同时留存一份副本写入缓存
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    private static final String PASSWORD_COOKIE_PREFIX = "halo-post-password-";
+
+    private static final String[] EXCLUDED_PREFIXES = {"/admin", "/api", "/health", "/install", "/backup", "/upload", "/static", "/search"};
+
+    /**
+     * 超过该大小的页面不缓存
+     */
+    private static final int MAX_PAGE_BYTES = 8 * 1024 * 1024;
+
+    private final PageCache pageCache;
+
+    private final PostService postService;
+
+    public PageCacheFilter(PageCache pageCache, PostService postService) {
+        this.pageCache = pageCache;
+        this.postService = postService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!cacheable(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final String key = BaseController.THEME + ":" + request.getRequestURI() + (null == request.getQueryString() ? "" : "?" + request.getQueryString());
+        final PageCache.Entry entry = pageCache.get(key);
+        if (null != entry) {
+            if (null != entry.getViewPostId()) {
+                postService.cacheViews(entry.getViewPostId(), request);
+            }
+            write(request, response, entry);
+            return;
+        }
+        final long version = pageCache.version();
+        final CapturingResponseWrapper wrapper = new CapturingResponseWrapper(response, MAX_PAGE_BYTES);
+        filterChain.doFilter(request, wrapper);
+        store(request, wrapper, key, version);
+    }
+
+    private boolean cacheable(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        final String uri = request.getRequestURI();
+        for (String prefix : EXCLUDED_PREFIXES) {
+            if (uri.startsWith(prefix)) {
+                return false;
+            }
+        }
+        //静态资源、feed、sitemap等带扩展名的路径不缓存
+        if (uri.lastIndexOf('.') > uri.lastIndexOf('/')) {
+            return false;
+        }
+        final HttpSession session = request.getSession(false);
+        if (null != session && null != session.getAttribute(USER_SESSION_KEY)) {
+            return false;
+        }
+        final Cookie[] cookies = request.getCookies();
+        if (null != cookies) {
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().startsWith(PASSWORD_COOKIE_PREFIX)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void store(HttpServletRequest request, CapturingResponseWrapper wrapper, String key, long version) throws IOException {
+        final Object tags = request.getAttribute(PageCacheInterceptor.TAGS_ATTRIBUTE);
+        if (!(tags instanceof Set) || wrapper.getStatus() != HttpServletResponse.SC_OK
+                || null != wrapper.getHeader(HttpHeaders.SET_COOKIE)
+                || StrUtil.isBlank(wrapper.getContentType()) || !wrapper.getContentType().startsWith(MediaType.TEXT_HTML_VALUE)) {
+            return;
+        }
+        final byte[] content = wrapper.getContent();
+        if (null == content || content.length == 0) {
+            return;
+        }
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        }
+        final Long viewPostId = (Long) request.getAttribute(PageCacheInterceptor.VIEW_POST_ATTRIBUTE);
+        pageCache.put(key, new PageCache.Entry(compressed.toByteArray(), wrapper.getContentType(), viewPostId, (Set<String>) tags), version);
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, PageCache.Entry entry) throws IOException {
+        response.setContentType(entry.getContentType());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader("X-Page-Cache", "HIT");
+        final String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (null != acceptEncoding && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            //压缩后的内容与未压缩时不同，强ETag需要区分
+            final String etag = response.getHeader(HttpHeaders.ETAG);
+            if (null != etag) {
+                response.setHeader(HttpHeaders.ETAG, ConditionalRequestFilter.gzipETag(etag));
+            }
+            response.setContentLength(entry.getBody().length);
+            response.getOutputStream().write(entry.getBody());
+            return;
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(entry.getBody()))) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                response.getOutputStream().write(buffer, 0, read);
+            }
+        }
+    }
+}
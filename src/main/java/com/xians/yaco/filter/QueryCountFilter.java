@@ -0,0 +1,45 @@
+package com.xians.yaco.filter;
+
+import com.xians.yaco.logging.QueryCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * <pre>
+ *     请求的SQL数
+ *     每个请求结束后在debug级别记录执行的Hibernate语句数，超过阈值时记录警告，
+ *     用于发现前台页面中的延迟加载和N+1查询
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final int warnThreshold;
+
+    public QueryCountFilter(int warnThreshold) {
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        QueryCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            final int count = QueryCounter.count();
+            if (warnThreshold > 0 && count > warnThreshold) {
+                log.warn("{} {} executed {} queries", request.getMethod(), request.getRequestURI(), count);
+            } else {
+                log.debug("{} {} executed {} queries", request.getMethod(), request.getRequestURI(), count);
+            }
+        }
+    }
+}
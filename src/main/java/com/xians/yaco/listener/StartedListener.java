@@ -3,6 +3,10 @@ package com.xians.yaco.listener;
 import com.xians.yaco.model.dto.Theme;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import  com.xians.yaco.service.OptionsService;
+import com.xians.yaco.service.cache.CommentThreadCache;
+import com.xians.yaco.service.index.SearchIndex;
+import com.xians.yaco.service.view.PostViewCounter;
+import com.xians.yaco.service.warmup.WarmUp;
 import com.xians.yaco.utils.HaloUtils;
 import com.xians.yaco.web.controller.core.BaseController;
 import cn.hutool.core.util.StrUtil;
@@ -11,6 +15,7 @@ import freemarker.template.TemplateModelException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Configuration;
 
@@ -37,6 +42,18 @@ public class StartedListener implements ApplicationListener<ApplicationStartedEv
     @Autowired
     private freemarker.template.Configuration configuration;
 
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private PostViewCounter postViewCounter;
+
+    @Autowired
+    private CommentThreadCache commentThreadCache;
+
+    @Autowired
+    private WarmUp warmUp;
+
 
     @Override
     public void onApplicationEvent(ApplicationStartedEvent applicationStartedEvent) {
@@ -48,10 +65,50 @@ public class StartedListener implements ApplicationListener<ApplicationStartedEv
     this.loadOptions();
     this.loadThemes();
     this.loadOwo();
+    this.loadSearchIndex();
+    this.backfillCommentRoots();
+    this.backfillCommentCounts();
+    //重放上次退出时未写入数据库的阅读数
+    postViewCounter.replay();
         //启动定时任务
         CronUtil.start();
         log.info("The scheduled task starts successfully!");
+        //预热模板和缓存，完成后才报告就绪
+        warmUp.start(((WebServerApplicationContext) applicationStartedEvent.getApplicationContext()).getWebServer().getPort());
 }
+    /**
+     * 为旧评论补全所属的顶级评论，评论分页依赖该字段
+     */
+    private void backfillCommentRoots() {
+        try {
+            commentThreadCache.backfillRoots();
+        } catch (Exception e) {
+            log.error("Failed to fill comment roots: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 统计旧文章的评论数，文章列表只显示该字段
+     */
+    private void backfillCommentCounts() {
+        try {
+            commentThreadCache.backfillCounts();
+        } catch (Exception e) {
+            log.error("Failed to fill comment counts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 加载全文检索索引
+     */
+    private void loadSearchIndex() {
+        try {
+            searchIndex.load();
+        } catch (Exception e) {
+            log.error("Failed to load search index: {}", e.getMessage());
+        }
+    }
+
     /**
      * 加载主题设置
      */
@@ -0,0 +1,41 @@
+package com.xians.yaco.logging;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * <pre>
+ *     Hibernate语句计数
+ *     在 spring.jpa.properties.hibernate.session_factory.statement_inspector 中配置，
+ *     按线程统计Hibernate执行的SQL数，不包括JdbcTemplate直接执行的语句
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * 当前线程从零开始计数
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * 当前线程上次reset之后执行的SQL数
+     *
+     * @return int
+     */
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+}
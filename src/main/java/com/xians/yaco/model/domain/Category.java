@@ -2,6 +2,7 @@ package com.xians.yaco.model.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import org.hibernate.annotations.Formula;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -50,4 +51,10 @@ public class Category implements Serializable {
     @ManyToMany(mappedBy = "categories")
     @JsonIgnore
     private List<Post> posts = new ArrayList<>();
+
+    /**
+     * 文章数，与分类一起查询，列表中显示数量时不需要加载posts
+     */
+    @Formula("(SELECT COUNT(*) FROM halo_posts_categories pc WHERE pc.cate_id = cate_id)")
+    private Long postCount;
 }
@@ -22,7 +22,9 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "halo_comment")
+@Table(name = "halo_comment", indexes = {
+        @Index(name = "idx_comment_thread", columnList = "post_id, commentParent, commentDate, commentId"),
+        @Index(name = "idx_comment_root", columnList = "commentRoot")})
 @EntityListeners(AuditingEntityListener.class)
 public class Comment implements Serializable {
 
@@ -36,9 +38,9 @@ public class Comment implements Serializable {
     private Long commentId;
 
     /**
-     * 评论文章
+     * 评论文章，延迟加载，需要显示文章的列表通过实体图一起查询
      */
-    @ManyToOne(targetEntity = Post.class, fetch = FetchType.EAGER)
+    @ManyToOne(targetEntity = Post.class, fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id")
     @JsonIgnore
     private Post post;
@@ -96,6 +98,12 @@ public class Comment implements Serializable {
      */
     private Long commentParent = 0L;
 
+    /**
+     * 所属的顶级评论，顶级评论为0，用于一次查询出一页评论的全部回复
+     */
+    @JsonIgnore
+    private Long commentRoot;
+
     /**
      * 评论状态，0：正常，1：待审核，2：回收站
      */
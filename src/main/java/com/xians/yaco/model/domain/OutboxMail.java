@@ -0,0 +1,82 @@
+package com.xians.yaco.model.domain;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * <pre>
+ *     待发送的邮件
+ *     保存收件人、模板和模板参数，发送成功后删除，失败时按退避时间重试
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Data
+@Entity
+@Table(name = "halo_mail_outbox", indexes = @Index(name = "idx_mail_outbox_due", columnList = "mailStatus, mailNextAttempt"))
+public class OutboxMail implements Serializable {
+
+    private static final long serialVersionUID = 4213896471390752261L;
+
+    /**
+     * 待发送
+     */
+    public static final int PENDING = 0;
+
+    /**
+     * 重试次数用完，不再发送
+     */
+    public static final int FAILED = 1;
+
+    @Id
+    @GeneratedValue
+    private Long mailId;
+
+    /**
+     * 收件人
+     */
+    private String mailTo;
+
+    /**
+     * 主题，合并发送时不使用
+     */
+    private String mailSubject;
+
+    /**
+     * 模板路径
+     */
+    private String mailTemplate;
+
+    /**
+     * 模板参数，JSON格式
+     */
+    @Lob
+    private String mailModel;
+
+    /**
+     * 是否与同一收件人的其他通知合并为一封摘要邮件
+     */
+    private Boolean mailDigest = false;
+
+    private Integer mailStatus = PENDING;
+
+    /**
+     * 已失败的次数
+     */
+    private Integer mailAttempts = 0;
+
+    private Date mailCreated;
+
+    /**
+     * 最早的发送时间
+     */
+    private Date mailNextAttempt;
+
+    /**
+     * 最后一次失败的原因
+     */
+    private String mailError;
+}
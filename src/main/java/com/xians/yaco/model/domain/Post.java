@@ -1,6 +1,7 @@
 package com.xians.yaco.model.domain;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -23,11 +24,17 @@ import java.util.List;
 @Data
 @Entity
 @Table(name = "halo_post")
+@NamedEntityGraph(name = Post.WITH_COMMENTS, attributeNodes = @NamedAttributeNode("comments"))
 @EntityListeners(AuditingEntityListener.class)
 public class Post implements Serializable {
 
     private static final long serialVersionUID = -6019684584665869629L;
 
+    /**
+     * 同时查询评论，只用于导出
+     */
+    public static final String WITH_COMMENTS = "Post.comments";
+
     /**
      * 文章编号
      */
@@ -96,11 +103,18 @@ public class Post implements Serializable {
     private List<Tag> tags = new ArrayList<>();
 
     /**
-     * 文章的评论
+     * 文章的评论，只显示数量时使用commentCount
      */
-    @OneToMany(mappedBy = "post", cascade = {CascadeType.REMOVE}, fetch = FetchType.EAGER)
+    @JsonIgnore
+    @OneToMany(mappedBy = "post", cascade = {CascadeType.REMOVE}, fetch = FetchType.LAZY)
     private List<Comment> comments = new ArrayList<>();
 
+    /**
+     * 已发布的评论数，评论变更时在数据库中重新统计
+     */
+    @Column(updatable = false)
+    private Long commentCount = 0L;
+
     /**
      * 缩略图
      */
@@ -130,6 +144,12 @@ public class Post implements Serializable {
      */
     private Long postViews = 0L;
 
+    /**
+     * 独立访客数，由访客估计器得出，只在写回阅读数时更新，估计器保存在 halo_post_visitor_sketch
+     */
+    @Column(updatable = false)
+    private Long postVisitors = 0L;
+
     /**
      * 是否允许评论
      */
@@ -0,0 +1,35 @@
+package com.xians.yaco.model.domain;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * <pre>
+ *     文章独立访客估计器的寄存器
+ *     与文章分表保存，读取文章时不会带出4KB的寄存器；
+ *     只由阅读数计数器通过JDBC读写，实体仅用于建表
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Data
+@Entity
+@Table(name = "halo_post_visitor_sketch")
+public class PostVisitorSketch implements Serializable {
+
+    private static final long serialVersionUID = -3326102878419657702L;
+
+    /**
+     * 文章编号
+     */
+    @Id
+    private Long postId;
+
+    /**
+     * HyperLogLog寄存器，可跨节点合并
+     */
+    @Lob
+    private byte[] visitorSketch;
+}
@@ -2,6 +2,7 @@ package com.xians.yaco.model.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import org.hibernate.annotations.Formula;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
@@ -45,4 +46,10 @@ public class Tag implements Serializable {
     @ManyToMany(mappedBy = "tags")
     @JsonIgnore
     private List<Post> posts = new ArrayList<>();
+
+    /**
+     * 文章数，与标签一起查询，列表中显示数量时不需要加载posts
+     */
+    @Formula("(SELECT COUNT(*) FROM halo_posts_tags pc WHERE pc.tag_id = tag_id)")
+    private Long postCount;
 }
@@ -1,7 +1,5 @@
 package com.xians.yaco.model.dto;
 
-
-import com.xians.yaco.model.domain.Post;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -37,5 +35,5 @@ public class Archive implements Serializable {
     /**
      * 对应的文章
      */
-    private List<Post> posts;
+    private List<PostCard> posts;
 }
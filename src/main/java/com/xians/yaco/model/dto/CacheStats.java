@@ -0,0 +1,142 @@
+package com.xians.yaco.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <pre>
+ *     缓存统计
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Data
+public class CacheStats {
+
+    /**
+     * 缓存名称
+     */
+    private String name;
+
+    /**
+     * 命中次数
+     */
+    private long hits;
+
+    /**
+     * 未命中次数
+     */
+    private long misses;
+
+    /**
+     * 命中率，0 ~ 1
+     */
+    private double hitRate;
+
+    /**
+     * 写入次数
+     */
+    private long puts;
+
+    /**
+     * 内容变更导致的失效次数
+     */
+    private long invalidations;
+
+    /**
+     * 容量不足被淘汰的次数
+     */
+    private long evictions;
+
+    /**
+     * 过期次数
+     */
+    private long expirations;
+
+    /**
+     * 加载次数
+     */
+    private long loads;
+
+    /**
+     * 平均加载耗时
+     */
+    private double loadMeanMillis;
+
+    /**
+     * 加载耗时分位数，所在分桶的上界，超过最大分桶时为-1
+     */
+    private long loadP50Millis;
+
+    private long loadP95Millis;
+
+    private long loadP99Millis;
+
+    /**
+     * 加载耗时分布
+     */
+    private Map<String, Long> loadHistogram;
+
+    /**
+     * 各存储层的条目数和占用
+     */
+    private List<TierStats> tiers;
+
+    /**
+     * 未命中最多的键
+     */
+    private List<KeyStats> topMissKeys;
+
+    /**
+     * 总条目数，取最底层存储
+     *
+     * @return long
+     */
+    public long getEntries() {
+        return null == tiers || tiers.isEmpty() ? 0 : tiers.get(tiers.size() - 1).getMappings();
+    }
+
+    /**
+     * 各存储层占用的字节数之和
+     *
+     * @return long
+     */
+    public long getOccupiedBytes() {
+        return null == tiers ? 0 : tiers.stream().mapToLong(TierStats::getOccupiedBytes).sum();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TierStats {
+
+        /**
+         * OnHeap、OffHeap
+         */
+        private String tier;
+
+        private long mappings;
+
+        private long occupiedBytes;
+
+        private long allocatedBytes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class KeyStats {
+
+        private String key;
+
+        private long hits;
+
+        private long misses;
+
+        private double missRate;
+    }
+}
@@ -0,0 +1,106 @@
+package com.xians.yaco.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.xians.yaco.model.domain.Comment;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * <pre>
+ *     一页顶级评论及其全部回复
+ *     getter与ListPage一致，主题无需修改即可使用；nextCursor用于按(评论时间, 评论编号)翻到下一页
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class CommentPage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CommentThread thread;
+
+    private final int nowPage;
+
+    private final int pageSize;
+
+    /**
+     * 顶级评论数
+     */
+    private final int totalCount;
+
+    /**
+     * 包括回复在内的评论数
+     */
+    private final int commentCount;
+
+    private final String nextCursor;
+
+    public CommentPage(CommentThread thread, int nowPage, int pageSize, int totalCount, int commentCount, String nextCursor) {
+        this.thread = thread;
+        this.nowPage = nowPage;
+        this.pageSize = pageSize;
+        this.totalCount = totalCount;
+        this.commentCount = commentCount;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 当前页的顶级评论，回复在childComments中
+     *
+     * @return List
+     */
+    public List<Comment> getPageList() {
+        return thread.getComments();
+    }
+
+    @JsonIgnore
+    public CommentThread getThread() {
+        return thread;
+    }
+
+    public int getNowPage() {
+        return nowPage;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public int getTotalPage() {
+        return (totalCount + pageSize - 1) / pageSize;
+    }
+
+    public int getPrePage() {
+        return nowPage - 1 > 1 ? nowPage - 1 : 1;
+    }
+
+    public boolean isHasPrevious() {
+        return nowPage > 1;
+    }
+
+    public int getNextPage() {
+        return nowPage >= getTotalPage() ? getTotalPage() : nowPage + 1;
+    }
+
+    public boolean isHasNext() {
+        return null != nextCursor;
+    }
+
+    /**
+     * 下一页的游标，没有下一页时为null
+     *
+     * @return String
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
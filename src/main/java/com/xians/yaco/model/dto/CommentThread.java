@@ -0,0 +1,158 @@
+package com.xians.yaco.model.dto;
+
+import com.xians.yaco.model.domain.Comment;
+import com.xians.yaco.utils.CommentUtil;
+import org.springframework.lang.NonNull;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * <pre>
+ *     评论树
+ *     创建后不再修改，可以被多个请求同时读取；使用评论的副本，不引用文章实体。
+ *     增加、移除评论时返回新的评论树
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public final class CommentThread implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final CommentThread EMPTY = new CommentThread(new TreeMap<>());
+
+    /**
+     * 评论编号 -> 评论
+     */
+    private final SortedMap<Long, Comment> index;
+
+    /**
+     * 顶级评论，最新的在前
+     */
+    private final List<Comment> comments;
+
+    private CommentThread(SortedMap<Long, Comment> index) {
+        this.index = index;
+        this.comments = Collections.unmodifiableList(CommentUtil.getComments(new ArrayList<>(index.values())));
+    }
+
+    /**
+     * 由评论列表创建评论树
+     *
+     * @param comments 同一篇文章的评论
+     * @return CommentThread
+     */
+    @NonNull
+    public static CommentThread of(@NonNull Collection<Comment> comments) {
+        final SortedMap<Long, Comment> index = new TreeMap<>();
+        for (Comment comment : comments) {
+            index.put(comment.getCommentId(), copy(comment));
+        }
+        return new CommentThread(index);
+    }
+
+    /**
+     * 增加或替换评论
+     *
+     * @param comments comments
+     * @return 新的评论树
+     */
+    @NonNull
+    public CommentThread with(@NonNull Collection<Comment> comments) {
+        final SortedMap<Long, Comment> patched = copyIndex();
+        for (Comment comment : comments) {
+            patched.put(comment.getCommentId(), copy(comment));
+        }
+        return new CommentThread(patched);
+    }
+
+    /**
+     * 移除一条评论及其所有回复
+     *
+     * @param commentId commentId
+     * @return 新的评论树，不包含该评论时返回自身
+     */
+    @NonNull
+    public CommentThread without(@NonNull Long commentId) {
+        final Comment removed = index.get(commentId);
+        if (null == removed) {
+            return this;
+        }
+        final SortedMap<Long, Comment> patched = copyIndex();
+        final Deque<Comment> pending = new ArrayDeque<>();
+        pending.push(removed);
+        while (!pending.isEmpty()) {
+            final Comment comment = pending.pop();
+            patched.remove(comment.getCommentId());
+            if (null != comment.getChildComments()) {
+                comment.getChildComments().forEach(pending::push);
+            }
+        }
+        return new CommentThread(patched);
+    }
+
+    /**
+     * 是否包含评论
+     *
+     * @param commentId commentId
+     * @return boolean
+     */
+    public boolean contains(@NonNull Long commentId) {
+        return index.containsKey(commentId);
+    }
+
+    /**
+     * 顶级评论，子评论在childComments中
+     *
+     * @return List
+     */
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    /**
+     * 评论总数
+     *
+     * @return int
+     */
+    public int getSize() {
+        return index.size();
+    }
+
+    /**
+     * 组装评论树会修改childComments，修改后的树使用新的副本，不影响正在读取的旧树
+     */
+    private SortedMap<Long, Comment> copyIndex() {
+        final SortedMap<Long, Comment> copied = new TreeMap<>();
+        for (Comment comment : index.values()) {
+            copied.put(comment.getCommentId(), copy(comment));
+        }
+        return copied;
+    }
+
+    /**
+     * 复制前台显示需要的字段，不引用文章实体
+     */
+    private static Comment copy(Comment comment) {
+        final Comment copy = new Comment();
+        copy.setCommentId(comment.getCommentId());
+        copy.setCommentAuthor(comment.getCommentAuthor());
+        copy.setCommentAuthorUrl(comment.getCommentAuthorUrl());
+        copy.setCommentAuthorAvatarMd5(comment.getCommentAuthorAvatarMd5());
+        copy.setCommentDate(comment.getCommentDate());
+        copy.setCommentContent(comment.getCommentContent());
+        copy.setCommentAgent(comment.getCommentAgent());
+        copy.setCommentParent(comment.getCommentParent());
+        copy.setCommentStatus(comment.getCommentStatus());
+        copy.setIsAdmin(comment.getIsAdmin());
+        return copy;
+    }
+}
@@ -0,0 +1,110 @@
+package com.xians.yaco.model.dto;
+
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.xians.yaco.model.domain.Category;
+import com.xians.yaco.model.domain.Tag;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <pre>
+ *     文章卡片，列表页使用的只读投影
+ *     不包含文章内容和评论，属性名与Post保持一致，主题模板无需修改
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Data
+public class PostCard implements Serializable {
+
+    private static final long serialVersionUID = 5460157125468342947L;
+
+    /**
+     * 文章编号
+     */
+    private Long postId;
+
+    /**
+     * 文章标题
+     */
+    private String postTitle;
+
+    /**
+     * 文章路径
+     */
+    private String postUrl;
+
+    /**
+     * 文章摘要
+     */
+    private String postSummary;
+
+    /**
+     * 缩略图
+     */
+    private String postThumbnail;
+
+    /**
+     * 发表日期
+     */
+    private Date postDate;
+
+    /**
+     * 最后一次更新时间
+     */
+    private Date postUpdate;
+
+    /**
+     * 文章访问量
+     */
+    private Long postViews;
+
+    /**
+     * 是否允许评论
+     */
+    private Integer allowComment;
+
+    /**
+     * 文章所属分类
+     */
+    private List<Category> categories = new ArrayList<>();
+
+    /**
+     * 文章所属标签
+     */
+    private List<Tag> tags = new ArrayList<>();
+
+    public PostCard() {
+    }
+
+    /**
+     * 供JPQL构造表达式使用，加密文章不暴露摘要
+     */
+    public PostCard(Long postId, String postTitle, String postUrl, String postSummary, String postThumbnail,
+                    Date postDate, Date postUpdate, Long postViews, Integer allowComment, String postPassword) {
+        this.postId = postId;
+        this.postTitle = postTitle;
+        this.postUrl = postUrl;
+        this.postSummary = StrUtil.isNotEmpty(postPassword) ? "该文章为加密文章" : postSummary;
+        this.postThumbnail = postThumbnail;
+        this.postDate = postDate;
+        this.postUpdate = postUpdate;
+        this.postViews = postViews;
+        this.allowComment = allowComment;
+    }
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    public Date getPostDate() {
+        return postDate;
+    }
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    public Date getPostUpdate() {
+        return postUpdate;
+    }
+}
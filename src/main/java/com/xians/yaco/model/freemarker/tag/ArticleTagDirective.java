@@ -1,10 +1,12 @@
 package com.xians.yaco.model.freemarker.tag;
 
+import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.enums.PostStatusEnum;
 import com.xians.yaco.model.enums.PostTypeEnum;
 import com.xians.yaco.service.PostService;
 import freemarker.core.Environment;
 import freemarker.template.*;
+import freemarker.template.utility.DeepUnwrap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -24,6 +26,9 @@ public class ArticleTagDirective implements TemplateDirectiveModel {
     //定义默认的key
     private static final String METHOD_KEY = "method";
 
+    //相关文章默认条数
+    private static final int RELATED_POSTS_LIMIT = 5;
+
     @Autowired
     private PostService postService;
 
@@ -45,6 +50,13 @@ public class ArticleTagDirective implements TemplateDirectiveModel {
                 case "hotPosts":
                     environment.setVariable("hotPosts", builder.build().wrap(postService.hotPosts()));
                     break;
+                case "relatedPosts":
+                    final TemplateModel postModel = environment.getVariable("post");
+                    final Object post = null == postModel ? null : DeepUnwrap.permissiveUnwrap(postModel);
+                    if (post instanceof Post) {
+                        environment.setVariable("relatedPosts", builder.build().wrap(postService.relatedPosts((Post) post, RELATED_POSTS_LIMIT)));
+                    }
+                    break;
                 default:
                     break;
             }
@@ -6,9 +6,12 @@ import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.repository.base.BaseRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -21,6 +24,12 @@ import java.util.List;
  */
 public interface CommentRepository extends BaseRepository<Comment, Long> {
 
+    /**
+     * 评论树需要的字段，不加载文章
+     */
+    String THREAD_SELECT = "SELECT c.commentId, c.commentAuthor, c.commentAuthorUrl, c.commentAuthorAvatarMd5, c.commentDate,"
+            + " c.commentContent, c.commentAgent, c.commentParent, c.commentStatus, c.isAdmin FROM Comment c";
+
     /**
      * 根据评论状态查询所有评论 分页
      *
@@ -28,6 +37,7 @@ public interface CommentRepository extends BaseRepository<Comment, Long> {
      * @param pageable 分页信息
      * @return Page
      */
+    @EntityGraph(attributePaths = "post")
     Page<Comment> findCommentsByCommentStatus(Integer status, Pageable pageable);
 
     /**
@@ -76,12 +86,12 @@ public interface CommentRepository extends BaseRepository<Comment, Long> {
     List<Comment> findCommentsByPostAndCommentStatusNot(Post post, Integer status);
 
     /**
-     * 查询最新的前五条评论
+     * 查询最新的前五条评论，同时查询所属文章
      *
      * @return List
      */
-    @Query(value = "SELECT * FROM halo_comment ORDER BY comment_date DESC LIMIT 5", nativeQuery = true)
-    List<Comment> findTopFive();
+    @EntityGraph(attributePaths = "post")
+    List<Comment> findTop5ByOrderByCommentDateDesc();
 
     /**
      * 根据评论状态查询数量
@@ -99,4 +109,94 @@ public interface CommentRepository extends BaseRepository<Comment, Long> {
      */
     @Query(value = "SELECT * FROM halo_comment WHERE comment_status = 0 ORDER BY comment_date DESC LIMIT :limit", nativeQuery = true)
     List<Comment> getCommentsByLimit(@Param(value = "limit") int limit);
+
+    /**
+     * 查询一页顶级评论，最新的在前
+     *
+     * @param postId   postId
+     * @param statuses 显示的评论状态
+     * @param pageable pageable
+     * @return List
+     */
+    @Query(value = THREAD_SELECT + " WHERE c.post.postId = :postId AND c.commentParent = 0 AND c.commentStatus IN :statuses"
+            + " ORDER BY c.commentDate DESC, c.commentId DESC")
+    List<Object[]> findRootRows(@Param("postId") Long postId, @Param("statuses") Collection<Integer> statuses, Pageable pageable);
+
+    /**
+     * 查询(date, commentId)之后的一页顶级评论，最新的在前
+     *
+     * @param postId    postId
+     * @param statuses  显示的评论状态
+     * @param date      上一页最后一条评论的时间
+     * @param commentId 上一页最后一条评论的编号
+     * @param pageable  pageable
+     * @return List
+     */
+    @Query(value = THREAD_SELECT + " WHERE c.post.postId = :postId AND c.commentParent = 0 AND c.commentStatus IN :statuses"
+            + " AND (c.commentDate < :date OR (c.commentDate = :date AND c.commentId < :commentId))"
+            + " ORDER BY c.commentDate DESC, c.commentId DESC")
+    List<Object[]> findRootRowsBefore(@Param("postId") Long postId, @Param("statuses") Collection<Integer> statuses,
+                                      @Param("date") Date date, @Param("commentId") Long commentId, Pageable pageable);
+
+    /**
+     * 查询顶级评论的全部回复
+     *
+     * @param rootIds  顶级评论编号
+     * @param statuses 显示的评论状态
+     * @return List
+     */
+    @Query(value = THREAD_SELECT + " WHERE c.commentRoot IN :rootIds AND c.commentStatus IN :statuses ORDER BY c.commentId")
+    List<Object[]> findDescendantRows(@Param("rootIds") Collection<Long> rootIds, @Param("statuses") Collection<Integer> statuses);
+
+    /**
+     * 顶级评论数
+     *
+     * @param postId   postId
+     * @param statuses 显示的评论状态
+     * @return long
+     */
+    @Query(value = "SELECT COUNT(c) FROM Comment c WHERE c.post.postId = :postId AND c.commentParent = 0 AND c.commentStatus IN :statuses")
+    long countRoots(@Param("postId") Long postId, @Param("statuses") Collection<Integer> statuses);
+
+    /**
+     * 比(date, commentId)新的顶级评论数
+     *
+     * @param postId    postId
+     * @param statuses  显示的评论状态
+     * @param date      评论时间
+     * @param commentId 评论编号
+     * @return long
+     */
+    @Query(value = "SELECT COUNT(c) FROM Comment c WHERE c.post.postId = :postId AND c.commentParent = 0 AND c.commentStatus IN :statuses"
+            + " AND (c.commentDate > :date OR (c.commentDate = :date AND c.commentId > :commentId))")
+    long countRootsAfter(@Param("postId") Long postId, @Param("statuses") Collection<Integer> statuses,
+                         @Param("date") Date date, @Param("commentId") Long commentId);
+
+    /**
+     * 文章的评论数
+     *
+     * @param postId   postId
+     * @param statuses 显示的评论状态
+     * @return long
+     */
+    @Query(value = "SELECT COUNT(c) FROM Comment c WHERE c.post.postId = :postId AND c.commentStatus IN :statuses")
+    long countByPostId(@Param("postId") Long postId, @Param("statuses") Collection<Integer> statuses);
+
+    /**
+     * 查询单条评论的评论树字段
+     *
+     * @param commentId commentId
+     * @return List
+     */
+    @Query(value = THREAD_SELECT + " WHERE c.commentId = :commentId")
+    List<Object[]> findThreadRowsByCommentId(@Param("commentId") Long commentId);
+
+    /**
+     * 查询评论所属的顶级评论
+     *
+     * @param commentId commentId
+     * @return List
+     */
+    @Query(value = "SELECT c.commentRoot FROM Comment c WHERE c.commentId = :commentId")
+    List<Long> findCommentRootByCommentId(@Param("commentId") Long commentId);
 }
@@ -0,0 +1,37 @@
+package com.xians.yaco.repository;
+
+import com.xians.yaco.model.domain.OutboxMail;
+import com.xians.yaco.repository.base.BaseRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <pre>
+ *     待发送邮件持久层
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public interface OutboxMailRepository extends BaseRepository<OutboxMail, Long> {
+
+    /**
+     * 查询已到发送时间的邮件
+     *
+     * @param status   status
+     * @param now      当前时间
+     * @param pageable 每批条数
+     * @return List
+     */
+    List<OutboxMail> findByMailStatusAndMailNextAttemptLessThanEqualOrderByMailId(Integer status, Date now, Pageable pageable);
+
+    /**
+     * 查询收件人所有待合并发送的通知
+     *
+     * @param status status
+     * @param mailTo 收件人
+     * @return List
+     */
+    List<OutboxMail> findByMailStatusAndMailDigestTrueAndMailToOrderByMailId(Integer status, String mailTo);
+}
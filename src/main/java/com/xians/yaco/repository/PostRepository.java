@@ -4,13 +4,16 @@ package com.xians.yaco.repository;
 import com.xians.yaco.model.domain.Category;
 import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.domain.Tag;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.repository.base.BaseRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -24,6 +27,11 @@ import java.util.List;
  */
 public interface   PostRepository extends BaseRepository<Post, Long>, JpaSpecificationExecutor<Post> {
 
+    /**
+     * 文章卡片投影，不查询文章内容和评论
+     */
+    String POST_CARD_SELECT = "SELECT new com.xians.yaco.model.dto.PostCard(p.postId, p.postTitle, p.postUrl, p.postSummary, p.postThumbnail, p.postDate, p.postUpdate, p.postViews, p.allowComment, p.postPassword) FROM Post p";
+
     /**
      * 查询前五条文章
      *
@@ -32,6 +40,15 @@ public interface   PostRepository extends BaseRepository<Post, Long>, JpaSpecifi
     @Query(value = "SELECT * FROM halo_post WHERE post_type='post' ORDER BY post_date DESC LIMIT 5", nativeQuery = true)
     List<Post> findTopFive();
 
+    /**
+     * 查询所有文章，同时查询评论
+     *
+     * @return List
+     */
+    @EntityGraph(Post.WITH_COMMENTS)
+    @Query(value = "SELECT DISTINCT p FROM Post p")
+    List<Post> findAllWithComments();
+
     /**
      * 查询所有文章 根据文章类型
      *
@@ -78,150 +95,211 @@ public interface   PostRepository extends BaseRepository<Post, Long>, JpaSpecifi
     Post findPostByPostIdAndPostType(Long postId, String postType);
 
     /**
-     * 查询指定日期之前的文章
+     * 按热度从大到小排序
      *
-     * @param postDate 日期
-     * @return Post
+     * @param postStatus 文章状态
+     * @return List<Post>
      */
-    @Query(value = "SELECT * FROM halo_post WHERE post_status = 0 AND post_type='post' AND post_date < :postDate ORDER BY post_date DESC LIMIT 1", nativeQuery = true)
-    Post queryPrePost(@Param("postDate") Date postDate);
+    List<Post> findPostsByPostTypeOrderByPostViewsDesc(String postStatus);
 
     /**
-     * 查询指定日期之后的文章
+     * 获取所有文章阅读量总和
      *
-     * @param postDate 日期
-     * @return Post
+     * @return Long
      */
-    @Query(value = "SELECT * FROM halo_post WHERE post_status = 0 AND post_type='post' AND post_date > :postDate ORDER BY post_date ASC LIMIT 1", nativeQuery = true)
-    Post queryNextPost(@Param("postDate") Date postDate);
+    @Query(value = "SELECT SUM(post_views) FROM halo_post", nativeQuery = true)
+    Long getPostViewsSum();
 
     /**
-     * 查询文章归档信息 根据年份和月份
+     * 根据文章状态查询数量
      *
-     * @return List
+     * @param status   文章状态
+     * @param postType 文章类型
+     * @return 文章数量
      */
-    @Query(value = "SELECT YEAR(post_date) AS YEAR,MONTH(post_date) AS MONTH,COUNT(*) AS COUNT FROM halo_post WHERE post_status=0 and post_type='post' GROUP BY YEAR(post_date),MONTH(post_date) ORDER BY YEAR DESC,MONTH DESC", nativeQuery = true)
-    List<Object[]> findPostGroupByYearAndMonth();
+    Integer countAllByPostStatusAndPostType(Integer status, String postType);
 
     /**
-     * 查询文章归档信息 根据年份
+     * 获取指定条数的文章
      *
+     * @param limit 条数
      * @return List
      */
-    @Query(value = "SELECT YEAR(post_date) AS YEAR,COUNT(*) AS COUNT FROM halo_post WHERE post_status=0 AND post_type='post' GROUP BY YEAR(post_date) ORDER BY YEAR DESC", nativeQuery = true)
-    List<Object[]> findPostGroupByYear();
-
-
-    /**
-     * @return List
-     * @Author Aquan
-     * @Description 查询文章归档信息 查询所有文章
-     * @Date 2019.1.4 11:19
-     * @Param
-     **/
-    @Query(value = "SELECT *,YEAR(post_date) AS YEAR FROM halo_post WHERE post_status=0 AND post_type='post' ORDER BY post_date DESC", nativeQuery = true)
-    List<Post> findAllPost();
+    @Query(value = "SELECT * FROM halo_post WHERE post_status = 0 AND post_type = 'post' ORDER BY post_date DESC LIMIT :limit", nativeQuery = true)
+    List<Post> getPostsByLimit(@Param(value = "limit") int limit);
 
     /**
-     * @return Integer
-     * @Author Aquan
-     * @Description 查询文章总数
-     * @Date 2020年4月16日08:51:56
-     * @Param
-     **/
-    @Query(value = "SELECT count(1) AS COUNT FROM halo_post WHERE post_status=0 AND post_type='post'", nativeQuery = true)
-    Integer totalAllPostCount();
-
+     * 根据文章的状态查询文章卡片 分页
+     *
+     * @param status   0，1，2
+     * @param postType post or page
+     * @param pageable 分页信息
+     * @return Page
+     */
+    @Query(value = POST_CARD_SELECT + " WHERE p.postStatus = :status AND p.postType = :postType",
+            countQuery = "SELECT COUNT(p) FROM Post p WHERE p.postStatus = :status AND p.postType = :postType")
+    Page<PostCard> findPostCardsByPostStatusAndPostType(@Param("status") Integer status, @Param("postType") String postType, Pageable pageable);
 
     /**
-     * 根据年份和月份查询文章
+     * 根据文章的状态查询所有文章卡片 按发表日期倒序
      *
-     * @param year  year
-     * @param month month
+     * @param status   0，1，2
+     * @param postType post or page
      * @return List
      */
-    @Query(value = "SELECT *,YEAR(post_date) AS YEAR,MONTH(post_date) AS MONTH FROM halo_post WHERE post_status=0 and post_type='post' AND YEAR(post_date)=:year AND MONTH(post_date)=:month ORDER BY post_date DESC", nativeQuery = true)
-    List<Post> findPostByYearAndMonth(@Param("year") String year, @Param("month") String month);
+    @Query(value = POST_CARD_SELECT + " WHERE p.postStatus = :status AND p.postType = :postType ORDER BY p.postDate DESC")
+    List<PostCard> findAllPostCards(@Param("status") Integer status, @Param("postType") String postType);
 
     /**
-     * 根据年份查询文章
+     * 根据分类目录查询文章卡片 分页
      *
-     * @param year year
-     * @return List
+     * @param category category
+     * @param status   status
+     * @param pageable pageable
+     * @return Page
      */
-    @Query(value = "SELECT *,YEAR(post_date) AS YEAR FROM halo_post WHERE post_status=0 AND post_type='post' AND YEAR(post_date)=:year ORDER BY post_date DESC", nativeQuery = true)
-    List<Post> findPostByYear(@Param("year") String year);
+    @Query(value = POST_CARD_SELECT + " JOIN p.categories c WHERE c = :category AND p.postStatus = :status",
+            countQuery = "SELECT COUNT(p) FROM Post p JOIN p.categories c WHERE c = :category AND p.postStatus = :status")
+    Page<PostCard> findPostCardsByCategoryAndPostStatus(@Param("category") Category category, @Param("status") Integer status, Pageable pageable);
 
     /**
-     * 根据年份和月份查询文章 分页
+     * 根据标签查询文章卡片 分页
      *
-     * @param year     year
-     * @param month    month
+     * @param tag      tag
+     * @param status   status
      * @param pageable pageable
      * @return Page
      */
-    @Query(value = "SELECT * FROM halo_post WHERE post_status=0 and post_type='post' AND YEAR(post_date)=:year AND MONTH(post_date)=:month ORDER BY post_date DESC", countQuery = "SELECT COUNT(*) FROM halo_post WHERE post_status=0 AND YEAR(post_date)=:year AND MONTH(post_date)=:month", nativeQuery = true)
-    Page<Post> findPostByYearAndMonth(@Param("year") String year, @Param("month") String month, Pageable pageable);
+    @Query(value = POST_CARD_SELECT + " JOIN p.tags t WHERE t = :tag AND p.postStatus = :status",
+            countQuery = "SELECT COUNT(p) FROM Post p JOIN p.tags t WHERE t = :tag AND p.postStatus = :status")
+    Page<PostCard> findPostCardsByTagAndPostStatus(@Param("tag") Tag tag, @Param("status") Integer status, Pageable pageable);
 
     /**
-     * 根据分类目录查询文章
+     * 查询发表日期在[start, end)之间的文章卡片 分页
      *
-     * @param category category
      * @param status   status
+     * @param postType post or page
+     * @param start    开始日期（包含）
+     * @param end      结束日期（不包含）
      * @param pageable pageable
      * @return Page
      */
-    Page<Post> findPostByCategoriesAndPostStatus(Category category, Integer status, Pageable pageable);
+    @Query(value = POST_CARD_SELECT + " WHERE p.postStatus = :status AND p.postType = :postType AND p.postDate >= :start AND p.postDate < :end ORDER BY p.postDate DESC",
+            countQuery = "SELECT COUNT(p) FROM Post p WHERE p.postStatus = :status AND p.postType = :postType AND p.postDate >= :start AND p.postDate < :end")
+    Page<PostCard> findPostCardsByPostDateBetween(@Param("status") Integer status, @Param("postType") String postType,
+                                                  @Param("start") Date start, @Param("end") Date end, Pageable pageable);
 
     /**
-     * 根据标签查询文章，分页
+     * 根据关键词模糊查询文章卡片 分页
      *
-     * @param tag      tag
+     * @param keyword  已转为小写并带有通配符的关键词
      * @param status   status
+     * @param postType post or page
      * @param pageable pageable
      * @return Page
      */
-    Page<Post> findPostsByTagsAndPostStatus(Tag tag, Integer status, Pageable pageable);
+    @Query(value = POST_CARD_SELECT + " WHERE p.postStatus = :status AND p.postType = :postType AND (LOWER(p.postTitle) LIKE :keyword OR LOWER(p.postContent) LIKE :keyword)",
+            countQuery = "SELECT COUNT(p) FROM Post p WHERE p.postStatus = :status AND p.postType = :postType AND (LOWER(p.postTitle) LIKE :keyword OR LOWER(p.postContent) LIKE :keyword)")
+    Page<PostCard> searchPostCards(@Param("keyword") String keyword, @Param("status") Integer status, @Param("postType") String postType, Pageable pageable);
 
     /**
-     * 根据标签查询文章
+     * 批量查询文章的分类目录
      *
-     * @param tag tag
+     * @param postIds 文章编号
+     * @return List of [postId, Category]
+     */
+    @Query(value = "SELECT p.postId, c FROM Post p JOIN p.categories c WHERE p.postId IN :postIds")
+    List<Object[]> findCategoriesByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * 批量查询文章的标签
+     *
+     * @param postIds 文章编号
+     * @return List of [postId, Tag]
+     */
+    @Query(value = "SELECT p.postId, t FROM Post p JOIN p.tags t WHERE p.postId IN :postIds")
+    List<Object[]> findTagsByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * 查询所有文章与标签的对应关系
+     *
+     * @param status   status
+     * @param postType post or page
+     * @return List of [postId, tagId]
+     */
+    @Query(value = "SELECT p.postId, t.tagId FROM Post p JOIN p.tags t WHERE p.postStatus = :status AND p.postType = :postType")
+    List<Object[]> findTagIdPairs(@Param("status") Integer status, @Param("postType") String postType);
+
+    /**
+     * 查询所有文章与分类目录的对应关系
+     *
+     * @param status   status
+     * @param postType post or page
+     * @return List of [postId, cateId]
+     */
+    @Query(value = "SELECT p.postId, c.cateId FROM Post p JOIN p.categories c WHERE p.postStatus = :status AND p.postType = :postType")
+    List<Object[]> findCategoryIdPairs(@Param("status") Integer status, @Param("postType") String postType);
+
+    /**
+     * 查询文章的标签编号
+     *
+     * @param postId postId
      * @return List
      */
-    List<Post> findPostsByTags(Tag tag);
+    @Query(value = "SELECT t.tagId FROM Post p JOIN p.tags t WHERE p.postId = :postId")
+    List<Long> findTagIdsByPostId(@Param("postId") Long postId);
 
     /**
-     * 按热度从大到小排序
+     * 查询文章的分类目录编号
      *
-     * @param postStatus 文章状态
-     * @return List<Post>
+     * @param postId postId
+     * @return List
      */
-    List<Post> findPostsByPostTypeOrderByPostViewsDesc(String postStatus);
+    @Query(value = "SELECT c.cateId FROM Post p JOIN p.categories c WHERE p.postId = :postId")
+    List<Long> findCategoryIdsByPostId(@Param("postId") Long postId);
 
     /**
-     * 获取所有文章阅读量总和
+     * 批量查询建立全文索引所需的字段
      *
-     * @return Long
+     * @param postIds 文章编号
+     * @return List of [postId, postTitle, postContent, postPassword]
      */
-    @Query(value = "SELECT SUM(post_views) FROM halo_post", nativeQuery = true)
-    Long getPostViewsSum();
+    @Query(value = "SELECT p.postId, p.postTitle, p.postContent, p.postPassword FROM Post p WHERE p.postId IN :postIds")
+    List<Object[]> findSearchRowsByPostIdIn(@Param("postIds") Collection<Long> postIds);
 
     /**
-     * 根据文章状态查询数量
+     * 批量查询文章的标签名称
      *
-     * @param status   文章状态
-     * @param postType 文章类型
-     * @return 文章数量
+     * @param postIds 文章编号
+     * @return List of [postId, tagName]
      */
-    Integer countAllByPostStatusAndPostType(Integer status, String postType);
+    @Query(value = "SELECT p.postId, t.tagName FROM Post p JOIN p.tags t WHERE p.postId IN :postIds")
+    List<Object[]> findTagNamesByPostIdIn(@Param("postIds") Collection<Long> postIds);
 
     /**
-     * 获取指定条数的文章
+     * 批量查询文章的分类目录名称
      *
-     * @param limit 条数
+     * @param postIds 文章编号
+     * @return List of [postId, cateName]
+     */
+    @Query(value = "SELECT p.postId, c.cateName FROM Post p JOIN p.categories c WHERE p.postId IN :postIds")
+    List<Object[]> findCategoryNamesByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * 查询使用了标签的文章编号
+     *
+     * @param tagId tagId
      * @return List
      */
-    @Query(value = "SELECT * FROM halo_post WHERE post_status = 0 AND post_type = 'post' ORDER BY post_date DESC LIMIT :limit", nativeQuery = true)
-    List<Post> getPostsByLimit(@Param(value = "limit") int limit);
+    @Query(value = "SELECT p.postId FROM Post p JOIN p.tags t WHERE t.tagId = :tagId")
+    List<Long> findPostIdsByTagId(@Param("tagId") Long tagId);
+
+    /**
+     * 查询属于分类目录的文章编号
+     *
+     * @param cateId cateId
+     * @return List
+     */
+    @Query(value = "SELECT p.postId FROM Post p JOIN p.categories c WHERE c.cateId = :cateId")
+    List<Long> findPostIdsByCateId(@Param("cateId") Long cateId);
 }
@@ -0,0 +1,22 @@
+package com.xians.yaco.service;
+
+import com.xians.yaco.model.dto.CacheStats;
+
+import java.util.List;
+
+/**
+ * <pre>
+ *     缓存统计业务逻辑接口
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public interface CacheStatsService {
+
+    /**
+     * 所有缓存的统计
+     *
+     * @return List
+     */
+    List<CacheStats> listCacheStats();
+}
@@ -3,6 +3,7 @@ package com.xians.yaco.service;
 
 import com.xians.yaco.model.domain.Comment;
 import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.CommentPage;
 import com.xians.yaco.service.base.CrudService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -114,4 +115,15 @@ public interface CommentService extends CrudService<Comment, Long> {
      * @return List
      */
     List<Comment> getRecentComments(int limit);
+
+    /**
+     * 获取文章在前台显示的一页评论
+     *
+     * @param postId postId
+     * @param page   页码，有游标时忽略
+     * @param cursor 上一页的nextCursor
+     * @param size   每页顶级评论数
+     * @return CommentPage
+     */
+    CommentPage findCommentPage(Long postId, int page, String cursor, int size);
 }
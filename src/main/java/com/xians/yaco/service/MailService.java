@@ -41,4 +41,22 @@ public interface MailService {
      * @param attachSrc    附件路径
      */
     void sendAttachMail(String to, String subject, Map<String, Object> content, String templateName, String attachSrc);
+
+    /**
+     * 模板邮件放入发件箱，由后台线程批量发送，失败时重试
+     *
+     * @param to           接收者
+     * @param subject      主题
+     * @param content      内容
+     * @param templateName 模板路径
+     */
+    void queueTemplateMail(String to, String subject, Map<String, Object> content, String templateName);
+
+    /**
+     * 新评论通知放入发件箱，一段时间内发给同一接收者的通知合并为一封邮件
+     *
+     * @param to      接收者
+     * @param content mail_admin.ftl的内容
+     */
+    void queueCommentNotice(String to, Map<String, Object> content);
 }
@@ -5,14 +5,16 @@ import com.xians.yaco.model.domain.Category;
 import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.domain.Tag;
 import com.xians.yaco.model.dto.Archive;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.service.base.CrudService;
+import com.xians.yaco.service.job.SummaryJob;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.Date;
+import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 
 /**
@@ -35,11 +37,26 @@ public interface PostService extends CrudService<Post, Long> {
     Post updatePostStatus(Long postId, Integer status);
 
     /**
-     * 批量修改摘要
+     * 在后台批量修改摘要
      *
      * @param postSummary postSummary
+     * @return 已有任务在运行时为false
      */
-    void updateAllSummary(Integer postSummary);
+    boolean updateAllSummary(Integer postSummary);
+
+    /**
+     * 批量修改摘要的进度
+     *
+     * @return Progress
+     */
+    SummaryJob.Progress getSummaryProgress();
+
+    /**
+     * 重新渲染所有文章和页面的Markdown
+     *
+     * @return HTML发生变化的文章数
+     */
+    int rerenderAll();
 
     /**
      * 获取文章列表 不分页
@@ -59,7 +76,7 @@ public interface PostService extends CrudService<Post, Long> {
      * @return a page of posts
      */
     @NonNull
-    Page<Post> searchPosts(@Nullable String keyword, @Nullable String postType, @Nullable Integer postStatus, @NonNull Pageable pageable);
+    Page<PostCard> searchPosts(@Nullable String keyword, @Nullable String postType, @Nullable Integer postStatus, @NonNull Pageable pageable);
 
 
     /**
@@ -72,13 +89,23 @@ public interface PostService extends CrudService<Post, Long> {
      */
     Page<Post> findPostByStatus(Integer status, String postType, Pageable pageable);
 
+    /**
+     * 根据文章状态查询文章卡片 分页，用于前台列表
+     *
+     * @param status   0，1，2
+     * @param postType post or page
+     * @param pageable 分页信息
+     * @return Page
+     */
+    Page<PostCard> findPostCardsByStatus(Integer status, String postType, Pageable pageable);
+
     /**
      * 根据文章状态查询 分页，首页分页
      *
      * @param pageable pageable
      * @return Page
      */
-    Page<Post> findPostByStatus(Pageable pageable);
+    Page<PostCard> findPostByStatus(Pageable pageable);
 
     /**
      * 根据文章状态查询
@@ -118,18 +145,18 @@ public interface PostService extends CrudService<Post, Long> {
     /**
      * 获取下一篇文章 较新
      *
-     * @param postDate postDate
-     * @return Post
+     * @param post 当前文章
+     * @return PostCard
      */
-    Post getNextPost(Date postDate);
+    PostCard getNextPost(Post post);
 
     /**
      * 获取下一篇文章 较老
      *
-     * @param postDate postDate
-     * @return Post
+     * @param post 当前文章
+     * @return PostCard
      */
-    Post getPrePost(Date postDate);
+    PostCard getPrePost(Post post);
 
     /**
      * 查询归档信息 根据年份和月份
@@ -155,15 +182,6 @@ public interface PostService extends CrudService<Post, Long> {
     List<Archive> findAllPost();
 
 
-    /**
-     * 根据年份和月份查询文章
-     *
-     * @param year  year
-     * @param month month
-     * @return List
-     */
-    List<Post> findPostByYearAndMonth(String year, String month);
-
     /**
      * 根据年份和月份查询文章 分页
      *
@@ -172,15 +190,7 @@ public interface PostService extends CrudService<Post, Long> {
      * @param pageable pageable
      * @return Page
      */
-    Page<Post> findPostByYearAndMonth(String year, String month, Pageable pageable);
-
-    /**
-     * 根据年份查询文章
-     *
-     * @param year year
-     * @return List
-     */
-    List<Post> findPostByYear(String year);
+    Page<PostCard> findPostByYearAndMonth(String year, String month, Pageable pageable);
 
     /**
      * 根据分类目录查询文章
@@ -189,7 +199,7 @@ public interface PostService extends CrudService<Post, Long> {
      * @param pageable pageable
      * @return Page
      */
-    Page<Post> findPostByCategories(Category category, Pageable pageable);
+    Page<PostCard> findPostByCategories(Category category, Pageable pageable);
 
     /**
      * 根据标签查询文章
@@ -198,7 +208,7 @@ public interface PostService extends CrudService<Post, Long> {
      * @param pageable pageable
      * @return Page
      */
-    Page<Post> findPostsByTags(Tag tag, Pageable pageable);
+    Page<PostCard> findPostsByTags(Tag tag, Pageable pageable);
 
     /**
      * 热门文章
@@ -208,12 +218,13 @@ public interface PostService extends CrudService<Post, Long> {
     List<Post> hotPosts();
 
     /**
-     * 当前文章的相似文章
+     * 当前文章的相似文章，按标签和分类的相似度排序
      *
-     * @param post post
+     * @param post  post
+     * @param limit 最多返回条数
      * @return List
      */
-    List<Post> relatedPosts(Post post);
+    List<PostCard> relatedPosts(Post post, int limit);
 
     /**
      * 获取所有文章的阅读量
@@ -231,11 +242,12 @@ public interface PostService extends CrudService<Post, Long> {
     Integer getCountByStatus(Integer status);
 
     /**
-     * 缓存阅读数
+     * 缓存阅读数和访客，爬虫等非人工访问不计入
      *
-     * @param postId postId
+     * @param postId  postId
+     * @param request request
      */
-    void cacheViews(Long postId);
+    void cacheViews(Long postId, HttpServletRequest request);
 
     /**
      * 组装分类目录和标签
@@ -254,4 +266,11 @@ public interface PostService extends CrudService<Post, Long> {
      * @return List
      */
     List<Post> getRecentPosts(int limit);
+
+    /**
+     * 查询所有文章及其评论，用于导出
+     *
+     * @return List
+     */
+    List<Post> listAllWithComments();
 }
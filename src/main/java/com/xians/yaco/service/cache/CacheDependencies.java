@@ -0,0 +1,153 @@
+package com.xians.yaco.service.cache;
+
+import com.xians.yaco.model.domain.Category;
+import com.xians.yaco.model.domain.Comment;
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.domain.Tag;
+import com.xians.yaco.model.dto.PostCard;
+import org.hibernate.Hibernate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <pre>
+ *     缓存值的依赖
+ *     写入缓存时从缓存值中找出引用的文章、标签、分类和评论，变更事件据此只失效受影响的键
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public final class CacheDependencies {
+
+    /**
+     * 文章列表，文章新增、删除、发布状态变化时失效
+     */
+    public static final String POST_LIST = "posts";
+
+    /**
+     * 评论列表，任意评论变更时失效
+     */
+    public static final String COMMENT_LIST = "comments";
+
+    /**
+     * 引用了任意文章
+     */
+    public static final String ANY_POST = "post:*";
+
+    /**
+     * 没有查到文章，新增文章或修改文章路径后可能查到，任意文章变更时失效
+     */
+    public static final String NO_POST = "post:none";
+
+    /**
+     * 标签未加载，无法确定引用了哪些标签
+     */
+    public static final String UNKNOWN_TAGS = "tag:?";
+
+    /**
+     * 分类未加载，无法确定引用了哪些分类
+     */
+    public static final String UNKNOWN_CATEGORIES = "category:?";
+
+    private CacheDependencies() {
+    }
+
+    public static String post(@NonNull Long postId) {
+        return "post:" + postId;
+    }
+
+    public static String tag(@NonNull Long tagId) {
+        return "tag:" + tagId;
+    }
+
+    public static String category(@NonNull Long cateId) {
+        return "category:" + cateId;
+    }
+
+    /**
+     * 找出缓存值的依赖
+     *
+     * @param value 缓存值
+     * @return Set
+     */
+    @NonNull
+    public static Set<String> of(@Nullable Object value) {
+        final Set<String> dependencies = new HashSet<>();
+        final Object unwrapped = value instanceof Optional ? ((Optional<?>) value).orElse(null) : value;
+        if (null == unwrapped) {
+            //空结果也会被缓存，没有依赖时不会被任何事件失效
+            dependencies.add(POST_LIST);
+            dependencies.add(NO_POST);
+            return dependencies;
+        }
+        collect(unwrapped, dependencies);
+        return dependencies;
+    }
+
+    private static void collect(Object value, Set<String> dependencies) {
+        if (value instanceof Iterable) {
+            boolean empty = true;
+            for (Object element : (Iterable<?>) value) {
+                empty = false;
+                collect(element, dependencies);
+                if (element instanceof Post || element instanceof PostCard) {
+                    dependencies.add(POST_LIST);
+                } else if (element instanceof Comment) {
+                    dependencies.add(COMMENT_LIST);
+                }
+            }
+            if (empty) {
+                //空列表无法判断元素类型，新增任意文章或评论后都可能不再为空
+                dependencies.add(POST_LIST);
+                dependencies.add(COMMENT_LIST);
+            }
+        } else if (value instanceof Post) {
+            final Post post = (Post) value;
+            addPost(post.getPostId(), dependencies);
+            addTags(post.getTags(), dependencies);
+            addCategories(post.getCategories(), dependencies);
+        } else if (value instanceof PostCard) {
+            final PostCard card = (PostCard) value;
+            addPost(card.getPostId(), dependencies);
+            addTags(card.getTags(), dependencies);
+            addCategories(card.getCategories(), dependencies);
+        } else if (value instanceof Comment) {
+            final Comment comment = (Comment) value;
+            if (null != comment.getPost()) {
+                addPost(comment.getPost().getPostId(), dependencies);
+            }
+        }
+    }
+
+    private static void addPost(Long postId, Set<String> dependencies) {
+        dependencies.add(ANY_POST);
+        if (null != postId) {
+            dependencies.add(post(postId));
+        }
+    }
+
+    private static void addTags(Collection<Tag> tags, Set<String> dependencies) {
+        if (null == tags || !Hibernate.isInitialized(tags)) {
+            dependencies.add(UNKNOWN_TAGS);
+            return;
+        }
+        for (Tag tag : tags) {
+            dependencies.add(tag(tag.getTagId()));
+        }
+    }
+
+    private static void addCategories(Collection<Category> categories, Set<String> dependencies) {
+        if (null == categories || !Hibernate.isInitialized(categories)) {
+            dependencies.add(UNKNOWN_CATEGORIES);
+            return;
+        }
+        for (Category category : categories) {
+            dependencies.add(category(category.getCateId()));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.xians.yaco.service.cache;
+
+import java.io.Serializable;
+
+/**
+ * <pre>
+ *     缓存条目
+ *     记录需要刷新的时间，过了刷新时间但尚未过期的条目仍可返回，同时在后台刷新
+ * </pre>
+ *
+ * @author : XIANS
+ */
+final class CacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+
+    private final long refreshAt;
+
+    CacheEntry(Object value, long refreshAt) {
+        this.value = value;
+        this.refreshAt = refreshAt;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    boolean isStale(long now) {
+        return now >= refreshAt;
+    }
+}
@@ -0,0 +1,110 @@
+package com.xians.yaco.service.cache;
+
+import com.xians.yaco.event.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <pre>
+ *     缓存失效
+ *     监听文章、评论、标签、分类、设置和用户的变更事件，只失效依赖于变更内容的缓存键和页面
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class CacheInvalidationListener {
+
+    private final DependencyTrackingCacheManager cacheManager;
+
+    private final PageCache pageCache;
+
+    private final ContentVersions contentVersions;
+
+    public CacheInvalidationListener(DependencyTrackingCacheManager cacheManager, PageCache pageCache, ContentVersions contentVersions) {
+        this.cacheManager = cacheManager;
+        this.pageCache = pageCache;
+        this.contentVersions = contentVersions;
+    }
+
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        if (null == event.getPostId()) {
+            evict(event, CacheDependencies.ANY_POST, CacheDependencies.NO_POST);
+            pageCache.clear();
+            return;
+        }
+        final List<String> dependencies = new ArrayList<>();
+        dependencies.add(CacheDependencies.post(event.getPostId()));
+        dependencies.add(CacheDependencies.NO_POST);
+        if (event.isStructural()) {
+            dependencies.add(CacheDependencies.POST_LIST);
+        }
+        evict(event, dependencies);
+
+        final List<String> pages = new ArrayList<>();
+        pages.add(PageCache.postTag(event.getPostId()));
+        for (Long neighbourId : event.getNeighbourIds()) {
+            pages.add(PageCache.postTag(neighbourId));
+        }
+        //模板指令输出的最新文章、归档等不在model中，列表页总是失效
+        pages.add(PageCache.LIST_TAG);
+        pageCache.invalidate(pages.toArray(new String[0]));
+    }
+
+    @EventListener
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (null == event.getPostId()) {
+            evict(event, CacheDependencies.COMMENT_LIST);
+            return;
+        }
+        //文章实体包含评论，所属文章的缓存也需要失效
+        evict(event, CacheDependencies.COMMENT_LIST, CacheDependencies.post(event.getPostId()));
+        pageCache.invalidate(PageCache.postTag(event.getPostId()));
+    }
+
+    @EventListener
+    public void onTagChanged(TagChangedEvent event) {
+        evict(event, CacheDependencies.tag(event.getTagId()), CacheDependencies.UNKNOWN_TAGS);
+        pageCache.invalidate(PageCache.LIST_TAG, PageCache.tagTag(event.getTagId()));
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        evict(event, CacheDependencies.category(event.getCateId()), CacheDependencies.UNKNOWN_CATEGORIES);
+        pageCache.invalidate(PageCache.LIST_TAG, PageCache.categoryTag(event.getCateId()));
+    }
+
+    @EventListener
+    public void onOptionsChanged(OptionsChangedEvent event) {
+        //每页条数等设置会影响文章列表
+        evict(event, CacheDependencies.POST_LIST);
+        pageCache.clear();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        //登录记录等不影响页面内容，页面缓存只在修改资料时清空，这里只推进版本使 /api/user 等的ETag失效
+        contentVersions.touchAll();
+    }
+
+    private void evict(Object event, String... dependencies) {
+        evict(event, Arrays.asList(dependencies));
+    }
+
+    private void evict(Object event, Collection<String> dependencies) {
+        for (DependencyTrackingCache cache : cacheManager.getCaches()) {
+            final int evicted = cache.evictDependents(dependencies);
+            if (evicted > 0) {
+                log.debug("{} evicted {} keys from cache {}, hit rate {}", event.getClass().getSimpleName(), evicted, cache.getName(), cache.getMetrics().getHitRate());
+            }
+        }
+    }
+}
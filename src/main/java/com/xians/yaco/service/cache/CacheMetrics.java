@@ -0,0 +1,174 @@
+package com.xians.yaco.service.cache;
+
+import com.xians.yaco.model.dto.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <pre>
+ *     单个缓存的统计
+ *     命中、未命中、写入、失效次数，加载耗时分布，以及各个键的命中情况
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class CacheMetrics {
+
+    /**
+     * 加载耗时分桶的上界，毫秒，最后一个桶不设上界
+     */
+    private static final long[] LOAD_BUCKETS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500};
+
+    /**
+     * 最多记录的键数，超过后新出现的键不再单独统计
+     */
+    private static final int MAX_TRACKED_KEYS = 1000;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder puts = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final LongAdder loadNanos = new LongAdder();
+
+    private final LongAdder[] loadBuckets = new LongAdder[LOAD_BUCKETS_MILLIS.length + 1];
+
+    private final ConcurrentMap<String, KeyCounter> keys = new ConcurrentHashMap<>();
+
+    public CacheMetrics() {
+        for (int i = 0; i < loadBuckets.length; i++) {
+            loadBuckets[i] = new LongAdder();
+        }
+    }
+
+    public void recordHit(Object key) {
+        hits.increment();
+        final KeyCounter counter = counter(key);
+        if (null != counter) {
+            counter.hits.increment();
+        }
+    }
+
+    public void recordMiss(Object key) {
+        misses.increment();
+        final KeyCounter counter = counter(key);
+        if (null != counter) {
+            counter.misses.increment();
+        }
+    }
+
+    public void recordPut() {
+        puts.increment();
+    }
+
+    public void recordInvalidations(long count) {
+        invalidations.add(count);
+    }
+
+    public void recordLoad(long nanos) {
+        loadNanos.add(nanos);
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < LOAD_BUCKETS_MILLIS.length && millis >= LOAD_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        loadBuckets[bucket].increment();
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 0 ~ 1
+     */
+    public double getHitRate() {
+        final long hit = hits.sum();
+        final long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 填充统计结果
+     *
+     * @param stats    stats
+     * @param topCount 未命中最多的键的个数
+     */
+    public void fill(CacheStats stats, int topCount) {
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setHitRate(getHitRate());
+        stats.setPuts(puts.sum());
+        stats.setInvalidations(invalidations.sum());
+
+        final Map<String, Long> histogram = new LinkedHashMap<>();
+        final long[] counts = new long[loadBuckets.length];
+        long loads = 0;
+        for (int i = 0; i < loadBuckets.length; i++) {
+            counts[i] = loadBuckets[i].sum();
+            loads += counts[i];
+            histogram.put(i < LOAD_BUCKETS_MILLIS.length ? "<" + LOAD_BUCKETS_MILLIS[i] + "ms" : ">=" + LOAD_BUCKETS_MILLIS[i - 1] + "ms", counts[i]);
+        }
+        stats.setLoads(loads);
+        stats.setLoadHistogram(histogram);
+        stats.setLoadMeanMillis(loads == 0 ? 0 : loadNanos.sum() / 1e6 / loads);
+        stats.setLoadP50Millis(percentile(counts, loads, 0.50));
+        stats.setLoadP95Millis(percentile(counts, loads, 0.95));
+        stats.setLoadP99Millis(percentile(counts, loads, 0.99));
+
+        final List<CacheStats.KeyStats> keyStats = new ArrayList<>();
+        keys.forEach((key, counter) -> {
+            final long keyMisses = counter.misses.sum();
+            if (keyMisses > 0) {
+                final long keyHits = counter.hits.sum();
+                keyStats.add(new CacheStats.KeyStats(key, keyHits, keyMisses, (double) keyMisses / (keyHits + keyMisses)));
+            }
+        });
+        keyStats.sort(Comparator.comparingLong(CacheStats.KeyStats::getMisses).reversed()
+                .thenComparing(Comparator.comparingDouble(CacheStats.KeyStats::getMissRate).reversed()));
+        stats.setTopMissKeys(keyStats.size() > topCount ? new ArrayList<>(keyStats.subList(0, topCount)) : keyStats);
+    }
+
+    /**
+     * 按分桶估算分位数，返回所在桶的上界，落在最后一个桶时返回-1
+     */
+    private long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < LOAD_BUCKETS_MILLIS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LOAD_BUCKETS_MILLIS[i];
+            }
+        }
+        return -1;
+    }
+
+    private KeyCounter counter(Object key) {
+        final String name = String.valueOf(key);
+        final KeyCounter counter = keys.get(name);
+        if (null != counter || keys.size() >= MAX_TRACKED_KEYS) {
+            return counter;
+        }
+        return keys.computeIfAbsent(name, k -> new KeyCounter());
+    }
+
+    private static class KeyCounter {
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+    }
+}
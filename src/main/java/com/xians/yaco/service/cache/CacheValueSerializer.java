@@ -0,0 +1,112 @@
+package com.xians.yaco.service.cache;
+
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <pre>
+ *     缓存值序列化
+ *     堆内以序列化后的字节保存、堆外只能保存字节，文章正文等较大的值压缩后保存
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class CacheValueSerializer implements Serializer<Serializable> {
+
+    /**
+     * 超过该大小才压缩
+     */
+    private static final int COMPRESS_THRESHOLD = 2048;
+
+    private static final byte PLAIN = 0;
+
+    private static final byte DEFLATED = 1;
+
+    private final ClassLoader classLoader;
+
+    /**
+     * Ehcache通过该构造方法创建
+     *
+     * @param classLoader classLoader
+     */
+    public CacheValueSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public ByteBuffer serialize(Serializable object) throws SerializerException {
+        try {
+            final ByteArrayOutputStream plain = new ByteArrayOutputStream(256);
+            plain.write(PLAIN);
+            try (ObjectOutputStream out = new ObjectOutputStream(plain)) {
+                out.writeObject(object);
+            }
+            if (plain.size() <= COMPRESS_THRESHOLD) {
+                return ByteBuffer.wrap(plain.toByteArray());
+            }
+            final ByteArrayOutputStream deflated = new ByteArrayOutputStream(plain.size() / 4);
+            deflated.write(DEFLATED);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(deflated)) {
+                out.write(plain.toByteArray(), 1, plain.size() - 1);
+            }
+            return ByteBuffer.wrap(deflated.toByteArray());
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    @Override
+    public Serializable read(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+        final ByteBuffer buffer = binary.duplicate();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        InputStream in = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+        if (bytes[0] == DEFLATED) {
+            in = new InflaterInputStream(in);
+        }
+        try (ObjectInputStream objectIn = new ClassLoaderObjectInputStream(in, classLoader)) {
+            return (Serializable) objectIn.readObject();
+        } catch (IOException e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Serializable object, ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+        return object.equals(read(binary));
+    }
+
+    /**
+     * 按应用的类加载器解析类，devtools重启后仍能读出缓存值
+     */
+    private static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+        private final ClassLoader classLoader;
+
+        ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.xians.yaco.service.cache;
+
+import com.xians.yaco.model.domain.Post;
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * <pre>
+ *     缓存值预处理
+ *     缓存保存的是序列化后的副本，读出后不再关联Session，
+ *     文章服务返回前已批量加载标签和分类，这里只在事务内加载遗漏的，避免渲染时抛出LazyInitializationException
+ * </pre>
+ *
+ * @author : XIANS
+ */
+final class CacheValues {
+
+    private CacheValues() {
+    }
+
+    static void initialize(Object value) {
+        if (value instanceof Optional) {
+            initialize(((Optional<?>) value).orElse(null));
+        } else if (value instanceof Iterable) {
+            for (Object element : (Iterable<?>) value) {
+                initialize(element);
+            }
+        } else if (value instanceof Post) {
+            initializeCollection(((Post) value).getTags());
+            initializeCollection(((Post) value).getCategories());
+        }
+    }
+
+    private static void initializeCollection(Collection<?> collection) {
+        if (null == collection || Hibernate.isInitialized(collection)) {
+            return;
+        }
+        try {
+            Hibernate.initialize(collection);
+        } catch (HibernateException e) {
+            //Session已关闭，保持未加载
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.xians.yaco.service.cache;
+
+import cn.hutool.core.util.StrUtil;
+import com.xians.yaco.event.CommentChangedEvent;
+import com.xians.yaco.event.PostChangedEvent;
+import com.xians.yaco.model.domain.Comment;
+import com.xians.yaco.model.dto.CommentPage;
+import com.xians.yaco.model.dto.CommentThread;
+import com.xians.yaco.model.enums.BlogPropertiesEnum;
+import com.xians.yaco.model.enums.CommentStatusEnum;
+import com.xians.yaco.model.enums.TrueFalseEnum;
+import com.xians.yaco.repository.CommentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
+
+/**
+ * <pre>
+ *     文章评论分页
+ *     按(评论时间, 评论编号)倒序的游标查询一页顶级评论，再按所属顶级评论一次查询出它们的全部回复，
+ *     查询量只与每页条数有关，与文章的评论总数无关；按页码访问时退回到偏移量查询。
+ *     访问最多的第一页按文章缓存，评论变更时只查询变更的评论和计数，增量修改缓存的第一页，
+ *     第一页上的顶级评论被移除时才失效；文章变更时失效。第一页在锁外查询，
+ *     查询期间文章发生过变更时不放入缓存，避免失效之后又放入旧的一页。
+ *     评论变更时同时在数据库中重新统计文章的已发布评论数，列表中只显示数量时不需要查询评论
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class CommentThreadCache {
+
+    /**
+     * 最多缓存的第一页数
+     */
+    private static final int MAX_PAGES = 2000;
+
+    private static final List<Integer> PUBLISHED = Collections.singletonList(CommentStatusEnum.PUBLISHED.getCode());
+
+    private static final List<Integer> NOT_RECYCLED = Arrays.asList(CommentStatusEnum.PUBLISHED.getCode(), CommentStatusEnum.CHECKING.getCode());
+
+    private static final String BACKFILL_SQL = "UPDATE halo_comment SET comment_root = ? WHERE comment_id = ?";
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String COUNT_SQL = "UPDATE halo_post SET comment_count ="
+            + " (SELECT COUNT(*) FROM halo_comment WHERE post_id = ? AND comment_status = " + CommentStatusEnum.PUBLISHED.getCode() + ")"
+            + " WHERE post_id = ?";
+
+    private static final String BACKFILL_COUNT_SQL = "UPDATE halo_post p SET comment_count ="
+            + " (SELECT COUNT(*) FROM halo_comment c WHERE c.post_id = p.post_id AND c.comment_status = " + CommentStatusEnum.PUBLISHED.getCode() + ")"
+            + " WHERE p.comment_count IS NULL";
+
+    private final CommentRepository commentRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Key, CommentPage> firstPages = new ConcurrentHashMap<>();
+
+    /**
+     * 文章 -> 失效次数，查询第一页前后不一致说明期间有失效
+     */
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * 全部失效的次数
+     */
+    private final AtomicLong allGeneration = new AtomicLong();
+
+    public CommentThreadCache(CommentRepository commentRepository, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.commentRepository = commentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 获取前台显示的一页评论
+     *
+     * @param postId postId
+     * @param page   页码，有游标时忽略
+     * @param cursor 上一页的nextCursor
+     * @param size   每页顶级评论数
+     * @return CommentPage
+     */
+    @NonNull
+    public CommentPage page(@NonNull Long postId, int page, @Nullable String cursor, int size) {
+        final boolean needCheck = needCheck();
+        final List<Integer> statuses = needCheck ? PUBLISHED : NOT_RECYCLED;
+        final Object[] after = decodeCursor(cursor);
+        if (null != after) {
+            final long newer = commentRepository.countRootsAfter(postId, statuses, (Date) after[0], (Long) after[1]);
+            final List<Object[]> roots = commentRepository.findRootRowsBefore(postId, statuses, (Date) after[0], (Long) after[1], PageRequest.of(0, size));
+            return load(postId, statuses, roots, (int) (newer / size) + 1, size, newer);
+        }
+        if (page <= 1) {
+            final Key key = new Key(postId, needCheck, size);
+            final CommentPage cached = firstPages.get(key);
+            if (null != cached) {
+                return cached;
+            }
+            final long generation = generation(postId);
+            final CommentPage first = load(postId, statuses, commentRepository.findRootRows(postId, statuses, PageRequest.of(0, size)), 1, size, 0);
+            //失效先推进计数再删除，放入后计数变化说明删除可能没有看到这一页，再删除一次
+            firstPages.compute(key, (k, existing) -> generation == generation(postId) ? first : existing);
+            if (generation != generation(postId)) {
+                firstPages.remove(key, first);
+            }
+            trim();
+            return first;
+        }
+        final List<Object[]> roots = commentRepository.findRootRows(postId, statuses, PageRequest.of(page - 1, size));
+        return load(postId, statuses, roots, page, size, (long) (page - 1) * size);
+    }
+
+    /**
+     * 新评论所属的顶级评论
+     *
+     * @param commentParent 上级评论
+     * @return 顶级评论为0
+     */
+    @NonNull
+    public Long rootOf(@Nullable Long commentParent) {
+        if (null == commentParent || commentParent <= 0) {
+            return 0L;
+        }
+        final List<Long> roots = commentRepository.findCommentRootByCommentId(commentParent);
+        final Long parentRoot = roots.isEmpty() ? null : roots.get(0);
+        return null == parentRoot || parentRoot == 0 ? commentParent : parentRoot;
+    }
+
+    /**
+     * 为没有所属顶级评论的旧评论补全，启动时调用
+     */
+    public void backfillRoots() {
+        final Integer missing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM halo_comment WHERE comment_root IS NULL", Integer.class);
+        if (null == missing || missing == 0) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final Map<Long, Long> parents = new HashMap<>();
+        final List<Long> targets = new ArrayList<>(missing);
+        jdbcTemplate.query("SELECT comment_id, comment_parent, comment_root FROM halo_comment", rs -> {
+            final long commentId = rs.getLong("comment_id");
+            parents.put(commentId, rs.getLong("comment_parent"));
+            rs.getLong("comment_root");
+            if (rs.wasNull()) {
+                targets.add(commentId);
+            }
+        });
+        final List<long[]> roots = new ArrayList<>(targets.size());
+        for (Long commentId : targets) {
+            roots.add(new long[]{commentId, root(commentId, parents)});
+        }
+        transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(BACKFILL_SQL, roots, BATCH_SIZE, (ps, root) -> {
+            ps.setLong(1, root[1]);
+            ps.setLong(2, root[0]);
+        }));
+        log.info("Comment roots filled for {} comments in {} ms", roots.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 统计新增评论数字段之前的文章的评论数，启动时调用
+     */
+    public void backfillCounts() {
+        final int updated = jdbcTemplate.update(BACKFILL_COUNT_SQL);
+        if (updated > 0) {
+            log.info("Comment counts filled for {} posts", updated);
+        }
+    }
+
+    @EventListener
+    public void onCommentChanged(CommentChangedEvent event) {
+        if (null == event.getPostId()) {
+            evict(null);
+            return;
+        }
+        jdbcTemplate.update(COUNT_SQL, event.getPostId(), event.getPostId());
+        if (null == event.getCommentId()) {
+            evict(event.getPostId());
+            return;
+        }
+        patch(event.getPostId(), event.getCommentId());
+    }
+
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        evict(event.getPostId());
+    }
+
+    private void evict(Long postId) {
+        if (null == postId) {
+            allGeneration.incrementAndGet();
+            firstPages.clear();
+            return;
+        }
+        generations.merge(postId, 1L, Long::sum);
+        firstPages.keySet().removeIf(key -> key.postId.equals(postId));
+    }
+
+    /**
+     * 增量修改文章已缓存的第一页，同一时间只修改一篇，保证计数按变更顺序写入
+     */
+    private synchronized void patch(Long postId, Long commentId) {
+        //正在查询的第一页可能不包含这次变更，不能再放入缓存
+        generations.merge(postId, 1L, Long::sum);
+        final List<Key> keys = new ArrayList<>();
+        for (Key key : firstPages.keySet()) {
+            if (key.postId.equals(postId)) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        final List<Object[]> rows = commentRepository.findThreadRowsByCommentId(commentId);
+        final Comment comment = rows.isEmpty() ? null : toComment(rows.get(0));
+        final Long rootId = null == comment ? null : rootOf(comment.getCommentParent());
+        for (Key key : keys) {
+            final CommentPage cached = firstPages.get(key);
+            if (null == cached) {
+                continue;
+            }
+            final CommentPage patched = patch(cached, key, commentId, comment, rootId);
+            if (null == patched) {
+                firstPages.remove(key, cached);
+            } else {
+                firstPages.replace(key, cached, patched);
+            }
+        }
+    }
+
+    /**
+     * 修改一页评论
+     *
+     * @param comment 变更后的评论，已删除时为null
+     * @param rootId  变更后的评论所属的顶级评论，顶级评论为0
+     * @return 无法增量修改时为null
+     */
+    private CommentPage patch(CommentPage page, Key key, Long commentId, Comment comment, Long rootId) {
+        final List<Integer> statuses = key.needCheck ? PUBLISHED : NOT_RECYCLED;
+        final boolean visible = null != comment && statuses.contains(comment.getCommentStatus());
+        final boolean onPage = page.getThread().contains(commentId);
+        final boolean isRoot = null == comment ? isRoot(page, commentId) : rootId == 0;
+        CommentThread thread = page.getThread();
+        if (isRoot) {
+            if (onPage && !visible) {
+                //需要下一页的第一条顶级评论补位
+                return null;
+            }
+            if (onPage) {
+                thread = thread.with(Collections.singletonList(comment));
+            } else if (visible) {
+                final Comment oldest = oldestRoot(thread);
+                if (thread.getComments().size() < key.size || null == oldest || newer(comment, oldest)) {
+                    final List<Comment> added = new ArrayList<>();
+                    added.add(comment);
+                    for (Object[] row : commentRepository.findDescendantRows(Collections.singletonList(commentId), statuses)) {
+                        added.add(toComment(row));
+                    }
+                    thread = thread.with(added);
+                    if (thread.getComments().size() > key.size) {
+                        thread = thread.without(oldestRoot(thread).getCommentId());
+                    }
+                }
+            }
+        } else if (visible && thread.contains(rootId)) {
+            thread = thread.with(Collections.singletonList(comment));
+        } else if (!visible && onPage) {
+            thread = thread.without(commentId);
+        }
+        final long totalCount = commentRepository.countRoots(key.postId, statuses);
+        final long commentCount = commentRepository.countByPostId(key.postId, statuses);
+        final Comment last = oldestRoot(thread);
+        final String nextCursor = null != last && thread.getComments().size() < totalCount ? cursor(last.getCommentDate(), last.getCommentId()) : null;
+        return new CommentPage(thread.getSize() == 0 ? CommentThread.EMPTY : thread, 1, key.size, (int) totalCount, (int) commentCount, nextCursor);
+    }
+
+    private static boolean isRoot(CommentPage page, Long commentId) {
+        for (Comment root : page.getThread().getComments()) {
+            if (root.getCommentId().equals(commentId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按(评论时间, 评论编号)最旧的顶级评论，即翻页游标指向的评论
+     */
+    private static Comment oldestRoot(CommentThread thread) {
+        Comment oldest = null;
+        for (Comment root : thread.getComments()) {
+            if (null == oldest || newer(oldest, root)) {
+                oldest = root;
+            }
+        }
+        return oldest;
+    }
+
+    private static boolean newer(Comment comment, Comment other) {
+        final int compared = comment.getCommentDate().compareTo(other.getCommentDate());
+        return compared > 0 || compared == 0 && comment.getCommentId() > other.getCommentId();
+    }
+
+    private long generation(Long postId) {
+        return allGeneration.get() + generations.getOrDefault(postId, 0L);
+    }
+
+    private void trim() {
+        if (firstPages.size() <= MAX_PAGES) {
+            return;
+        }
+        final Iterator<Key> keys = firstPages.keySet().iterator();
+        while (firstPages.size() > MAX_PAGES && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * 查询顶级评论的回复和计数，组装成一页
+     *
+     * @param offset 当前页之前的顶级评论数
+     */
+    private CommentPage load(Long postId, List<Integer> statuses, List<Object[]> rootRows, int page, int size, long offset) {
+        final List<Comment> comments = new ArrayList<>();
+        final List<Long> rootIds = new ArrayList<>(rootRows.size());
+        for (Object[] row : rootRows) {
+            final Comment root = toComment(row);
+            comments.add(root);
+            rootIds.add(root.getCommentId());
+        }
+        if (!rootIds.isEmpty()) {
+            for (Object[] row : commentRepository.findDescendantRows(rootIds, statuses)) {
+                comments.add(toComment(row));
+            }
+        }
+        final long totalCount = commentRepository.countRoots(postId, statuses);
+        final long commentCount = commentRepository.countByPostId(postId, statuses);
+        String nextCursor = null;
+        if (!rootRows.isEmpty() && offset + rootRows.size() < totalCount) {
+            final Object[] last = rootRows.get(rootRows.size() - 1);
+            nextCursor = cursor((Date) last[4], (Long) last[0]);
+        }
+        final CommentThread thread = comments.isEmpty() ? CommentThread.EMPTY : CommentThread.of(comments);
+        return new CommentPage(thread, page, size, (int) totalCount, (int) commentCount, nextCursor);
+    }
+
+    /**
+     * 游标为"评论时间毫秒数-评论编号"
+     */
+    private static String cursor(Date commentDate, Long commentId) {
+        return commentDate.getTime() + "-" + commentId;
+    }
+
+    /**
+     * 解析游标
+     *
+     * @return {Date, Long}，游标无效时为null
+     */
+    private static Object[] decodeCursor(String cursor) {
+        if (StrUtil.isBlank(cursor)) {
+            return null;
+        }
+        final int separator = cursor.indexOf('-');
+        try {
+            return new Object[]{new Date(Long.parseLong(cursor.substring(0, separator))), Long.parseLong(cursor.substring(separator + 1))};
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long root(Long commentId, Map<Long, Long> parents) {
+        Long current = commentId;
+        //上级链条有环或断开时归到最后找到的评论
+        for (int depth = 0; depth < parents.size(); depth++) {
+            final Long parent = parents.get(current);
+            if (null == parent || parent == 0 || !parents.containsKey(parent)) {
+                return current.equals(commentId) ? 0L : current;
+            }
+            current = parent;
+        }
+        return current;
+    }
+
+    /**
+     * 新评论需要审核时前台只显示已发布的评论，否则显示不在回收站的评论
+     */
+    private static boolean needCheck() {
+        final String needCheck = OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NEED_CHECK.getProp());
+        return null == needCheck || StrUtil.equals(needCheck, TrueFalseEnum.TRUE.getDesc());
+    }
+
+    private static Comment toComment(Object[] row) {
+        final Comment comment = new Comment();
+        comment.setCommentId((Long) row[0]);
+        comment.setCommentAuthor((String) row[1]);
+        comment.setCommentAuthorUrl((String) row[2]);
+        comment.setCommentAuthorAvatarMd5((String) row[3]);
+        comment.setCommentDate((Date) row[4]);
+        comment.setCommentContent((String) row[5]);
+        comment.setCommentAgent((String) row[6]);
+        comment.setCommentParent((Long) row[7]);
+        comment.setCommentStatus((Integer) row[8]);
+        comment.setIsAdmin((Integer) row[9]);
+        return comment;
+    }
+
+    private static final class Key {
+
+        private final Long postId;
+
+        private final boolean needCheck;
+
+        private final int size;
+
+        Key(Long postId, boolean needCheck, int size) {
+            this.postId = postId;
+            this.needCheck = needCheck;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return needCheck == key.needCheck && size == key.size && postId.equals(key.postId);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * postId.hashCode() + (needCheck ? 1 : 0)) * 31 + size;
+        }
+    }
+}
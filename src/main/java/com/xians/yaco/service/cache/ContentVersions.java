@@ -0,0 +1,153 @@
+package com.xians.yaco.service.cache;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     内容版本时钟
+ *     全局时钟以秒为单位严格递增，每次内容变更取一个新值，记到变更的文章、标签、分类、列表上；
+ *     页面的版本是它所依赖内容的最大版本，用于生成ETag和Last-Modified；
+ *     文章页同时记录文章编号，返回304时也计入阅读数。
+ *     时钟从启动时间开始，重启后之前发出的ETag全部失效
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class ContentVersions {
+
+    /**
+     * 设置、主题、菜单、友情链接等全站共用的内容
+     */
+    public static final String SITE = "site";
+
+    /**
+     * 任意一篇文章，文章本身或其评论变更时推进
+     */
+    public static final String ANY_POST = "post:*";
+
+    private static final String POST_PREFIX = "post:";
+
+    /**
+     * 最多记录依赖的页面数
+     */
+    private static final int MAX_PAGES = 10000;
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+
+    /**
+     * 启动时的版本，未变更过的内容取该值
+     */
+    private final long base = clock.get();
+
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 页面 -> 渲染时记录的依赖
+     */
+    private final Map<String, Page> pages = Collections.synchronizedMap(new LinkedHashMap<String, Page>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Page> eldest) {
+            return size() > MAX_PAGES;
+        }
+    });
+
+    /**
+     * 内容变更，依赖的命名与页面缓存相同
+     *
+     * @param resources 变更的内容
+     */
+    public void touch(@NonNull String... resources) {
+        final long version = next();
+        for (String resource : resources) {
+            versions.merge(resource, version, Math::max);
+            if (resource.startsWith(POST_PREFIX)) {
+                versions.merge(ANY_POST, version, Math::max);
+            }
+        }
+    }
+
+    /**
+     * 全站内容变更
+     */
+    public void touchAll() {
+        touch(SITE);
+    }
+
+    /**
+     * 依赖的最大版本，总是包含全站内容
+     *
+     * @param resources 依赖
+     * @return 版本，即最后修改时间的秒数
+     */
+    public long version(@NonNull Collection<String> resources) {
+        long version = versions.getOrDefault(SITE, base);
+        for (String resource : resources) {
+            version = Math.max(version, versions.getOrDefault(resource, base));
+        }
+        return version;
+    }
+
+    /**
+     * 记录页面渲染时的依赖
+     *
+     * @param page       page
+     * @param resources  依赖
+     * @param viewPostId 文章页计入阅读数的文章，其他页面为null
+     */
+    public void record(@NonNull String page, @NonNull Set<String> resources, @Nullable Long viewPostId) {
+        pages.put(page, new Page(resources, viewPostId));
+    }
+
+    /**
+     * 页面上次渲染时的依赖
+     *
+     * @param page page
+     * @return 未渲染过时为null
+     */
+    @Nullable
+    public Set<String> dependencies(@NonNull String page) {
+        final Page recorded = pages.get(page);
+        return null == recorded ? null : recorded.resources;
+    }
+
+    /**
+     * 页面上次渲染时计入阅读数的文章
+     *
+     * @param page page
+     * @return 未渲染过或不是文章页时为null
+     */
+    @Nullable
+    public Long viewPostId(@NonNull String page) {
+        final Page recorded = pages.get(page);
+        return null == recorded ? null : recorded.viewPostId;
+    }
+
+    private long next() {
+        final long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        return clock.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+
+    private static final class Page {
+
+        private final Set<String> resources;
+
+        private final Long viewPostId;
+
+        private Page(Set<String> resources, Long viewPostId) {
+            this.resources = resources;
+            this.viewPostId = viewPostId;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.xians.yaco.service.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * <pre>
+ *     记录依赖的缓存
+ *     包装实际的缓存，写入时记录每个键依赖的文章、标签、分类，按依赖失效；
+ *     实际的缓存因容量淘汰或过期删除键时，同样删除该键的依赖记录；
+ *     同时统计命中、未命中、写入、失效次数和加载耗时
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class DependencyTrackingCache implements Cache {
+
+    private final Cache delegate;
+
+    /**
+     * 键 -> 依赖
+     */
+    private final Map<Object, Set<String>> dependencies = new HashMap<>();
+
+    /**
+     * 依赖 -> 键
+     */
+    private final Map<String, Set<Object>> dependents = new HashMap<>();
+
+    private final CacheMetrics metrics = new CacheMetrics();
+
+    public DependencyTrackingCache(@NonNull Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(@NonNull Object key) {
+        return record(key, delegate.get(key));
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+        final ValueWrapper wrapper = record(key, delegate.get(key));
+        return null == wrapper ? null : delegate.get(key, type);
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        final boolean[] loaded = {false};
+        //加载可能在后台刷新线程中执行，依赖在加载方法内记录
+        final T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            final long start = System.nanoTime();
+            final T loadedValue = valueLoader.call();
+            metrics.recordLoad(System.nanoTime() - start);
+            metrics.recordPut();
+            track(key, loadedValue);
+            return loadedValue;
+        });
+        if (loaded[0]) {
+            metrics.recordMiss(key);
+        } else {
+            metrics.recordHit(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        delegate.put(key, value);
+        metrics.recordPut();
+        track(key, value);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+        final ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (null == existing) {
+            metrics.recordPut();
+            track(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        delegate.evict(key);
+        metrics.recordInvalidations(1);
+        untrack(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        synchronized (this) {
+            metrics.recordInvalidations(dependencies.size());
+            dependencies.clear();
+            dependents.clear();
+        }
+    }
+
+    /**
+     * 失效依赖于任一指定依赖的键
+     *
+     * @param changed 发生变更的依赖
+     * @return 失效的键数
+     */
+    public int evictDependents(@NonNull Collection<String> changed) {
+        final Set<Object> keys = new HashSet<>();
+        synchronized (this) {
+            for (String dependency : changed) {
+                final Set<Object> dependentKeys = dependents.get(dependency);
+                if (null != dependentKeys) {
+                    keys.addAll(dependentKeys);
+                }
+            }
+        }
+        for (Object key : keys) {
+            evict(key);
+        }
+        return keys.size();
+    }
+
+    /**
+     * 实际的缓存淘汰或过期删除了该键
+     *
+     * @param key     key
+     * @param present 键是否仍在实际的缓存中，在锁内判断，随后重新写入的键保留依赖
+     */
+    public synchronized void removed(@NonNull Object key, @NonNull Predicate<Object> present) {
+        if (!present.test(key)) {
+            untrackInternal(key);
+        }
+    }
+
+    @NonNull
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    private ValueWrapper record(Object key, ValueWrapper wrapper) {
+        if (null == wrapper) {
+            metrics.recordMiss(key);
+        } else {
+            metrics.recordHit(key);
+        }
+        return wrapper;
+    }
+
+    private void track(Object key, Object value) {
+        final Set<String> keyDependencies = CacheDependencies.of(value);
+        synchronized (this) {
+            untrackInternal(key);
+            if (keyDependencies.isEmpty()) {
+                return;
+            }
+            dependencies.put(key, keyDependencies);
+            for (String dependency : keyDependencies) {
+                dependents.computeIfAbsent(dependency, k -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    private synchronized void untrack(Object key) {
+        untrackInternal(key);
+    }
+
+    private void untrackInternal(Object key) {
+        final Set<String> keyDependencies = dependencies.remove(key);
+        if (null == keyDependencies) {
+            return;
+        }
+        for (String dependency : keyDependencies) {
+            final Set<Object> keys = dependents.get(dependency);
+            if (null != keys) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    dependents.remove(dependency);
+                }
+            }
+        }
+    }
+}
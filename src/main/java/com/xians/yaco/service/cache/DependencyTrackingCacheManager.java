@@ -0,0 +1,80 @@
+package com.xians.yaco.service.cache;
+
+import org.ehcache.event.EventFiring;
+import org.ehcache.event.EventOrdering;
+import org.ehcache.event.EventType;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <pre>
+ *     为实际的CacheManager中的每个缓存包装依赖记录，
+ *     Ehcache的淘汰、过期事件同步删除依赖记录，记录的键数不超过缓存容量
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class DependencyTrackingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final ConcurrentMap<String, DependencyTrackingCache> caches = new ConcurrentHashMap<>();
+
+    public DependencyTrackingCacheManager(@NonNull CacheManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @Nullable
+    public DependencyTrackingCache getCache(@NonNull String name) {
+        final DependencyTrackingCache cache = caches.get(name);
+        if (null != cache) {
+            return cache;
+        }
+        final Cache target = delegate.getCache(name);
+        if (null == target) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> {
+            final DependencyTrackingCache tracking = new DependencyTrackingCache(target);
+            if (target.getNativeCache() instanceof org.ehcache.Cache) {
+                @SuppressWarnings("unchecked") final org.ehcache.Cache<Object, Object> nativeCache = (org.ehcache.Cache<Object, Object>) target.getNativeCache();
+                nativeCache.getRuntimeConfiguration().registerCacheEventListener(event -> tracking.removed(event.getKey(), nativeCache::containsKey),
+                        EventOrdering.UNORDERED, EventFiring.ASYNCHRONOUS, EnumSet.of(EventType.EVICTED, EventType.EXPIRED));
+            }
+            return tracking;
+        });
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 所有已创建的缓存
+     *
+     * @return List
+     */
+    @NonNull
+    public List<DependencyTrackingCache> getCaches() {
+        final List<DependencyTrackingCache> result = new ArrayList<>();
+        for (String name : getCacheNames()) {
+            final DependencyTrackingCache cache = getCache(name);
+            if (null != cache) {
+                result.add(cache);
+            }
+        }
+        return result;
+    }
+}
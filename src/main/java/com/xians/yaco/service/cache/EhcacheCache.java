@@ -0,0 +1,195 @@
+package com.xians.yaco.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     Ehcache 3缓存的Spring Cache适配
+ *     键和值都必须可序列化；
+ *     同一个键同时只有一个线程加载，其它线程等待加载结果；
+ *     条目过了刷新时间后仍然返回旧值，由后台线程重新加载
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+public class EhcacheCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final org.ehcache.Cache<Serializable, Serializable> cache;
+
+    private final long refreshAfterMillis;
+
+    private final Executor refreshExecutor;
+
+    /**
+     * 正在加载的键
+     */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 每次失效加一，失效前开始的加载结果不再写入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public EhcacheCache(@NonNull String name,
+                        @NonNull org.ehcache.Cache<Serializable, Serializable> cache,
+                        @NonNull Duration refreshAfter,
+                        @NonNull Executor refreshExecutor) {
+        super(true);
+        this.name = name;
+        this.cache = cache;
+        this.refreshAfterMillis = refreshAfter.toMillis();
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public org.ehcache.Cache<Serializable, Serializable> getNativeCache() {
+        return cache;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(@NonNull Object key) {
+        final CacheEntry entry = (CacheEntry) cache.get((Serializable) key);
+        return null == entry ? null : entry.getValue();
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        final CacheEntry entry = (CacheEntry) cache.get((Serializable) key);
+        if (null != entry) {
+            if (entry.isStale(System.currentTimeMillis())) {
+                refresh(key, valueLoader);
+            }
+            return (T) fromStoreValue(entry.getValue());
+        }
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (null != existing) {
+            return (T) await(key, valueLoader, existing);
+        }
+        try {
+            final T value = load(key, valueLoader);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        CacheValues.initialize(value);
+        cache.put((Serializable) key, toEntry(value));
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+        CacheValues.initialize(value);
+        final CacheEntry existing = (CacheEntry) cache.putIfAbsent((Serializable) key, toEntry(value));
+        return null == existing ? null : toValueWrapper(existing.getValue());
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        generation.incrementAndGet();
+        loading.remove(key);
+        cache.remove((Serializable) key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        loading.clear();
+        cache.clear();
+    }
+
+    /**
+     * 调用加载方法并写入缓存，加载期间发生过失效则只返回不写入
+     */
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        final long startGeneration = generation.get();
+        final T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (generation.get() == startGeneration) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 等待其它线程的加载结果，优先从缓存读出副本，避免多个线程共享同一个实体
+     */
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> future) {
+        final Object value;
+        try {
+            value = future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+        final Object cached = lookup(key);
+        return null == cached ? value : fromStoreValue(cached);
+    }
+
+    /**
+     * 后台刷新，同一个键只提交一次
+     */
+    private void refresh(Object key, Callable<?> valueLoader) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        if (null != loading.putIfAbsent(key, future)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    future.complete(load(key, valueLoader));
+                } catch (RuntimeException | Error e) {
+                    log.warn("Refresh of cache {} key {} failed: {}", name, key, e.getMessage());
+                    future.completeExceptionally(e);
+                } finally {
+                    loading.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //刷新线程繁忙，下次访问再刷新
+            loading.remove(key, future);
+        }
+    }
+
+    private CacheEntry toEntry(Object value) {
+        return new CacheEntry(toStoreValue(value), System.currentTimeMillis() + refreshAfterMillis);
+    }
+}
@@ -0,0 +1,71 @@
+package com.xians.yaco.service.cache;
+
+import org.ehcache.config.CacheConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * <pre>
+ *     Ehcache 3的Spring CacheManager适配
+ *     未预先配置的缓存按默认配置创建
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class EhcacheCacheManager implements CacheManager {
+
+    private final org.ehcache.CacheManager cacheManager;
+
+    private final CacheConfiguration<Serializable, Serializable> defaultConfiguration;
+
+    /**
+     * 各缓存条目的刷新时间，未配置的缓存使用defaultRefreshAfter
+     */
+    private final Map<String, Duration> refreshAfter;
+
+    private final Duration defaultRefreshAfter;
+
+    private final Executor refreshExecutor;
+
+    private final ConcurrentMap<String, EhcacheCache> caches = new ConcurrentHashMap<>();
+
+    public EhcacheCacheManager(@NonNull org.ehcache.CacheManager cacheManager,
+                               @NonNull CacheConfiguration<Serializable, Serializable> defaultConfiguration,
+                               @NonNull Map<String, Duration> refreshAfter,
+                               @NonNull Duration defaultRefreshAfter,
+                               @NonNull Executor refreshExecutor) {
+        this.cacheManager = cacheManager;
+        this.defaultConfiguration = defaultConfiguration;
+        this.refreshAfter = refreshAfter;
+        this.defaultRefreshAfter = defaultRefreshAfter;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    @Nullable
+    public EhcacheCache getCache(@NonNull String name) {
+        return caches.computeIfAbsent(name, key -> {
+            org.ehcache.Cache<Serializable, Serializable> cache = cacheManager.getCache(key, Serializable.class, Serializable.class);
+            if (null == cache) {
+                cache = cacheManager.createCache(key, defaultConfiguration);
+            }
+            return new EhcacheCache(key, cache, refreshAfter.getOrDefault(key, defaultRefreshAfter), refreshExecutor);
+        });
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return new ArrayList<>(cacheManager.getRuntimeConfiguration().getCacheConfigurations().keySet());
+    }
+}
@@ -0,0 +1,241 @@
+package com.xians.yaco.service.cache;
+
+import cn.hutool.core.util.StrUtil;
+import com.xians.yaco.event.PostChangedEvent;
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.enums.BlogPropertiesEnum;
+import com.xians.yaco.model.enums.PostStatusEnum;
+import com.xians.yaco.model.enums.PostTypeEnum;
+import com.xians.yaco.service.PostService;
+import freemarker.template.Template;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
+
+/**
+ * <pre>
+ *     RSS、Atom订阅缓存
+ *     订阅只在内容变更后重新生成，同时保存未压缩和gzip压缩的字节，请求时按Accept-Encoding直接输出；
+ *     文章变更后在后台线程中重新生成，请求时发现内容版本比订阅新也会触发，生成完成前继续返回旧的订阅
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class FeedCache {
+
+    /**
+     * 订阅依赖的内容：全站设置、文章列表以及任意文章（评论数）
+     */
+    private static final Collection<String> DEPENDENCIES = Arrays.asList(PageCache.LIST_TAG, ContentVersions.ANY_POST);
+
+    private static final int DEFAULT_POSTS = 20;
+
+    private final PostService postService;
+
+    private final freemarker.template.Configuration configuration;
+
+    private final ContentVersions contentVersions;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "feed-render");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 已提交、尚未开始的重新生成，多次变更只生成一次
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    private volatile Map<Format, Feed> feeds = new EnumMap<>(Format.class);
+
+    public FeedCache(PostService postService,
+                     freemarker.template.Configuration configuration,
+                     ContentVersions contentVersions,
+                     PlatformTransactionManager transactionManager) {
+        this.postService = postService;
+        this.configuration = configuration;
+        this.contentVersions = contentVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 获取订阅，第一次请求时在当前线程生成
+     *
+     * @param format format
+     * @return Feed
+     * @throws IOException 生成失败
+     */
+    @NonNull
+    public Feed get(@NonNull Format format) throws IOException {
+        Feed feed = feeds.get(format);
+        if (null == feed) {
+            synchronized (this) {
+                feed = feeds.get(format);
+                if (null == feed) {
+                    render();
+                    feed = feeds.get(format);
+                }
+            }
+        } else if (feed.version < contentVersions.version(DEPENDENCIES)) {
+            refresh();
+        }
+        return feed;
+    }
+
+    @EventListener
+    public void onPostChanged(PostChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * 在后台重新生成
+     */
+    public void refresh() {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            renderer.execute(() -> {
+                pending.set(false);
+                try {
+                    synchronized (this) {
+                        render();
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to render feeds: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderer.shutdownNow();
+    }
+
+    /**
+     * 生成所有格式的订阅，版本取生成前的内容版本，生成期间的变更会再次触发生成
+     */
+    private void render() throws IOException {
+        final long version = contentVersions.version(DEPENDENCIES);
+        final long start = System.currentTimeMillis();
+        final Map<Format, Feed> rendered = new EnumMap<>(Format.class);
+        try {
+            transactionTemplate.execute(status -> {
+                final Map<String, Object> model = new HashMap<>(2);
+                model.put("posts", listPosts());
+                for (Format format : Format.values()) {
+                    try {
+                        final Template template = configuration.getTemplate(format.template);
+                        final byte[] body = FreeMarkerTemplateUtils.processTemplateIntoString(template, model).getBytes(StandardCharsets.UTF_8);
+                        rendered.put(format, new Feed(body, gzip(body), version));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(format + ": " + e.getMessage(), e);
+                    }
+                }
+                return null;
+            });
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        feeds = rendered;
+        log.debug("Rendered feeds in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private List<Post> listPosts() {
+        String rssPosts = OPTIONS.get(BlogPropertiesEnum.RSS_POSTS.getProp());
+        int size = DEFAULT_POSTS;
+        if (StrUtil.isNotBlank(rssPosts)) {
+            size = Integer.parseInt(rssPosts);
+        }
+        final Sort sort = new Sort(Sort.Direction.DESC, "postDate");
+        //只读事务不会把替换后的内容写回数据库
+        return postService.findPostByStatus(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(), PageRequest.of(0, size, sort)).map(post -> {
+            if (StrUtil.isNotEmpty(post.getPostPassword())) {
+                post.setPostContent("该文章为加密文章");
+                post.setPostSummary("该文章为加密文章");
+            }
+            return post;
+        }).getContent();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    public enum Format {
+
+        RSS("common/web/rss.ftl"),
+
+        ATOM("common/web/atom.ftl");
+
+        private final String template;
+
+        Format(String template) {
+            this.template = template;
+        }
+    }
+
+    /**
+     * 生成好的订阅
+     */
+    @Getter
+    public static class Feed {
+
+        private final byte[] body;
+
+        private final byte[] gzipBody;
+
+        /**
+         * 生成时的内容版本，即最后修改时间的秒数
+         */
+        private final long version;
+
+        Feed(byte[] body, byte[] gzipBody, long version) {
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.version = version;
+        }
+
+        public String getETag() {
+            return "\"" + Long.toString(version, 36) + "\"";
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.xians.yaco.service.cache;
+
+import lombok.Getter;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     页面输出缓存
+ *     缓存匿名访客看到的完整页面(gzip压缩)，按主题和URL区分；
+ *     每个页面记录所依赖的文章、标签、分类，数据变更时只失效引用了它们的页面。
+ *     每个依赖记录最后失效时的序号，渲染期间所依赖的内容失效过的页面不写入缓存，其他页面不受影响。
+ *     超过字节上限时按最近访问时间淘汰；失效时同时推进内容版本，供条件请求使用
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class PageCache {
+
+    /**
+     * 文章列表类页面(首页、归档、分类、标签等)，文章发布、删除时失效
+     */
+    public static final String LIST_TAG = "list";
+
+    private static final long MAX_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * 淘汰到该大小为止，避免每次写入都重新排序
+     */
+    private static final long EVICT_TO_BYTES = MAX_BYTES / 8 * 7;
+
+    private static final long TTL_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * 每次失效自增
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 最后一次清空时的序号
+     */
+    private volatile long cleared;
+
+    /**
+     * 依赖 -> 最后失效时的序号
+     */
+    private final Map<String, Long> invalidated = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 依赖 -> 页面
+     */
+    private final Map<String, Map<String, Entry>> dependents = new ConcurrentHashMap<>();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final ContentVersions contentVersions;
+
+    public PageCache(ContentVersions contentVersions) {
+        this.contentVersions = contentVersions;
+    }
+
+    public static String postTag(@NonNull Long postId) {
+        return "post:" + postId;
+    }
+
+    public static String tagTag(@NonNull Long tagId) {
+        return "tag:" + tagId;
+    }
+
+    public static String categoryTag(@NonNull Long cateId) {
+        return "category:" + cateId;
+    }
+
+    /**
+     * 当前序号，开始渲染时取得，写入缓存时传回
+     *
+     * @return long
+     */
+    public long version() {
+        return sequence.get();
+    }
+
+    /**
+     * 读取页面，过期的页面视为不存在
+     *
+     * @param key key
+     * @return Entry
+     */
+    @Nullable
+    public Entry get(@NonNull String key) {
+        final Entry entry = entries.get(key);
+        if (null == entry) {
+            return null;
+        }
+        final long now = System.currentTimeMillis();
+        if (entry.expiresAt < now) {
+            removeInternal(key, entry);
+            return null;
+        }
+        entry.accessedAt = now;
+        return entry;
+    }
+
+    /**
+     * 写入页面
+     *
+     * @param key            key
+     * @param entry          entry
+     * @param renderVersion  开始渲染时的序号
+     */
+    public void put(@NonNull String key, @NonNull Entry entry, long renderVersion) {
+        if (entry.body.length > MAX_BYTES / 8 || stale(entry, renderVersion)) {
+            return;
+        }
+        for (String tag : entry.tags) {
+            dependents.compute(tag, (k, keys) -> {
+                final Map<String, Entry> linked = null == keys ? new ConcurrentHashMap<>() : keys;
+                linked.put(key, entry);
+                return linked;
+            });
+        }
+        final Entry previous = entries.put(key, entry);
+        bytes.addAndGet(entry.body.length);
+        if (null != previous) {
+            bytes.addAndGet(-previous.body.length);
+            unlink(key, previous);
+        }
+        //失效先推进序号再取出依赖的页面，写入后再检查一次，两者之一必然能发现对方
+        if (stale(entry, renderVersion)) {
+            removeInternal(key, entry);
+        }
+        if (bytes.get() > MAX_BYTES) {
+            evict();
+        }
+    }
+
+    /**
+     * 失效依赖于指定文章、标签、分类的页面
+     *
+     * @param tags 依赖
+     */
+    public void invalidate(@NonNull String... tags) {
+        final long version = sequence.incrementAndGet();
+        contentVersions.touch(tags);
+        for (String tag : tags) {
+            invalidated.merge(tag, version, Math::max);
+        }
+        for (String tag : tags) {
+            final Map<String, Entry> keys = dependents.remove(tag);
+            if (null != keys) {
+                keys.forEach(this::removeInternal);
+            }
+        }
+    }
+
+    /**
+     * 清空，设置、主题、菜单等全站共用的内容变更时调用
+     */
+    public void clear() {
+        cleared = sequence.incrementAndGet();
+        contentVersions.touchAll();
+        entries.forEach(this::removeInternal);
+    }
+
+    /**
+     * 渲染开始后所依赖的内容是否失效过
+     */
+    private boolean stale(Entry entry, long renderVersion) {
+        if (cleared > renderVersion) {
+            return true;
+        }
+        for (String tag : entry.tags) {
+            if (invalidated.getOrDefault(tag, 0L) > renderVersion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 只有淘汰时加锁，按最近访问时间从旧到新移除
+     */
+    private synchronized void evict() {
+        if (bytes.get() <= MAX_BYTES) {
+            return;
+        }
+        final List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().accessedAt));
+        for (Map.Entry<String, Entry> candidate : candidates) {
+            if (bytes.get() <= EVICT_TO_BYTES) {
+                return;
+            }
+            removeInternal(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    /**
+     * 只移除仍是该值的页面，并发写入的新页面不受影响
+     */
+    private void removeInternal(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            bytes.addAndGet(-entry.body.length);
+            unlink(key, entry);
+        }
+    }
+
+    private void unlink(String key, Entry entry) {
+        for (String tag : entry.tags) {
+            dependents.computeIfPresent(tag, (k, keys) -> {
+                keys.remove(key, entry);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * 缓存的页面
+     */
+    @Getter
+    public static class Entry {
+
+        /**
+         * gzip压缩后的页面
+         */
+        private final byte[] body;
+
+        private final String contentType;
+
+        /**
+         * 命中时需要计入阅读数的文章
+         */
+        private final Long viewPostId;
+
+        private final Set<String> tags;
+
+        private final long expiresAt;
+
+        /**
+         * 最近访问时间，淘汰时使用
+         */
+        private volatile long accessedAt;
+
+        public Entry(byte[] body, String contentType, Long viewPostId, Set<String> tags) {
+            this.body = body;
+            this.contentType = contentType;
+            this.viewPostId = viewPostId;
+            this.tags = tags;
+            this.expiresAt = System.currentTimeMillis() + TTL_MILLIS;
+            this.accessedAt = System.currentTimeMillis();
+        }
+    }
+}
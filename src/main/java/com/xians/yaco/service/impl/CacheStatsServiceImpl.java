@@ -0,0 +1,85 @@
+package com.xians.yaco.service.impl;
+
+import com.xians.yaco.model.dto.CacheStats;
+import com.xians.yaco.service.CacheStatsService;
+import com.xians.yaco.service.cache.DependencyTrackingCache;
+import com.xians.yaco.service.cache.DependencyTrackingCacheManager;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.core.statistics.TierStatistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <pre>
+ *     缓存统计业务逻辑实现类
+ *     命中、加载耗时、按键统计来自缓存包装层，条目数、占用字节数、淘汰和过期次数来自Ehcache
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Service
+public class CacheStatsServiceImpl implements CacheStatsService {
+
+    /**
+     * 每个缓存返回的未命中最多的键的个数
+     */
+    private static final int TOP_MISS_KEYS = 10;
+
+    /**
+     * 存储层由上到下的顺序
+     */
+    private static final List<String> TIER_ORDER = Arrays.asList("OnHeap", "OffHeap");
+
+    private final DependencyTrackingCacheManager cacheManager;
+
+    private final StatisticsService statisticsService;
+
+    public CacheStatsServiceImpl(DependencyTrackingCacheManager cacheManager, StatisticsService statisticsService) {
+        this.cacheManager = cacheManager;
+        this.statisticsService = statisticsService;
+    }
+
+    /**
+     * 所有缓存的统计
+     *
+     * @return List
+     */
+    @Override
+    public List<CacheStats> listCacheStats() {
+        final List<CacheStats> result = new ArrayList<>();
+        for (DependencyTrackingCache cache : cacheManager.getCaches()) {
+            final CacheStats stats = new CacheStats();
+            stats.setName(cache.getName());
+            cache.getMetrics().fill(stats, TOP_MISS_KEYS);
+            fillTiers(stats);
+            result.add(stats);
+        }
+        result.sort(Comparator.comparing(CacheStats::getName));
+        return result;
+    }
+
+    private void fillTiers(CacheStats stats) {
+        final CacheStatistics statistics;
+        try {
+            statistics = statisticsService.getCacheStatistics(stats.getName());
+        } catch (IllegalArgumentException e) {
+            stats.setTiers(new ArrayList<>());
+            return;
+        }
+        stats.setEvictions(statistics.getCacheEvictions());
+        stats.setExpirations(statistics.getCacheExpirations());
+        final List<CacheStats.TierStats> tiers = new ArrayList<>();
+        for (Map.Entry<String, TierStatistics> entry : statistics.getTierStatistics().entrySet()) {
+            final TierStatistics tier = entry.getValue();
+            tiers.add(new CacheStats.TierStats(entry.getKey(), tier.getMappings(), tier.getOccupiedByteSize(), tier.getAllocatedByteSize()));
+        }
+        tiers.sort(Comparator.comparingInt(tier -> TIER_ORDER.indexOf(tier.getTier())));
+        stats.setTiers(tiers);
+    }
+}
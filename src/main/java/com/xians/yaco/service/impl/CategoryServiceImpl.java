@@ -1,10 +1,11 @@
 package com.xians.yaco.service.impl;
 
+import com.xians.yaco.event.CategoryChangedEvent;
 import com.xians.yaco.model.domain.Category;
 import com.xians.yaco.repository.CategoryRepository;
 import com.xians.yaco.service.CategoryService;
 import com.xians.yaco.service.base.AbstractCrudService;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -21,13 +22,14 @@ import java.util.List;
 @Service
 public class CategoryServiceImpl extends AbstractCrudService<Category, Long> implements CategoryService {
 
-    private static final String POSTS_CACHE_NAME = "posts";
-
     private final CategoryRepository categoryRepository;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ApplicationEventPublisher eventPublisher) {
         super(categoryRepository);
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -37,9 +39,10 @@ public class CategoryServiceImpl extends AbstractCrudService<Category, Long> imp
      * @return Category
      */
     @Override
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Category create(Category category) {
-        return super.create(category);
+        final Category saved = super.create(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(this, saved.getCateId()));
+        return saved;
     }
 
     /**
@@ -49,9 +52,10 @@ public class CategoryServiceImpl extends AbstractCrudService<Category, Long> imp
      * @return Category
      */
     @Override
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Category removeById(Long cateId) {
-        return super.removeById(cateId);
+        final Category removed = super.removeById(cateId);
+        eventPublisher.publishEvent(new CategoryChangedEvent(this, cateId));
+        return removed;
     }
 
     /**
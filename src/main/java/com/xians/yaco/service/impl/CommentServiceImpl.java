@@ -1,15 +1,18 @@
 package com.xians.yaco.service.impl;
 
 
+import com.xians.yaco.event.CommentChangedEvent;
 import com.xians.yaco.model.domain.Comment;
 import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.CommentPage;
 import com.xians.yaco.repository.CommentRepository;
 
 import com.xians.yaco.service.CommentService;
 import com.xians.yaco.service.base.AbstractCrudService;
-import org.springframework.cache.annotation.CacheEvict;
+import com.xians.yaco.service.cache.CommentThreadCache;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -30,14 +33,18 @@ public class CommentServiceImpl extends AbstractCrudService<Comment, Long> imple
 
     private static final String COMMENTS_CACHE_NAME = "comments";
 
-    private static final String POSTS_CACHE_NAME = "posts";
-
     private final CommentRepository commentRepository;
 
-    public CommentServiceImpl(CommentRepository commentRepository) {
+    private final CommentThreadCache commentThreadCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CommentServiceImpl(CommentRepository commentRepository, CommentThreadCache commentThreadCache, ApplicationEventPublisher eventPublisher) {
         super(commentRepository);
 
         this.commentRepository = commentRepository;
+        this.commentThreadCache = commentThreadCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -46,9 +53,13 @@ public class CommentServiceImpl extends AbstractCrudService<Comment, Long> imple
      * @param comment comment
      */
     @Override
-    @CacheEvict(value = {COMMENTS_CACHE_NAME, POSTS_CACHE_NAME}, allEntries = true, beforeInvocation = true)
     public Comment create(Comment comment) {
-        return super.create(comment);
+        if (null == comment.getCommentRoot()) {
+            comment.setCommentRoot(commentThreadCache.rootOf(comment.getCommentParent()));
+        }
+        final Comment saved = super.create(comment);
+        publishCommentChanged(saved);
+        return saved;
     }
 
     /**
@@ -58,10 +69,10 @@ public class CommentServiceImpl extends AbstractCrudService<Comment, Long> imple
      * @return Optional
      */
     @Override
-    @CacheEvict(value = {COMMENTS_CACHE_NAME, POSTS_CACHE_NAME}, allEntries = true, beforeInvocation = true)
     public Optional<Comment> remove(Long commentId) {
         final Optional<Comment> comment = this.fetchById(commentId);
         commentRepository.delete(comment.orElse(null));
+        comment.ifPresent(this::publishCommentChanged);
         return comment;
     }
 
@@ -94,7 +105,7 @@ public class CommentServiceImpl extends AbstractCrudService<Comment, Long> imple
      * @return List<Comment></>
      */
     @Override
-    @Cacheable(value = COMMENTS_CACHE_NAME, key = "'comment'")
+    @Cacheable(value = COMMENTS_CACHE_NAME, key = "'comment'", sync = true)
     public List<Comment> listAll() {
         return commentRepository.findAll();
     }
@@ -107,11 +118,12 @@ public class CommentServiceImpl extends AbstractCrudService<Comment, Long> imple
      * @return Comment
      */
     @Override
-    @CacheEvict(value = COMMENTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Comment updateCommentStatus(Long commentId, Integer status) {
         final Optional<Comment> comment = fetchById(commentId);
         comment.get().setCommentStatus(status);
-        return commentRepository.save(comment.get());
+        final Comment saved = commentRepository.save(comment.get());
+        publishCommentChanged(saved);
+        return saved;
     }
 
     /**
@@ -169,9 +181,9 @@ public class CommentServiceImpl extends AbstractCrudService<Comment, Long> imple
      * @return List
      */
     @Override
-    @Cacheable(value = COMMENTS_CACHE_NAME, key = "'comments_latest'")
+    @Cacheable(value = COMMENTS_CACHE_NAME, key = "'comments_latest'", sync = true)
     public List<Comment> findCommentsLatest() {
-        return commentRepository.findTopFive();
+        return commentRepository.findTop5ByOrderByCommentDateDesc();
     }
 
     /**
@@ -195,4 +207,28 @@ public class CommentServiceImpl extends AbstractCrudService<Comment, Long> imple
     public List<Comment> getRecentComments(int limit) {
         return commentRepository.getCommentsByLimit(limit);
     }
+
+    /**
+     * 获取文章在前台显示的一页评论
+     *
+     * @param postId postId
+     * @param page   页码，有游标时忽略
+     * @param cursor 上一页的nextCursor
+     * @param size   每页顶级评论数
+     * @return CommentPage
+     */
+    @Override
+    public CommentPage findCommentPage(Long postId, int page, String cursor, int size) {
+        return commentThreadCache.page(postId, page, cursor, size);
+    }
+
+    /**
+     * 评论只影响评论列表和所属文章
+     *
+     * @param comment comment
+     */
+    private void publishCommentChanged(Comment comment) {
+        final Long postId = null == comment.getPost() ? null : comment.getPost().getPostId();
+        eventPublisher.publishEvent(new CommentChangedEvent(this, comment.getCommentId(), postId));
+    }
 }
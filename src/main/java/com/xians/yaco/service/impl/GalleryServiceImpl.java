@@ -4,6 +4,7 @@ import com.xians.yaco.model.domain.Gallery;
 import com.xians.yaco.repository.GalleryRepository;
 import com.xians.yaco.service.GalleryService;
 import com.xians.yaco.service.base.AbstractCrudService;
+import com.xians.yaco.service.cache.PageCache;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -25,9 +26,12 @@ public class GalleryServiceImpl extends AbstractCrudService<Gallery, Long> imple
 
     private final GalleryRepository galleryRepository;
 
-    public GalleryServiceImpl(GalleryRepository galleryRepository) {
+    private final PageCache pageCache;
+
+    public GalleryServiceImpl(GalleryRepository galleryRepository, PageCache pageCache) {
         super(galleryRepository);
         this.galleryRepository = galleryRepository;
+        this.pageCache = pageCache;
     }
 
     /**
@@ -39,7 +43,9 @@ public class GalleryServiceImpl extends AbstractCrudService<Gallery, Long> imple
     @Override
     @CacheEvict(value = GALLERIES_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Gallery create(Gallery gallery) {
-        return super.create(gallery);
+        final Gallery saved = super.create(gallery);
+        pageCache.clear();
+        return saved;
     }
 
     /**
@@ -51,7 +57,9 @@ public class GalleryServiceImpl extends AbstractCrudService<Gallery, Long> imple
     @Override
     @CacheEvict(value = GALLERIES_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Gallery removeById(Long galleryId) {
-        return super.removeById(galleryId);
+        final Gallery removed = super.removeById(galleryId);
+        pageCache.clear();
+        return removed;
     }
 
     /**
@@ -5,6 +5,7 @@ import com.xians.yaco.model.domain.Link;
 import com.xians.yaco.repository.LinkRepository;
 import com.xians.yaco.service.LinkService;
 import com.xians.yaco.service.base.AbstractCrudService;
+import com.xians.yaco.service.cache.PageCache;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -28,9 +29,12 @@ public class LinkServiceImpl extends AbstractCrudService<Link, Long> implements
 
     private final LinkRepository linkRepository;
 
-    public LinkServiceImpl(LinkRepository linkRepository) {
+    private final PageCache pageCache;
+
+    public LinkServiceImpl(LinkRepository linkRepository, PageCache pageCache) {
         super(linkRepository);
         this.linkRepository = linkRepository;
+        this.pageCache = pageCache;
     }
 
     /**
@@ -42,7 +46,9 @@ public class LinkServiceImpl extends AbstractCrudService<Link, Long> implements
     @Override
     @CacheEvict(value = LINKS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Link create(Link link) {
-        return super.create(link);
+        final Link saved = super.create(link);
+        pageCache.clear();
+        return saved;
     }
 
     /**
@@ -54,7 +60,9 @@ public class LinkServiceImpl extends AbstractCrudService<Link, Long> implements
     @Override
     @CacheEvict(value = LINKS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Link removeById(Long linkId) {
-        return super.removeById(linkId);
+        final Link removed = super.removeById(linkId);
+        pageCache.clear();
+        return removed;
     }
 
     /**
@@ -4,6 +4,7 @@ package com.xians.yaco.service.impl;
 import cn.hutool.core.text.StrBuilder;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import com.xians.yaco.service.MailService;
+import com.xians.yaco.service.mail.MailOutbox;
 import com.xians.yaco.utils.HaloUtils;
 import freemarker.template.Template;
 import io.github.biezhi.ome.OhMyEmail;
@@ -32,6 +33,9 @@ public class MailServiceImpl implements MailService {
     @Autowired
     private FreeMarkerConfigurer freeMarker;
 
+    @Autowired
+    private MailOutbox mailOutbox;
+
     /**
      * 发送邮件
      *
@@ -117,4 +121,28 @@ public class MailServiceImpl implements MailService {
             e.printStackTrace();
         }
     }
+
+    /**
+     * 模板邮件放入发件箱
+     *
+     * @param to           接收者
+     * @param subject      主题
+     * @param content      内容
+     * @param templateName 模板路径
+     */
+    @Override
+    public void queueTemplateMail(String to, String subject, Map<String, Object> content, String templateName) {
+        mailOutbox.enqueue(to, subject, content, templateName);
+    }
+
+    /**
+     * 新评论通知放入发件箱
+     *
+     * @param to      接收者
+     * @param content 内容
+     */
+    @Override
+    public void queueCommentNotice(String to, Map<String, Object> content) {
+        mailOutbox.enqueueDigest(to, content);
+    }
 }
@@ -5,6 +5,7 @@ import com.xians.yaco.model.domain.Menu;
 import com.xians.yaco.repository.MenuRepository;
 import com.xians.yaco.service.MenuService;
 import com.xians.yaco.service.base.AbstractCrudService;
+import com.xians.yaco.service.cache.PageCache;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -28,9 +29,12 @@ public class MenuServiceImpl extends AbstractCrudService<Menu, Long> implements
 
     private final MenuRepository menuRepository;
 
-    public MenuServiceImpl(MenuRepository menuRepository) {
+    private final PageCache pageCache;
+
+    public MenuServiceImpl(MenuRepository menuRepository, PageCache pageCache) {
         super(menuRepository);
         this.menuRepository = menuRepository;
+        this.pageCache = pageCache;
     }
 
     /**
@@ -53,7 +57,9 @@ public class MenuServiceImpl extends AbstractCrudService<Menu, Long> implements
     @Override
     @CacheEvict(value = MENUS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Menu create(Menu menu) {
-        return super.create(menu);
+        final Menu saved = super.create(menu);
+        pageCache.clear();
+        return saved;
     }
 
     /**
@@ -65,7 +71,9 @@ public class MenuServiceImpl extends AbstractCrudService<Menu, Long> implements
     @Override
     @CacheEvict(value = MENUS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Menu removeById(Long menuId) {
-        return super.removeById(menuId);
+        final Menu removed = super.removeById(menuId);
+        pageCache.clear();
+        return removed;
     }
 
 }
@@ -2,12 +2,13 @@ package com.xians.yaco.service.impl;
 
 
 import cn.hutool.core.util.StrUtil;
+import com.xians.yaco.event.OptionsChangedEvent;
 import com.xians.yaco.model.domain.Options;
 import com.xians.yaco.repository.OptionsRepository;
 import com.xians.yaco.service.OptionsService;
 import com.xians.yaco.service.base.AbstractCrudService;
 import com.xians.yaco.utils.ServiceUtils;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -24,13 +25,14 @@ import java.util.Map;
 @Service
 public class OptionsServiceImpl extends AbstractCrudService<Options, String> implements OptionsService {
 
-    private static final String POSTS_CACHE_NAME = "posts";
-
     private final OptionsRepository optionsRepository;
 
-    public OptionsServiceImpl(OptionsRepository optionsRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OptionsServiceImpl(OptionsRepository optionsRepository, ApplicationEventPublisher eventPublisher) {
         super(optionsRepository);
         this.optionsRepository = optionsRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -39,11 +41,11 @@ public class OptionsServiceImpl extends AbstractCrudService<Options, String> imp
      * @param options options
      */
     @Override
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public void saveOptions(Map<String, String> options) {
         if (!CollectionUtils.isEmpty(options)) {
-            options.forEach(this::saveOption);
+            options.forEach(this::save);
         }
+        eventPublisher.publishEvent(new OptionsChangedEvent(this));
     }
 
     /**
@@ -54,6 +56,11 @@ public class OptionsServiceImpl extends AbstractCrudService<Options, String> imp
      */
     @Override
     public void saveOption(String key, String value) {
+        save(key, value);
+        eventPublisher.publishEvent(new OptionsChangedEvent(this));
+    }
+
+    private void save(String key, String value) {
         if (StrUtil.equals(value, "")) {
 //            options = new Options();
 //            options.setOptionName(key);
@@ -2,11 +2,14 @@ package com.xians.yaco.service.impl;
 
 
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.extra.servlet.ServletUtil;
 import cn.hutool.http.HtmlUtil;
 import com.xians.yaco.model.domain.Category;
 import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.domain.Tag;
 import com.xians.yaco.model.dto.Archive;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.event.PostChangedEvent;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import com.xians.yaco.model.enums.PostStatusEnum;
 import com.xians.yaco.model.enums.PostTypeEnum;
@@ -15,23 +18,34 @@ import com.xians.yaco.service.CategoryService;
 import com.xians.yaco.service.PostService;
 import com.xians.yaco.service.TagService;
 import com.xians.yaco.service.base.AbstractCrudService;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
+import com.xians.yaco.service.cache.CacheDependencies;
+import com.xians.yaco.service.index.ArchiveIndex;
+import com.xians.yaco.service.index.PostTaxonomy;
+import com.xians.yaco.service.index.PostTimeline;
+import com.xians.yaco.service.index.RelatedPostIndex;
+import com.xians.yaco.service.index.SearchIndex;
+import com.xians.yaco.service.job.SummaryJob;
+import com.xians.yaco.service.markdown.MarkdownRerenderer;
+import com.xians.yaco.service.view.HyperLogLog;
+import com.xians.yaco.service.view.PostViewCounter;
+import com.xians.yaco.service.view.UserAgentClassifier;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import javax.servlet.http.HttpServletRequest;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
 
 import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
-import static com.xians.yaco.model.dto.HaloConst.POSTS_VIEWS;
 
 
 /**
@@ -47,21 +61,55 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
 
     private static final String POSTS_CACHE_NAME = "posts";
 
-    private static final String COMMENTS_CACHE_NAME = "comments";
-
     private final PostRepository postRepository;
 
     private final CategoryService categoryService;
 
     private final TagService tagService;
 
+    private final ArchiveIndex archiveIndex;
+
+    private final PostTimeline postTimeline;
+
+    private final PostTaxonomy postTaxonomy;
+
+    private final RelatedPostIndex relatedPostIndex;
+
+    private final SearchIndex searchIndex;
+
+    private final PostViewCounter postViewCounter;
+
+    private final MarkdownRerenderer markdownRerenderer;
+
+    private final SummaryJob summaryJob;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     public PostServiceImpl(PostRepository postRepository,
                            CategoryService categoryService,
-                           TagService tagService) {
+                           TagService tagService,
+                           ArchiveIndex archiveIndex,
+                           PostTimeline postTimeline,
+                           PostTaxonomy postTaxonomy,
+                           RelatedPostIndex relatedPostIndex,
+                           SearchIndex searchIndex,
+                           PostViewCounter postViewCounter,
+                           MarkdownRerenderer markdownRerenderer,
+                           SummaryJob summaryJob,
+                           ApplicationEventPublisher eventPublisher) {
         super(postRepository);
         this.postRepository = postRepository;
         this.categoryService = categoryService;
         this.tagService = tagService;
+        this.archiveIndex = archiveIndex;
+        this.postTimeline = postTimeline;
+        this.postTaxonomy = postTaxonomy;
+        this.relatedPostIndex = relatedPostIndex;
+        this.searchIndex = searchIndex;
+        this.postViewCounter = postViewCounter;
+        this.markdownRerenderer = markdownRerenderer;
+        this.summaryJob = summaryJob;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -72,7 +120,6 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Post
      */
     @Override
-    @CacheEvict(value = {POSTS_CACHE_NAME, COMMENTS_CACHE_NAME}, allEntries = true, beforeInvocation = true)
     public Post create(Post post) {
         int postSummary = 50;
         if (StrUtil.isNotEmpty(OPTIONS.get(BlogPropertiesEnum.POST_SUMMARY.getProp()))) {
@@ -85,7 +132,17 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
         } else {
             post.setPostSummary(summaryText);
         }
-        return super.create(post);
+        final List<Long> neighbourIds = null == post.getPostId() ? null : postTimeline.getNeighbourIds(post.getPostId());
+        final boolean published = null != post.getPostId() && postTimeline.contains(post.getPostId());
+        //标签、分类列表只依赖其中已有的文章，文章移入或移出时需要按列表变化失效
+        final Set<String> taxonomy = published ? fetchById(post.getPostId()).map(PostServiceImpl::taxonomy).orElse(null) : null;
+        final Post saved = super.create(post);
+        archiveIndex.invalidate();
+        postTimeline.update(saved);
+        relatedPostIndex.update(saved);
+        searchIndex.update(saved);
+        publishPostChanged(saved.getPostId(), published, !taxonomy(saved).equals(taxonomy), neighbourIds);
+        return saved;
     }
 
     /**
@@ -95,10 +152,15 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Post
      */
     @Override
-    @CacheEvict(value = {POSTS_CACHE_NAME, COMMENTS_CACHE_NAME}, allEntries = true, beforeInvocation = true)
     public Post removeById(Long postId) {
         final Optional<Post> post = fetchById(postId);
+        final List<Long> neighbourIds = postTimeline.getNeighbourIds(postId);
         postRepository.delete(post.get());
+        archiveIndex.invalidate();
+        postTimeline.remove(postId);
+        relatedPostIndex.remove(postId);
+        searchIndex.remove(postId);
+        eventPublisher.publishEvent(new PostChangedEvent(this, postId, true, neighbourIds));
         return post.get();
     }
 
@@ -110,31 +172,70 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Post
      */
     @Override
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Post updatePostStatus(Long postId, Integer status) {
         final Optional<Post> post = fetchById(postId);
+        final List<Long> neighbourIds = postTimeline.getNeighbourIds(postId);
+        final boolean published = postTimeline.contains(postId);
         post.get().setPostStatus(status);
-        return postRepository.save(post.get());
+        final Post saved = postRepository.save(post.get());
+        archiveIndex.invalidate();
+        postTimeline.update(saved);
+        relatedPostIndex.update(saved);
+        searchIndex.update(saved);
+        publishPostChanged(postId, published, false, neighbourIds);
+        return saved;
     }
 
     /**
-     * 批量更新文章摘要
+     * 在后台批量更新文章摘要
      *
      * @param postSummary postSummary
+     * @return 已有任务在运行时为false
      */
     @Override
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
-    public void updateAllSummary(Integer postSummary) {
-        final List<Post> posts = this.findAll(PostTypeEnum.POST_TYPE_POST.getDesc());
-        for (Post post : posts) {
-            String text = StrUtil.cleanBlank(HtmlUtil.cleanHtmlTag(post.getPostContent()));
-            if (text.length() > postSummary) {
-                post.setPostSummary(text.substring(0, postSummary));
-            } else {
-                post.setPostSummary(text);
-            }
-            postRepository.save(post);
+    public boolean updateAllSummary(Integer postSummary) {
+        return summaryJob.start(postSummary, () -> {
+            archiveIndex.invalidate();
+            eventPublisher.publishEvent(PostChangedEvent.all(this));
+        });
+    }
+
+    /**
+     * 批量修改摘要的进度
+     *
+     * @return Progress
+     */
+    @Override
+    public SummaryJob.Progress getSummaryProgress() {
+        return summaryJob.getProgress();
+    }
+
+    /**
+     * 重新渲染所有文章和页面的Markdown
+     *
+     * @return HTML发生变化的文章数
+     */
+    @Override
+    public int rerenderAll() {
+        final List<Long> changed = markdownRerenderer.rerenderAll();
+        if (!changed.isEmpty()) {
+            searchIndex.refresh(changed);
+            eventPublisher.publishEvent(PostChangedEvent.all(this));
         }
+        return changed.size();
+    }
+
+    /**
+     * 根据编号查询文章，同时加载分类目录和标签
+     *
+     * @param postId postId
+     * @return Optional
+     */
+    @Override
+    public Optional<Post> fetchById(Long postId) {
+        final Optional<Post> post = super.fetchById(postId);
+        post.ifPresent(postTaxonomy::loadPost);
+        return post;
     }
 
     /**
@@ -144,20 +245,20 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return List
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_type_'+#postType")
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_type_'+#postType", sync = true)
     public List<Post> findAll(String postType) {
-        return postRepository.findPostsByPostType(postType);
+        return postTaxonomy.loadPosts(postRepository.findPostsByPostType(postType));
     }
 
     @Override
-    public Page<Post> searchPosts(String keyword, String postType, Integer postStatus, Pageable pageable) {
-        return postRepository.findAll(buildSearchSpecification(keyword, postType, postStatus), pageable)
-                .map(post -> {
-                    if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                        post.setPostSummary("该文章为加密文章");
-                    }
-                    return post;
-                });
+    public Page<PostCard> searchPosts(String keyword, String postType, Integer postStatus, Pageable pageable) {
+        Assert.hasText(keyword, "Keyword must not be blank");
+        //已发布的文章走全文索引，其余情况仍使用模糊查询
+        if (PostStatusEnum.PUBLISHED.getCode().equals(postStatus) && PostTypeEnum.POST_TYPE_POST.getDesc().equals(postType)) {
+            return postTaxonomy.fillCards(searchIndex.search(keyword, pageable));
+        }
+        final Page<PostCard> cards = postRepository.searchPostCards("%" + keyword.toLowerCase() + "%", postStatus, postType, pageable);
+        return postTaxonomy.fillCards(cards);
     }
 
     /**
@@ -170,7 +271,7 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      */
     @Override
     public Page<Post> findPostByStatus(Integer status, String postType, Pageable pageable) {
-        return postRepository.findPostsByPostStatusAndPostType(status, postType, pageable).map(post -> {
+        return postTaxonomy.loadPosts(postRepository.findPostsByPostStatusAndPostType(status, postType, pageable)).map(post -> {
             if (StrUtil.isNotEmpty(post.getPostPassword())) {
                 post.setPostSummary("该文章为加密文章");
             }
@@ -178,6 +279,19 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
         });
     }
 
+    /**
+     * 根据文章状态查询文章卡片 分页，用于前台列表
+     *
+     * @param status   0，1，2
+     * @param postType post or page
+     * @param pageable 分页信息
+     * @return Page
+     */
+    @Override
+    public Page<PostCard> findPostCardsByStatus(Integer status, String postType, Pageable pageable) {
+        return postTaxonomy.fillCards(postRepository.findPostCardsByPostStatusAndPostType(status, postType, pageable));
+    }
+
     /**
      * 根据文章状态查询 分页，首页分页
      *
@@ -185,14 +299,9 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Page
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_page_'+#pageable.pageNumber")
-    public Page<Post> findPostByStatus(Pageable pageable) {
-        return postRepository.findPostsByPostStatusAndPostType(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(), pageable).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_page_'+#pageable.pageNumber", sync = true)
+    public Page<PostCard> findPostByStatus(Pageable pageable) {
+        return this.findPostCardsByStatus(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(), pageable);
     }
 
     /**
@@ -203,9 +312,9 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return List
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_status_type_'+#status+'_'+#postType")
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_status_type_'+#status+'_'+#postType", sync = true)
     public List<Post> findPostByStatus(Integer status, String postType) {
-        return postRepository.findPostsByPostStatusAndPostType(status, postType);
+        return postTaxonomy.loadPosts(postRepository.findPostsByPostStatusAndPostType(status, postType));
     }
 
     /**
@@ -216,7 +325,7 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      */
     @Override
     public Post findByPostId(Long postId, String postType) {
-        return postRepository.findPostByPostIdAndPostType(postId, postType);
+        return postTaxonomy.loadPost(postRepository.findPostByPostIdAndPostType(postId, postType));
     }
 
     /**
@@ -227,9 +336,9 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Post
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_posturl_'+#postUrl+'_'+#postType")
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_posturl_'+#postUrl+'_'+#postType", sync = true)
     public Post findByPostUrl(String postUrl, String postType) {
-        return postRepository.findPostByPostUrlAndPostType(postUrl, postType);
+        return postTaxonomy.loadPost(postRepository.findPostByPostUrlAndPostType(postUrl, postType));
     }
 
     /**
@@ -238,31 +347,31 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return List
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_latest'")
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_latest'", sync = true)
     public List<Post> findPostLatest() {
-        return postRepository.findTopFive();
+        return postTaxonomy.loadPosts(postRepository.findTopFive());
     }
 
     /**
      * 获取下一篇文章 较新
      *
-     * @param postDate postDate
-     * @return Post
+     * @param post 当前文章
+     * @return PostCard
      */
     @Override
-    public Post getNextPost(Date postDate) {
-        return postRepository.queryNextPost(postDate);
+    public PostCard getNextPost(Post post) {
+        return postTimeline.getNext(post);
     }
 
     /**
      * 获取下一篇文章 较老
      *
-     * @param postDate postDate
-     * @return Post
+     * @param post 当前文章
+     * @return PostCard
      */
     @Override
-    public Post getPrePost(Date postDate) {
-        return postRepository.queryPrePost(postDate);
+    public PostCard getPrePost(Post post) {
+        return postTimeline.getPrevious(post);
     }
 
     /**
@@ -271,20 +380,8 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return List
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'archives_year_month'")
     public List<Archive> findPostGroupByYearAndMonth() {
-        final List<Object[]> objects = postRepository.findPostGroupByYearAndMonth();
-        final List<Archive> archives = new ArrayList<>();
-        Archive archive = null;
-        for (Object[] obj : objects) {
-            archive = new Archive();
-            archive.setYear(obj[0].toString());
-            archive.setMonth(obj[1].toString());
-            archive.setCount(obj[2].toString());
-            archive.setPosts(this.findPostByYearAndMonth(obj[0].toString(), obj[1].toString()));
-            archives.add(archive);
-        }
-        return archives;
+        return archiveIndex.getMonthArchives();
     }
 
     /**
@@ -293,19 +390,8 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return List
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'archives_year'")
     public List<Archive> findPostGroupByYear() {
-        final List<Object[]> objects = postRepository.findPostGroupByYear();
-        final List<Archive> archives = new ArrayList<>();
-        Archive archive = null;
-        for (Object[] obj : objects) {
-            archive = new Archive();
-            archive.setYear(obj[0].toString());
-            archive.setCount(obj[1].toString());
-            archive.setPosts(this.findPostByYear(obj[0].toString()));
-            archives.add(archive);
-        }
-        return archives;
+        return archiveIndex.getYearArchives();
     }
 
     /**
@@ -316,44 +402,8 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @Param
      **/
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'archives_all'")
     public List<Archive> findAllPost() {
-        final List<Post> posts = postRepository.findAllPost();
-        final Integer count = postRepository.totalAllPostCount();
-        final List<Archive> archives = new ArrayList<>();
-        Archive archive = null;
-        archive = new Archive();
-        archive.setCount(String.valueOf(count));
-        archive.setPosts(posts);
-        archives.add(archive);
-
-        return archives;
-    }
-
-
-    /**
-     * 根据年份和月份查询文章
-     *
-     * @param year  year
-     * @param month month
-     * @return List
-     */
-    @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_year_month_'+#year+'_'+#month")
-    public List<Post> findPostByYearAndMonth(String year, String month) {
-        return postRepository.findPostByYearAndMonth(year, month);
-    }
-
-    /**
-     * 根据年份查询文章
-     *
-     * @param year year
-     * @return List
-     */
-    @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_year_'+#year")
-    public List<Post> findPostByYear(String year) {
-        return postRepository.findPostByYear(year);
+        return archiveIndex.getAllArchives();
     }
 
     /**
@@ -365,13 +415,19 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Page
      */
     @Override
-    public Page<Post> findPostByYearAndMonth(String year, String month, Pageable pageable) {
-        return postRepository.findPostByYearAndMonth(year, month, null).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
+    public Page<PostCard> findPostByYearAndMonth(String year, String month, Pageable pageable) {
+        final LocalDate start;
+        try {
+            start = LocalDate.of(Integer.parseInt(year), Integer.parseInt(month), 1);
+        } catch (NumberFormatException | DateTimeException e) {
+            return Page.empty();
+        }
+        final ZoneId zone = ZoneId.systemDefault();
+        final Date startDate = Date.from(start.atStartOfDay(zone).toInstant());
+        final Date endDate = Date.from(start.plusMonths(1).atStartOfDay(zone).toInstant());
+        final Page<PostCard> cards = postRepository.findPostCardsByPostDateBetween(PostStatusEnum.PUBLISHED.getCode(),
+                PostTypeEnum.POST_TYPE_POST.getDesc(), startDate, endDate, null == pageable ? Pageable.unpaged() : pageable);
+        return postTaxonomy.fillCards(cards);
     }
 
     /**
@@ -382,14 +438,9 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Page
      */
     @Override
-    @CachePut(value = POSTS_CACHE_NAME, key = "'posts_category_'+#category.cateId+'_'+#pageable.pageNumber")
-    public Page<Post> findPostByCategories(Category category, Pageable pageable) {
-        return postRepository.findPostByCategoriesAndPostStatus(category, PostStatusEnum.PUBLISHED.getCode(), pageable).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_category_'+#category.cateId+'_'+#pageable.pageNumber", sync = true)
+    public Page<PostCard> findPostByCategories(Category category, Pageable pageable) {
+        return postTaxonomy.fillCards(postRepository.findPostCardsByCategoryAndPostStatus(category, PostStatusEnum.PUBLISHED.getCode(), pageable));
     }
 
     /**
@@ -400,14 +451,9 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return Page
      */
     @Override
-    @CachePut(value = POSTS_CACHE_NAME, key = "'posts_tag_'+#tag.tagId+'_'+#pageable.pageNumber")
-    public Page<Post> findPostsByTags(Tag tag, Pageable pageable) {
-        return postRepository.findPostsByTagsAndPostStatus(tag, PostStatusEnum.PUBLISHED.getCode(), pageable).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_tag_'+#tag.tagId+'_'+#pageable.pageNumber", sync = true)
+    public Page<PostCard> findPostsByTags(Tag tag, Pageable pageable) {
+        return postTaxonomy.fillCards(postRepository.findPostCardsByTagAndPostStatus(tag, PostStatusEnum.PUBLISHED.getCode(), pageable));
     }
 
     /**
@@ -416,36 +462,21 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      * @return List
      */
     @Override
-    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_hot'")
+    @Cacheable(value = POSTS_CACHE_NAME, key = "'posts_hot'", sync = true)
     public List<Post> hotPosts() {
-        return postRepository.findPostsByPostTypeOrderByPostViewsDesc(PostTypeEnum.POST_TYPE_POST.getDesc());
+        return postTaxonomy.loadPosts(postRepository.findPostsByPostTypeOrderByPostViewsDesc(PostTypeEnum.POST_TYPE_POST.getDesc()));
     }
 
     /**
-     * 当前文章的相似文章
+     * 当前文章的相似文章，按标签和分类的相似度排序
      *
-     * @param post post
+     * @param post  post
+     * @param limit 最多返回条数
      * @return List
      */
     @Override
-    @CachePut(value = POSTS_CACHE_NAME, key = "'posts_related_'+#post.getPostId()")
-    public List<Post> relatedPosts(Post post) {
-        //获取当前文章的所有标签
-        final List<Tag> tags = post.getTags();
-        final List<Post> tempPosts = new ArrayList<>();
-        for (Tag tag : tags) {
-            tempPosts.addAll(postRepository.findPostsByTags(tag));
-        }
-        //去掉当前的文章
-        tempPosts.remove(post);
-        //去掉重复的文章
-        final List<Post> allPosts = new ArrayList<>();
-        for (int i = 0; i < tempPosts.size(); i++) {
-            if (!allPosts.contains(tempPosts.get(i))) {
-                allPosts.add(tempPosts.get(i));
-            }
-        }
-        return allPosts;
+    public List<PostCard> relatedPosts(Post post, int limit) {
+        return relatedPostIndex.related(post, limit);
     }
 
     /**
@@ -470,17 +501,19 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
     }
 
     /**
-     * 缓存阅读数
+     * 缓存阅读数和访客，爬虫等非人工访问不计入
      *
-     * @param postId postId
+     * @param postId  postId
+     * @param request request
      */
     @Override
-    public void cacheViews(Long postId) {
-        if (null != POSTS_VIEWS.get(postId)) {
-            POSTS_VIEWS.put(postId, POSTS_VIEWS.get(postId) + 1);
-        } else {
-            POSTS_VIEWS.put(postId, 1L);
+    public void cacheViews(Long postId, HttpServletRequest request) {
+        final String userAgent = request.getHeader(HttpHeaders.USER_AGENT);
+        if (UserAgentClassifier.isBot(userAgent)) {
+            return;
         }
+        postViewCounter.increment(postId);
+        postViewCounter.offerVisitor(postId, HyperLogLog.hash(ServletUtil.getClientIP(request) + '|' + userAgent));
     }
 
     /**
@@ -510,71 +543,55 @@ public class PostServiceImpl extends AbstractCrudService<Post, Long> implements
      */
     @Override
     public List<Post> getRecentPosts(int limit) {
-        return postRepository.getPostsByLimit(limit);
-    }
-
-    /**
-     * build Specification for post
-     *
-     * @param keyword    keyword
-     * @param postType   postType
-     * @param postStatus postStatus
-     * @return Specification
-     */
-    @NonNull
-    private Specification<Post> buildSearchSpecification(@NonNull String keyword,
-                                                         @NonNull String postType,
-                                                         @NonNull Integer postStatus) {
-        return Specification
-                .where(postTitleLike(keyword))
-                .or(postContentLike(keyword))
-                .and(postTypeEqual(postType))
-                .and(postStatusEqual(postStatus));
-    }
-
-    /**
-     * build with postContent
-     *
-     * @param keyword keyword
-     * @return Specification
-     */
-    private Specification<Post> postContentLike(@NonNull String keyword) {
-        Assert.hasText(keyword, "Keyword must not be blank");
-        return (root, criteriaQuery, criteriaBuilder) ->
-                criteriaBuilder.like(criteriaBuilder.lower(root.get("postContent")), "%" + keyword.toLowerCase() + "%");
+        return postTaxonomy.loadPosts(postRepository.getPostsByLimit(limit));
     }
 
     /**
-     * build with postTitle
+     * 查询所有文章及其评论，用于导出
      *
-     * @param keyword keyword
-     * @return Specification
+     * @return List
      */
-    private Specification<Post> postTitleLike(@NonNull String keyword) {
-        Assert.hasText(keyword, "Keyword must not be blank");
-        return (root, criteriaQuery, criteriaBuilder) ->
-                criteriaBuilder.like(criteriaBuilder.lower(root.get("postTitle")), "%" + keyword.toLowerCase() + "%");
+    @Override
+    public List<Post> listAllWithComments() {
+        return postTaxonomy.loadPosts(postRepository.findAllWithComments());
     }
 
     /**
-     * build with postType
+     * 文章的标签和分类
      *
-     * @param postType postType
-     * @return Specification
+     * @param post post
+     * @return Set
      */
-    private Specification<Post> postTypeEqual(@NonNull String postType) {
-        return (root, criteriaQuery, criteriaBuilder) ->
-                criteriaBuilder.equal(root.get("postType"), postType);
+    private static Set<String> taxonomy(Post post) {
+        final Set<String> taxonomy = new HashSet<>();
+        if (null != post.getTags()) {
+            for (Tag tag : post.getTags()) {
+                taxonomy.add(CacheDependencies.tag(tag.getTagId()));
+            }
+        }
+        if (null != post.getCategories()) {
+            for (Category category : post.getCategories()) {
+                taxonomy.add(CacheDependencies.category(category.getCateId()));
+            }
+        }
+        return taxonomy;
     }
 
     /**
-     * build with postStatus
+     * 发布文章变更事件，变更前后都在时间线上、标签分类和相邻文章都不变时，文章列表不受影响
      *
-     * @param postStatus postStatus
-     * @return Specification
+     * @param postId          postId
+     * @param wasPublished    变更前是否在时间线上
+     * @param taxonomyChanged 标签或分类是否变化
+     * @param oldNeighbourIds 变更前相邻的文章
      */
-    private Specification<Post> postStatusEqual(@NonNull Integer postStatus) {
-        return (root, criteriaQuery, criteriaBuilder) ->
-                criteriaBuilder.equal(root.get("postStatus"), postStatus);
+    private void publishPostChanged(Long postId, boolean wasPublished, boolean taxonomyChanged, List<Long> oldNeighbourIds) {
+        final List<Long> newNeighbourIds = postTimeline.getNeighbourIds(postId);
+        final boolean structural = !wasPublished || taxonomyChanged || !postTimeline.contains(postId) || !newNeighbourIds.equals(oldNeighbourIds);
+        final Set<Long> neighbourIds = new HashSet<>(newNeighbourIds);
+        if (null != oldNeighbourIds) {
+            neighbourIds.addAll(oldNeighbourIds);
+        }
+        eventPublisher.publishEvent(new PostChangedEvent(this, postId, structural, neighbourIds));
     }
 }
@@ -1,11 +1,12 @@
 package com.xians.yaco.service.impl;
 
 
+import com.xians.yaco.event.TagChangedEvent;
 import com.xians.yaco.model.domain.Tag;
 import com.xians.yaco.repository.TagRepository;
 import com.xians.yaco.service.TagService;
 import com.xians.yaco.service.base.AbstractCrudService;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -22,13 +23,14 @@ import java.util.List;
 @Service
 public class TagServiceImpl extends AbstractCrudService<Tag, Long> implements TagService {
 
-    private static final String POSTS_CACHE_NAME = "posts";
-
     private final TagRepository tagRepository;
 
-    public TagServiceImpl(TagRepository tagRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TagServiceImpl(TagRepository tagRepository, ApplicationEventPublisher eventPublisher) {
         super(tagRepository);
         this.tagRepository = tagRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -38,9 +40,10 @@ public class TagServiceImpl extends AbstractCrudService<Tag, Long> implements Ta
      * @return Tag
      */
     @Override
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Tag create(Tag tag) {
-        return super.create(tag);
+        final Tag saved = super.create(tag);
+        eventPublisher.publishEvent(new TagChangedEvent(this, saved.getTagId()));
+        return saved;
     }
 
     /**
@@ -50,9 +53,10 @@ public class TagServiceImpl extends AbstractCrudService<Tag, Long> implements Ta
      * @return Tag
      */
     @Override
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public Tag removeById(Long tagId) {
-        return super.removeById(tagId);
+        final Tag removed = super.removeById(tagId);
+        eventPublisher.publishEvent(new TagChangedEvent(this, tagId));
+        return removed;
     }
 
     /**
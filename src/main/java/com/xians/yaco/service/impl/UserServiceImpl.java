@@ -1,11 +1,13 @@
 package com.xians.yaco.service.impl;
 
 
+import com.xians.yaco.event.UserChangedEvent;
 import com.xians.yaco.model.domain.User;
 import com.xians.yaco.model.enums.TrueFalseEnum;
 import com.xians.yaco.repository.UserRepository;
 import com.xians.yaco.service.UserService;
 import com.xians.yaco.service.base.AbstractCrudService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -24,9 +26,38 @@ public class UserServiceImpl extends AbstractCrudService<User, Long> implements
 
     private final UserRepository userRepository;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserServiceImpl(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         super(userRepository);
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 新增/修改用户资料
+     *
+     * @param user user
+     * @return User
+     */
+    @Override
+    public User create(User user) {
+        final User saved = super.create(user);
+        eventPublisher.publishEvent(new UserChangedEvent(this));
+        return saved;
+    }
+
+    /**
+     * 修改用户，登录记录、密码等
+     *
+     * @param user user
+     * @return User
+     */
+    @Override
+    public User update(User user) {
+        final User updated = super.update(user);
+        eventPublisher.publishEvent(new UserChangedEvent(this));
+        return updated;
     }
 
     /**
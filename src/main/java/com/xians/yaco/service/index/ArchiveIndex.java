@@ -0,0 +1,176 @@
+package com.xians.yaco.service.index;
+
+import com.xians.yaco.event.CategoryChangedEvent;
+import com.xians.yaco.event.TagChangedEvent;
+import com.xians.yaco.model.dto.Archive;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.model.enums.PostStatusEnum;
+import com.xians.yaco.model.enums.PostTypeEnum;
+import com.xians.yaco.repository.PostRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     文章归档索引
+ *     一次按日期倒序扫描已发布文章，同时构建年份归档和年月归档，文章、标签、分类目录变更后失效
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class ArchiveIndex {
+
+    private final PostRepository postRepository;
+
+    private final PostTaxonomy postTaxonomy;
+
+    /**
+     * 每次文章变更自增，用于丢弃并发构建出的旧快照
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public ArchiveIndex(PostRepository postRepository, PostTaxonomy postTaxonomy) {
+        this.postRepository = postRepository;
+        this.postTaxonomy = postTaxonomy;
+    }
+
+    /**
+     * 年份归档
+     *
+     * @return List
+     */
+    @NonNull
+    public List<Archive> getYearArchives() {
+        return snapshot().years;
+    }
+
+    /**
+     * 年月归档
+     *
+     * @return List
+     */
+    @NonNull
+    public List<Archive> getMonthArchives() {
+        return snapshot().months;
+    }
+
+    /**
+     * 所有文章
+     *
+     * @return List
+     */
+    @NonNull
+    public List<Archive> getAllArchives() {
+        return snapshot().all;
+    }
+
+    /**
+     * 文章变更后调用，下次访问时重建
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    @EventListener
+    public void onTagChanged(TagChangedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidate();
+    }
+
+    @NonNull
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (null == current || current.generation != generation.get()) {
+            //同一时间只有一个线程重建，其他线程等待后直接使用它的结果
+            synchronized (this) {
+                current = snapshot;
+                final long gen = generation.get();
+                if (null == current || current.generation != gen) {
+                    current = build(gen);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @NonNull
+    private Snapshot build(long gen) {
+        final List<PostCard> cards = postTaxonomy.fillCards(postRepository.findAllPostCards(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc()));
+        final List<Archive> years = new ArrayList<>();
+        final List<Archive> months = new ArrayList<>();
+        final Calendar calendar = Calendar.getInstance();
+        Archive year = null;
+        Archive month = null;
+        for (PostCard card : cards) {
+            if (null == card.getPostDate()) {
+                continue;
+            }
+            calendar.setTime(card.getPostDate());
+            final String y = String.valueOf(calendar.get(Calendar.YEAR));
+            final String m = String.valueOf(calendar.get(Calendar.MONTH) + 1);
+            if (null == year || !year.getYear().equals(y)) {
+                year = newArchive(y, null);
+                years.add(year);
+            }
+            if (null == month || !month.getYear().equals(y) || !month.getMonth().equals(m)) {
+                month = newArchive(y, m);
+                months.add(month);
+            }
+            year.getPosts().add(card);
+            month.getPosts().add(card);
+        }
+        final Archive all = new Archive();
+        all.setPosts(cards);
+        return new Snapshot(gen, seal(years), seal(months), seal(Collections.singletonList(all)));
+    }
+
+    private Archive newArchive(String year, String month) {
+        final Archive archive = new Archive();
+        archive.setYear(year);
+        archive.setMonth(month);
+        archive.setPosts(new ArrayList<>());
+        return archive;
+    }
+
+    private List<Archive> seal(List<Archive> archives) {
+        for (Archive archive : archives) {
+            archive.setCount(String.valueOf(archive.getPosts().size()));
+            archive.setPosts(Collections.unmodifiableList(archive.getPosts()));
+        }
+        return Collections.unmodifiableList(archives);
+    }
+
+    private static final class Snapshot {
+
+        private final long generation;
+
+        private final List<Archive> years;
+
+        private final List<Archive> months;
+
+        private final List<Archive> all;
+
+        private Snapshot(long generation, List<Archive> years, List<Archive> months, List<Archive> all) {
+            this.generation = generation;
+            this.years = years;
+            this.months = months;
+            this.all = all;
+        }
+    }
+}
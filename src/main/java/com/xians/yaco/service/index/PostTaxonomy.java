@@ -0,0 +1,118 @@
+package com.xians.yaco.service.index;
+
+import com.xians.yaco.model.domain.Category;
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.domain.Tag;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.repository.PostRepository;
+import org.hibernate.Hibernate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <pre>
+ *     文章的分类目录和标签
+ *     按文章编号分批，每批用两次IN查询取出所有文章的分类目录和标签，避免逐篇懒加载。
+ *     关闭了open-in-view，模板渲染时没有Session，返回给控制器的文章和卡片都要先经过这里
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class PostTaxonomy {
+
+    /**
+     * 每次批量查询分类目录和标签的文章数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final PostRepository postRepository;
+
+    public PostTaxonomy(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    /**
+     * 填充文章卡片的分类目录和标签
+     *
+     * @param cards cards
+     * @param <T>   List、Page等
+     * @return cards
+     */
+    @NonNull
+    public <T extends Iterable<PostCard>> T fillCards(@NonNull T cards) {
+        final Map<Long, PostCard> cardMap = new LinkedHashMap<>();
+        for (PostCard card : cards) {
+            cardMap.put(card.getPostId(), card);
+        }
+        final List<Long> postIds = new ArrayList<>(cardMap.keySet());
+        for (int from = 0; from < postIds.size(); from += BATCH_SIZE) {
+            final List<Long> batch = postIds.subList(from, Math.min(from + BATCH_SIZE, postIds.size()));
+            for (Object[] row : postRepository.findCategoriesByPostIdIn(batch)) {
+                cardMap.get((Long) row[0]).getCategories().add((Category) row[1]);
+            }
+            for (Object[] row : postRepository.findTagsByPostIdIn(batch)) {
+                cardMap.get((Long) row[0]).getTags().add((Tag) row[1]);
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * 加载文章实体的分类目录和标签，已经加载过的文章跳过
+     *
+     * @param posts posts
+     * @param <T>   List、Page等
+     * @return posts
+     */
+    @NonNull
+    public <T extends Iterable<Post>> T loadPosts(@NonNull T posts) {
+        final Map<Long, Post> postMap = new LinkedHashMap<>();
+        for (Post post : posts) {
+            if (null != post && null != post.getPostId()
+                    && !(Hibernate.isInitialized(post.getCategories()) && Hibernate.isInitialized(post.getTags()))) {
+                postMap.put(post.getPostId(), post);
+            }
+        }
+        final List<Long> postIds = new ArrayList<>(postMap.keySet());
+        for (int from = 0; from < postIds.size(); from += BATCH_SIZE) {
+            final List<Long> batch = postIds.subList(from, Math.min(from + BATCH_SIZE, postIds.size()));
+            final Map<Long, List<Category>> categories = new HashMap<>(batch.size());
+            final Map<Long, List<Tag>> tags = new HashMap<>(batch.size());
+            for (Object[] row : postRepository.findCategoriesByPostIdIn(batch)) {
+                categories.computeIfAbsent((Long) row[0], postId -> new ArrayList<>()).add((Category) row[1]);
+            }
+            for (Object[] row : postRepository.findTagsByPostIdIn(batch)) {
+                tags.computeIfAbsent((Long) row[0], postId -> new ArrayList<>()).add((Tag) row[1]);
+            }
+            for (Long postId : batch) {
+                final Post post = postMap.get(postId);
+                post.setCategories(categories.getOrDefault(postId, new ArrayList<>()));
+                post.setTags(tags.getOrDefault(postId, new ArrayList<>()));
+            }
+        }
+        return posts;
+    }
+
+    /**
+     * 加载单篇文章的分类目录和标签
+     *
+     * @param post post
+     * @return post
+     */
+    @Nullable
+    public Post loadPost(@Nullable Post post) {
+        if (null != post) {
+            loadPosts(Collections.singletonList(post));
+        }
+        return post;
+    }
+}
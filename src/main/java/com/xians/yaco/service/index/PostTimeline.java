@@ -0,0 +1,224 @@
+package com.xians.yaco.service.index;
+
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.model.enums.PostStatusEnum;
+import com.xians.yaco.model.enums.PostTypeEnum;
+import com.xians.yaco.repository.PostRepository;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <pre>
+ *     已发布文章时间线
+ *     按(发表日期, 文章编号)升序保存的有序数组，另有文章编号到下标的索引，
+ *     时间线上的文章按编号定位，不在时间线上的文章通过二分查找获得上一篇/下一篇，
+ *     文章变更时增量更新，读操作无锁
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class PostTimeline {
+
+    private static final Comparator<PostCard> ORDER = Comparator.comparing(PostCard::getPostDate).thenComparing(PostCard::getPostId);
+
+    private final PostRepository postRepository;
+
+    /**
+     * 写时复制，发布后不再修改
+     */
+    private volatile Snapshot timeline;
+
+    public PostTimeline(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    /**
+     * 获取较老的一篇文章
+     *
+     * @param post post
+     * @return PostCard
+     */
+    @Nullable
+    public PostCard getPrevious(@NonNull Post post) {
+        if (null == post.getPostDate()) {
+            return null;
+        }
+        final Snapshot current = timeline();
+        final int index = current.indexOf(post);
+        final int previous = index >= 0 ? index - 1 : -index - 2;
+        return previous >= 0 ? current.cards[previous] : null;
+    }
+
+    /**
+     * 获取较新的一篇文章
+     *
+     * @param post post
+     * @return PostCard
+     */
+    @Nullable
+    public PostCard getNext(@NonNull Post post) {
+        if (null == post.getPostDate()) {
+            return null;
+        }
+        final Snapshot current = timeline();
+        final int index = current.indexOf(post);
+        final int next = index >= 0 ? index + 1 : -index - 1;
+        return next < current.cards.length ? current.cards[next] : null;
+    }
+
+    /**
+     * 时间线上与该文章相邻的文章编号
+     *
+     * @param postId postId
+     * @return List
+     */
+    @NonNull
+    public List<Long> getNeighbourIds(@NonNull Long postId) {
+        final Snapshot current = timeline();
+        final List<Long> neighbours = new ArrayList<>(2);
+        final Integer index = current.positions.get(postId);
+        if (null != index) {
+            if (index > 0) {
+                neighbours.add(current.cards[index - 1].getPostId());
+            }
+            if (index < current.cards.length - 1) {
+                neighbours.add(current.cards[index + 1].getPostId());
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * 文章是否在时间线上
+     *
+     * @param postId postId
+     * @return boolean
+     */
+    public boolean contains(@NonNull Long postId) {
+        return timeline().positions.containsKey(postId);
+    }
+
+    /**
+     * 文章保存或状态变更后调用
+     *
+     * @param post post
+     */
+    public synchronized void update(@NonNull Post post) {
+        if (null == timeline) {
+            return;
+        }
+        final List<PostCard> cards = without(post.getPostId());
+        if (PostStatusEnum.PUBLISHED.getCode().equals(post.getPostStatus())
+                && PostTypeEnum.POST_TYPE_POST.getDesc().equals(post.getPostType())
+                && null != post.getPostDate()) {
+            final PostCard card = toCard(post);
+            final int index = -Collections.binarySearch(cards, card, ORDER) - 1;
+            cards.add(index, card);
+        }
+        timeline = new Snapshot(cards.toArray(new PostCard[0]));
+    }
+
+    /**
+     * 文章删除后调用
+     *
+     * @param postId postId
+     */
+    public synchronized void remove(@NonNull Long postId) {
+        if (null == timeline) {
+            return;
+        }
+        timeline = new Snapshot(without(postId).toArray(new PostCard[0]));
+    }
+
+    @NonNull
+    private Snapshot timeline() {
+        Snapshot current = timeline;
+        if (null == current) {
+            synchronized (this) {
+                current = timeline;
+                if (null == current) {
+                    current = load();
+                    timeline = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @NonNull
+    private Snapshot load() {
+        final List<PostCard> cards = postRepository.findAllPostCards(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc());
+        cards.removeIf(card -> null == card.getPostDate());
+        final PostCard[] loaded = cards.toArray(new PostCard[0]);
+        Arrays.sort(loaded, ORDER);
+        return new Snapshot(loaded);
+    }
+
+    @NonNull
+    private List<PostCard> without(Long postId) {
+        final List<PostCard> cards = new ArrayList<>(timeline.cards.length + 1);
+        for (PostCard card : timeline.cards) {
+            if (!card.getPostId().equals(postId)) {
+                cards.add(card);
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * 保存后的实体带有毫秒，数据库中的日期精确到秒（MySQL DATETIME四舍五入），
+     * 按数据库中的日期排序，与重新加载后的顺序一致
+     */
+    @NonNull
+    private static PostCard toCard(@NonNull Post post) {
+        return new PostCard(post.getPostId(), post.getPostTitle(), post.getPostUrl(), post.getPostSummary(),
+                post.getPostThumbnail(), toSeconds(post.getPostDate()), post.getPostUpdate(), post.getPostViews(),
+                post.getAllowComment(), post.getPostPassword());
+    }
+
+    @Nullable
+    private static Date toSeconds(@Nullable Date date) {
+        if (null == date) {
+            return null;
+        }
+        return new Date((date.getTime() + 500) / 1000 * 1000);
+    }
+
+    /**
+     * 有序数组和文章编号到下标的索引
+     */
+    private static final class Snapshot {
+
+        private final PostCard[] cards;
+
+        private final Map<Long, Integer> positions;
+
+        private Snapshot(PostCard[] cards) {
+            this.cards = cards;
+            this.positions = new HashMap<>(cards.length * 4 / 3 + 1);
+            for (int i = 0; i < cards.length; i++) {
+                positions.put(cards[i].getPostId(), i);
+            }
+        }
+
+        /**
+         * 文章在时间线上时返回下标，否则按二分查找的约定返回(-(插入位置) - 1)
+         */
+        private int indexOf(Post post) {
+            final Integer index = null == post.getPostId() ? null : positions.get(post.getPostId());
+            return null != index ? index : Arrays.binarySearch(cards, toCard(post), ORDER);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.xians.yaco.service.index;
+
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.model.enums.PostStatusEnum;
+import com.xians.yaco.model.enums.PostTypeEnum;
+import com.xians.yaco.repository.PostRepository;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <pre>
+ *     相关文章索引
+ *     以标签、分类为词项建立倒排索引(词项 -> 文章编号)，
+ *     按IDF加权的Jaccard相似度打分，返回得分最高的K篇文章
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class RelatedPostIndex {
+
+    /**
+     * 分类比标签宽泛，权重减半
+     */
+    private static final double CATEGORY_WEIGHT = 0.5;
+
+    private final PostRepository postRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 文章编号 -> 文章卡片
+     */
+    private final Map<Long, PostCard> cards = new HashMap<>();
+
+    /**
+     * 文章编号 -> 词项，标签编号为偶数，分类编号为奇数
+     */
+    private final Map<Long, long[]> postTerms = new HashMap<>();
+
+    /**
+     * 词项 -> 文章编号
+     */
+    private final Map<Long, Set<Long>> postings = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    public RelatedPostIndex(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    /**
+     * 获取相似度最高的文章
+     *
+     * @param post  当前文章
+     * @param limit 最多返回条数
+     * @return List
+     */
+    @NonNull
+    public List<PostCard> related(@NonNull Post post, int limit) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            final long[] terms = postTerms.get(post.getPostId());
+            if (null == terms || terms.length == 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+            final double total = cards.size();
+            final double weight = weightOf(terms, total);
+            final Map<Long, Double> overlaps = new HashMap<>();
+            for (long term : terms) {
+                final double termWeight = weightOf(term, total);
+                for (Long candidate : postings.get(term)) {
+                    if (!candidate.equals(post.getPostId())) {
+                        overlaps.merge(candidate, termWeight, Double::sum);
+                    }
+                }
+            }
+            final Comparator<Map.Entry<Long, Double>> order = Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue)
+                    .thenComparing(entry -> cards.get(entry.getKey()).getPostDate(), Comparator.nullsFirst(Comparator.naturalOrder()));
+            final PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(limit + 1, order);
+            for (Map.Entry<Long, Double> overlap : overlaps.entrySet()) {
+                final double union = weight + weightOf(postTerms.get(overlap.getKey()), total) - overlap.getValue();
+                top.offer(new AbstractMap.SimpleImmutableEntry<>(overlap.getKey(), overlap.getValue() / union));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            final LinkedList<PostCard> result = new LinkedList<>();
+            while (!top.isEmpty()) {
+                result.addFirst(cards.get(top.poll().getKey()));
+            }
+            return new ArrayList<>(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文章保存或状态变更后调用，分类和标签从数据库重新读取
+     *
+     * @param post post
+     */
+    public void update(@NonNull Post post) {
+        if (!loaded) {
+            return;
+        }
+        final boolean published = PostStatusEnum.PUBLISHED.getCode().equals(post.getPostStatus())
+                && PostTypeEnum.POST_TYPE_POST.getDesc().equals(post.getPostType());
+        long[] terms = null;
+        if (published) {
+            final List<Long> tagIds = postRepository.findTagIdsByPostId(post.getPostId());
+            final List<Long> cateIds = postRepository.findCategoryIdsByPostId(post.getPostId());
+            terms = new long[tagIds.size() + cateIds.size()];
+            int i = 0;
+            for (Long tagId : tagIds) {
+                terms[i++] = tagTerm(tagId);
+            }
+            for (Long cateId : cateIds) {
+                terms[i++] = categoryTerm(cateId);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(post.getPostId());
+            if (published) {
+                addInternal(new PostCard(post.getPostId(), post.getPostTitle(), post.getPostUrl(), post.getPostSummary(),
+                        post.getPostThumbnail(), post.getPostDate(), post.getPostUpdate(), post.getPostViews(),
+                        post.getAllowComment(), post.getPostPassword()), terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 文章删除后调用
+     *
+     * @param postId postId
+     */
+    public void remove(@NonNull Long postId) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            final Integer status = PostStatusEnum.PUBLISHED.getCode();
+            final String postType = PostTypeEnum.POST_TYPE_POST.getDesc();
+            final Map<Long, List<Long>> terms = new HashMap<>();
+            for (Object[] row : postRepository.findTagIdPairs(status, postType)) {
+                terms.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add(tagTerm((Long) row[1]));
+            }
+            for (Object[] row : postRepository.findCategoryIdPairs(status, postType)) {
+                terms.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add(categoryTerm((Long) row[1]));
+            }
+            for (PostCard card : postRepository.findAllPostCards(status, postType)) {
+                final List<Long> postTermList = terms.getOrDefault(card.getPostId(), Collections.emptyList());
+                final long[] termArray = new long[postTermList.size()];
+                for (int i = 0; i < termArray.length; i++) {
+                    termArray[i] = postTermList.get(i);
+                }
+                addInternal(card, termArray);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addInternal(PostCard card, long[] terms) {
+        cards.put(card.getPostId(), card);
+        postTerms.put(card.getPostId(), terms);
+        for (long term : terms) {
+            postings.computeIfAbsent(term, key -> new HashSet<>()).add(card.getPostId());
+        }
+    }
+
+    private void removeInternal(Long postId) {
+        cards.remove(postId);
+        final long[] terms = postTerms.remove(postId);
+        if (null == terms) {
+            return;
+        }
+        for (long term : terms) {
+            final Set<Long> posts = postings.get(term);
+            if (null != posts) {
+                posts.remove(postId);
+                if (posts.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private double weightOf(long[] terms, double total) {
+        double weight = 0;
+        for (long term : terms) {
+            weight += weightOf(term, total);
+        }
+        return weight;
+    }
+
+    private double weightOf(long term, double total) {
+        final double idf = Math.log(1 + total / postings.get(term).size());
+        return (term & 1) == 1 ? CATEGORY_WEIGHT * idf : idf;
+    }
+
+    private static long tagTerm(Long tagId) {
+        return tagId << 1;
+    }
+
+    private static long categoryTerm(Long cateId) {
+        return (cateId << 1) | 1;
+    }
+}
@@ -0,0 +1,510 @@
+package com.xians.yaco.service.index;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.HtmlUtil;
+import com.xians.yaco.event.CategoryChangedEvent;
+import com.xians.yaco.event.TagChangedEvent;
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.model.enums.PostStatusEnum;
+import com.xians.yaco.model.enums.PostTypeEnum;
+import com.xians.yaco.repository.PostRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <pre>
+ *     文章全文检索索引
+ *     倒排索引(词项 -> 文章编号 -> 加权词频)，标题和标签/分类加权，BM25打分，多个词项取交集。
+ *     索引段保存在 ~/halo/search/segment.idx，启动时通过内存映射读取，
+ *     只重建发表后被修改过的文章；文章、标签、分类目录变更时增量更新并延迟写回磁盘
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class SearchIndex {
+
+    private static final int MAGIC = 0x48534547;
+
+    private static final int VERSION = 1;
+
+    private static final float TITLE_BOOST = 3.0f;
+
+    private static final float TAXONOMY_BOOST = 2.0f;
+
+    private static final float CONTENT_BOOST = 1.0f;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    /**
+     * 重建索引时每批读取的文章数
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 索引变更后延迟写回磁盘的秒数，期间的变更合并写入
+     */
+    private static final long SAVE_DELAY_SECONDS = 10;
+
+    private final PostRepository postRepository;
+
+    private final Path segmentPath = Paths.get(System.getProperties().getProperty("user.home"), "halo", "search", "segment.idx");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 词项 -> (文章编号 -> 加权词频)
+     */
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+
+    /**
+     * 文章编号 -> 文章包含的词项，移除文章时只修改这些词项的倒排表
+     */
+    private final Map<Long, String[]> documentTerms = new HashMap<>();
+
+    /**
+     * 文章编号 -> 加权文档长度
+     */
+    private final Map<Long, Float> lengths = new HashMap<>();
+
+    /**
+     * 文章编号 -> 建索引时文章的最后修改时间
+     */
+    private final Map<Long, Long> versions = new HashMap<>();
+
+    private final Map<Long, PostCard> cards = new HashMap<>();
+
+    private double totalLength;
+
+    private volatile boolean loaded;
+
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "search-index-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SearchIndex(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    /**
+     * 检索已发布的文章
+     *
+     * @param keyword  关键词
+     * @param pageable 分页信息，排序按相关度，忽略pageable中的排序
+     * @return Page
+     */
+    @NonNull
+    public Page<PostCard> search(@NonNull String keyword, @NonNull Pageable pageable) {
+        load();
+        final List<String> terms = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenizeQuery(keyword)));
+        if (terms.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        lock.readLock().lock();
+        try {
+            final List<Map<Long, Float>> termPostings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                final Map<Long, Float> posting = postings.get(term);
+                if (null == posting) {
+                    return new PageImpl<>(Collections.emptyList(), pageable, 0);
+                }
+                termPostings.add(posting);
+            }
+            termPostings.sort(Comparator.comparingInt(Map::size));
+            final double docCount = lengths.size();
+            final double avgLength = totalLength / docCount;
+            final double[] idf = new double[termPostings.size()];
+            for (int i = 0; i < idf.length; i++) {
+                final double df = termPostings.get(i).size();
+                idf[i] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+            final List<Map.Entry<Long, Double>> hits = new ArrayList<>();
+            candidates:
+            for (Long postId : termPostings.get(0).keySet()) {
+                final double norm = K1 * (1 - B + B * lengths.get(postId) / avgLength);
+                double score = 0;
+                for (int i = 0; i < termPostings.size(); i++) {
+                    final Float tf = termPostings.get(i).get(postId);
+                    if (null == tf) {
+                        continue candidates;
+                    }
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+                hits.add(new AbstractMap.SimpleImmutableEntry<>(postId, score));
+            }
+            hits.sort(Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                    .thenComparing(hit -> cards.get(hit.getKey()).getPostDate(), Comparator.nullsLast(Comparator.reverseOrder())));
+            final List<PostCard> content = new ArrayList<>(pageable.getPageSize());
+            final long offset = pageable.getOffset();
+            for (long i = offset; i < hits.size() && i < offset + pageable.getPageSize(); i++) {
+                content.add(copyOf(cards.get(hits.get((int) i).getKey())));
+            }
+            return new PageImpl<>(content, pageable, hits.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文章保存或状态变更后调用
+     *
+     * @param post post
+     */
+    public void update(@NonNull Post post) {
+        if (!loaded) {
+            return;
+        }
+        if (PostStatusEnum.PUBLISHED.getCode().equals(post.getPostStatus())
+                && PostTypeEnum.POST_TYPE_POST.getDesc().equals(post.getPostType())) {
+            final PostCard card = new PostCard(post.getPostId(), post.getPostTitle(), post.getPostUrl(), post.getPostSummary(),
+                    post.getPostThumbnail(), post.getPostDate(), post.getPostUpdate(), post.getPostViews(),
+                    post.getAllowComment(), post.getPostPassword());
+            lock.writeLock().lock();
+            try {
+                cards.put(card.getPostId(), card);
+                reindex(Collections.singletonList(post.getPostId()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } else {
+            remove(post.getPostId());
+        }
+        scheduleSave();
+    }
+
+    /**
+     * 文章正文在其他地方被批量修改后调用，如重新渲染
+     *
+     * @param postIds postIds
+     */
+    public void refresh(@NonNull Collection<Long> postIds) {
+        if (!loaded || postIds.isEmpty()) {
+            return;
+        }
+        final List<Long> ids = new ArrayList<>(postIds);
+        lock.writeLock().lock();
+        try {
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                reindex(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleSave();
+    }
+
+    /**
+     * 标签名称会被索引，修改后重建使用该标签的文章。有文章使用的标签无法删除，只需处理修改
+     *
+     * @param event event
+     */
+    @EventListener
+    public void onTagChanged(TagChangedEvent event) {
+        if (loaded && null != event.getTagId()) {
+            refresh(postRepository.findPostIdsByTagId(event.getTagId()));
+        }
+    }
+
+    /**
+     * 分类目录名称会被索引，修改后重建属于该分类目录的文章
+     *
+     * @param event event
+     */
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (loaded && null != event.getCateId()) {
+            refresh(postRepository.findPostIdsByCateId(event.getCateId()));
+        }
+    }
+
+    /**
+     * 文章删除后调用
+     *
+     * @param postId postId
+     */
+    public void remove(@NonNull Long postId) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            cards.remove(postId);
+            removeDocument(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleSave();
+    }
+
+    /**
+     * 加载索引，已加载时直接返回
+     */
+    public void load() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            final long start = System.currentTimeMillis();
+            for (PostCard card : postRepository.findAllPostCards(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
+                cards.put(card.getPostId(), card);
+            }
+            final boolean restored = readSegment();
+            final List<Long> stale = new ArrayList<>();
+            for (Long postId : cards.keySet()) {
+                if (!lengths.containsKey(postId)) {
+                    stale.add(postId);
+                }
+            }
+            for (int from = 0; from < stale.size(); from += BATCH_SIZE) {
+                reindex(stale.subList(from, Math.min(from + BATCH_SIZE, stale.size())));
+            }
+            loaded = true;
+            log.info("Search index loaded: {} posts, {} reindexed, {} ms", lengths.size(), stale.size(), System.currentTimeMillis() - start);
+            if (!restored || !stale.isEmpty()) {
+                scheduleSave();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        saver.shutdownNow();
+        if (loaded && saveScheduled.get()) {
+            writeSegment();
+        }
+    }
+
+    /**
+     * 从数据库读取文章内容重新建立索引，调用方需持有写锁
+     */
+    private void reindex(List<Long> postIds) {
+        final Map<Long, StringBuilder> taxonomies = new HashMap<>();
+        for (Object[] row : postRepository.findTagNamesByPostIdIn(postIds)) {
+            taxonomies.computeIfAbsent((Long) row[0], key -> new StringBuilder()).append(row[1]).append(' ');
+        }
+        for (Object[] row : postRepository.findCategoryNamesByPostIdIn(postIds)) {
+            taxonomies.computeIfAbsent((Long) row[0], key -> new StringBuilder()).append(row[1]).append(' ');
+        }
+        for (Object[] row : postRepository.findSearchRowsByPostIdIn(postIds)) {
+            final Long postId = (Long) row[0];
+            final PostCard card = cards.get(postId);
+            if (null == card) {
+                continue;
+            }
+            final Map<String, Float> frequencies = new HashMap<>();
+            float length = addField(frequencies, (String) row[1], TITLE_BOOST);
+            final StringBuilder taxonomy = taxonomies.get(postId);
+            if (null != taxonomy) {
+                length += addField(frequencies, taxonomy.toString(), TAXONOMY_BOOST);
+            }
+            //加密文章不索引正文
+            if (StrUtil.isEmpty((String) row[3]) && null != row[2]) {
+                length += addField(frequencies, HtmlUtil.cleanHtmlTag((String) row[2]), CONTENT_BOOST);
+            }
+            removeDocument(postId);
+            for (Map.Entry<String, Float> frequency : frequencies.entrySet()) {
+                postings.computeIfAbsent(frequency.getKey(), key -> new HashMap<>()).put(postId, frequency.getValue());
+            }
+            documentTerms.put(postId, frequencies.keySet().toArray(new String[0]));
+            lengths.put(postId, length);
+            versions.put(postId, versionOf(card));
+            totalLength += length;
+        }
+    }
+
+    private float addField(Map<String, Float> frequencies, String text, float boost) {
+        final List<String> tokens = SearchTokenizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, boost, Float::sum);
+        }
+        return tokens.size() * boost;
+    }
+
+    /**
+     * 调用方需持有写锁
+     */
+    private void removeDocument(Long postId) {
+        final Float length = lengths.remove(postId);
+        if (null == length) {
+            return;
+        }
+        totalLength -= length;
+        versions.remove(postId);
+        final String[] terms = documentTerms.remove(postId);
+        if (null == terms) {
+            return;
+        }
+        for (String term : terms) {
+            final Map<Long, Float> posting = postings.get(term);
+            if (null != posting && null != posting.remove(postId) && posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * 通过内存映射读取索引段，只保留未被修改过的文章，调用方需持有写锁
+     *
+     * @return 是否成功读取
+     */
+    private boolean readSegment() {
+        if (!Files.isRegularFile(segmentPath)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+            final int docCount = buffer.getInt();
+            for (int i = 0; i < docCount; i++) {
+                final long postId = buffer.getLong();
+                final long version = buffer.getLong();
+                final float length = buffer.getFloat();
+                final PostCard card = cards.get(postId);
+                if (null != card && versionOf(card) == version) {
+                    lengths.put(postId, length);
+                    versions.put(postId, version);
+                    totalLength += length;
+                }
+            }
+            final Map<Long, List<String>> restoredTerms = new HashMap<>(lengths.size() * 2);
+            final int termCount = buffer.getInt();
+            for (int i = 0; i < termCount; i++) {
+                final byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                final String term = new String(bytes, StandardCharsets.UTF_8);
+                final int postingCount = buffer.getInt();
+                Map<Long, Float> posting = null;
+                for (int j = 0; j < postingCount; j++) {
+                    final long postId = buffer.getLong();
+                    final float frequency = buffer.getFloat();
+                    if (lengths.containsKey(postId)) {
+                        if (null == posting) {
+                            posting = postings.computeIfAbsent(term, key -> new HashMap<>());
+                        }
+                        posting.put(postId, frequency);
+                        restoredTerms.computeIfAbsent(postId, key -> new ArrayList<>()).add(term);
+                    }
+                }
+            }
+            for (Map.Entry<Long, List<String>> terms : restoredTerms.entrySet()) {
+                documentTerms.put(terms.getKey(), terms.getValue().toArray(new String[0]));
+            }
+            return true;
+        } catch (IOException | BufferUnderflowException e) {
+            log.warn("Search index segment is unreadable, rebuilding: {}", e.getMessage());
+            postings.clear();
+            documentTerms.clear();
+            lengths.clear();
+            versions.clear();
+            totalLength = 0;
+            return false;
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            saver.schedule(this::writeSegment, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，写入期间进程退出不会损坏原索引段
+     */
+    private void writeSegment() {
+        saveScheduled.set(false);
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(segmentPath.getParent());
+            final Path temp = segmentPath.resolveSibling(segmentPath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(lengths.size());
+                for (Map.Entry<Long, Float> length : lengths.entrySet()) {
+                    out.writeLong(length.getKey());
+                    out.writeLong(versions.get(length.getKey()));
+                    out.writeFloat(length.getValue());
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<String, Map<Long, Float>> posting : postings.entrySet()) {
+                    final byte[] bytes = posting.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    out.writeInt(posting.getValue().size());
+                    for (Map.Entry<Long, Float> frequency : posting.getValue().entrySet()) {
+                        out.writeLong(frequency.getKey());
+                        out.writeFloat(frequency.getValue());
+                    }
+                }
+            }
+            Files.move(temp, segmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to write search index segment: {}", e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 数据库中的时间只精确到秒
+     */
+    private long versionOf(PostCard card) {
+        return null == card.getPostUpdate() ? -1L : card.getPostUpdate().getTime() / 1000;
+    }
+
+    private PostCard copyOf(PostCard card) {
+        final PostCard copy = new PostCard();
+        copy.setPostId(card.getPostId());
+        copy.setPostTitle(card.getPostTitle());
+        copy.setPostUrl(card.getPostUrl());
+        copy.setPostSummary(card.getPostSummary());
+        copy.setPostThumbnail(card.getPostThumbnail());
+        copy.setPostDate(card.getPostDate());
+        copy.setPostUpdate(card.getPostUpdate());
+        copy.setPostViews(card.getPostViews());
+        copy.setAllowComment(card.getAllowComment());
+        return copy;
+    }
+}
@@ -0,0 +1,108 @@
+package com.xians.yaco.service.index;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * <pre>
+ *     全文检索分词器
+ *     拉丁字母和数字按词切分并转为小写；中日韩文字按二元组(bigram)切分，
+ *     建索引时额外保留单字，使单字查询也能命中
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public final class SearchTokenizer {
+
+    /**
+     * 清除HTML标签后残留的实体，如&amp;nbsp;
+     */
+    private static final Pattern HTML_ENTITY = Pattern.compile("&#?[a-zA-Z0-9]+;");
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 建索引时分词
+     *
+     * @param text text
+     * @return List
+     */
+    @NonNull
+    public static List<String> tokenize(@Nullable String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 查询时分词，连续的中日韩文字只产生二元组
+     *
+     * @param keyword keyword
+     * @return List
+     */
+    @NonNull
+    public static List<String> tokenizeQuery(@Nullable String keyword) {
+        return tokenize(keyword, true);
+    }
+
+    @NonNull
+    private static List<String> tokenize(@Nullable String text, boolean query) {
+        final List<String> tokens = new ArrayList<>();
+        if (null == text || text.isEmpty()) {
+            return tokens;
+        }
+        final String source = HTML_ENTITY.matcher(text).replaceAll(" ");
+        final StringBuilder word = new StringBuilder();
+        final List<String> cjk = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            final int codePoint = source.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                cjk.add(new String(Character.toChars(codePoint)));
+                continue;
+            }
+            flushCjk(cjk, tokens, query);
+            if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                flushWord(word, tokens);
+            }
+        }
+        flushCjk(cjk, tokens, query);
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<String> cjk, List<String> tokens, boolean query) {
+        if (cjk.isEmpty()) {
+            return;
+        }
+        if (!query || cjk.size() == 1) {
+            tokens.addAll(cjk);
+        }
+        for (int i = 1; i < cjk.size(); i++) {
+            tokens.add(cjk.get(i - 1) + cjk.get(i));
+        }
+        cjk.clear();
+    }
+
+    private static boolean isCjk(int codePoint) {
+        final Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,142 @@
+package com.xians.yaco.service.job;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <pre>
+ *     批量改写文章的一列
+ *     按文章编号分批读取源列和目标列，在独立的ForkJoinPool中并行由源列计算目标列，
+ *     只把目标列发生变化的文章批量写回数据库。重新渲染正文、更新摘要共用
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class PostColumnRewriter {
+
+    /**
+     * 每批读取的文章数，限制同时在内存中的正文
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("post-rewrite-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    public PostColumnRewriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 改写所有符合条件的文章
+     *
+     * @param selectSql 依次查询文章编号、源列、目标列，参数为上一批最后的文章编号和条数，
+     *                  如 SELECT post_id, a, b FROM halo_post WHERE post_id > ? ORDER BY post_id LIMIT ?
+     * @param updateSql 参数为目标列的新值和文章编号
+     * @param rewrite   由源列计算目标列，返回null时跳过
+     * @param onBatch   每批写回后调用，参数为本批文章数和目标列发生变化的文章编号
+     * @return 读取的文章数
+     */
+    public long rewrite(@NonNull String selectSql, @NonNull String updateSql,
+                        @NonNull Function<String, String> rewrite, @NonNull BatchListener onBatch) {
+        long total = 0;
+        long lastId = 0;
+        while (true) {
+            final List<Row> rows = jdbcTemplate.query(selectSql, (rs, rowNum) ->
+                    new Row(rs.getLong(1), rs.getString(2), rs.getString(3)), lastId, BATCH_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            total += rows.size();
+            lastId = rows.get(rows.size() - 1).postId;
+            final List<Row> changed = rewrite(rows, rewrite);
+            if (!changed.isEmpty()) {
+                transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(updateSql, changed, changed.size(), (ps, row) -> {
+                    ps.setString(1, row.target);
+                    ps.setLong(2, row.postId);
+                }));
+            }
+            final List<Long> changedIds = new ArrayList<>(changed.size());
+            for (Row row : changed) {
+                changedIds.add(row.postId);
+            }
+            onBatch.accept(rows.size(), changedIds);
+            if (rows.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 并行改写一批文章
+     *
+     * @return 目标列发生变化的文章，target为新的值
+     */
+    private List<Row> rewrite(List<Row> rows, Function<String, String> rewrite) {
+        try {
+            return pool.submit(() -> rows.parallelStream()
+                    .map(row -> {
+                        final String target = rewrite.apply(row.source);
+                        return null == target || Objects.equals(target, row.target) ? null : new Row(row.postId, row.source, target);
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rewrite interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 每批写回后的回调
+     */
+    public interface BatchListener {
+
+        void accept(int rows, List<Long> changedIds);
+    }
+
+    private static class Row {
+
+        private final long postId;
+
+        private final String source;
+
+        private final String target;
+
+        Row(long postId, String source, String target) {
+            this.postId = postId;
+            this.source = source;
+            this.target = target;
+        }
+    }
+}
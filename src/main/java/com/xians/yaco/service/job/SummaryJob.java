@@ -0,0 +1,158 @@
+package com.xians.yaco.service.job;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.HtmlUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <pre>
+ *     批量更新文章摘要
+ *     在后台线程中按文章编号分批读取正文，并行去除HTML标签截取摘要，
+ *     只把摘要发生变化的文章批量写回 post_summary 列；同一时间只运行一个任务，进度可随时查询
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class SummaryJob {
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM halo_post WHERE post_type = 'post'";
+
+    private static final String SELECT_SQL = "SELECT post_id, post_content, post_summary FROM halo_post"
+            + " WHERE post_type = 'post' AND post_id > ? ORDER BY post_id LIMIT ?";
+
+    private static final String UPDATE_SQL = "UPDATE halo_post SET post_summary = ? WHERE post_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PostColumnRewriter postColumnRewriter;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "summary-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Progress progress = new Progress(false, 0, 0, 0, 0, null);
+
+    public SummaryJob(JdbcTemplate jdbcTemplate, PostColumnRewriter postColumnRewriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postColumnRewriter = postColumnRewriter;
+    }
+
+    /**
+     * 在后台开始更新摘要
+     *
+     * @param length     摘要字数
+     * @param onComplete 有摘要变化时，任务完成后调用
+     * @return 已有任务在运行时为false
+     */
+    public boolean start(int length, @NonNull Runnable onComplete) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        progress = new Progress(true, 0, 0, 0, 0, null);
+        runner.execute(() -> {
+            try {
+                run(length, onComplete);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 当前或上一次任务的进度
+     *
+     * @return Progress
+     */
+    @NonNull
+    public Progress getProgress() {
+        return progress;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void run(int length, Runnable onComplete) {
+        final long start = System.currentTimeMillis();
+        //批次回调中累加
+        final long[] counts = new long[2];
+        long total = 0;
+        try {
+            total = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+            progress = new Progress(true, total, 0, 0, 0, null);
+            final long expected = total;
+            postColumnRewriter.rewrite(SELECT_SQL, UPDATE_SQL, content -> summarize(content, length), (rows, changedIds) -> {
+                counts[0] += rows;
+                counts[1] += changedIds.size();
+                progress = new Progress(true, Math.max(expected, counts[0]), counts[0], counts[1], System.currentTimeMillis() - start, null);
+            });
+            if (counts[1] > 0) {
+                onComplete.run();
+            }
+            progress = new Progress(false, counts[0], counts[0], counts[1], System.currentTimeMillis() - start, null);
+            log.info("Summaries of {} posts updated in {} ms, {} changed", counts[0], progress.durationMillis, counts[1]);
+        } catch (Exception e) {
+            log.error("Update summary failed after {} posts: {}", counts[0], e.getMessage());
+            if (counts[1] > 0) {
+                onComplete.run();
+            }
+            progress = new Progress(false, total, counts[0], counts[1], System.currentTimeMillis() - start, e.getMessage());
+        }
+    }
+
+    /**
+     * 去除HTML标签和空白后截取摘要
+     */
+    private static String summarize(String content, int length) {
+        final String text = StrUtil.cleanBlank(HtmlUtil.cleanHtmlTag(StrUtil.nullToEmpty(content)));
+        return text.length() > length ? text.substring(0, length) : text;
+    }
+
+    /**
+     * 任务进度
+     */
+    @Getter
+    public static class Progress {
+
+        private final boolean running;
+
+        private final long total;
+
+        private final long processed;
+
+        private final long changed;
+
+        private final long durationMillis;
+
+        /**
+         * 失败原因，成功时为null
+         */
+        private final String error;
+
+        Progress(boolean running, long total, long processed, long changed, long durationMillis, String error) {
+            this.running = running;
+            this.total = total;
+            this.processed = processed;
+            this.changed = changed;
+            this.durationMillis = durationMillis;
+            this.error = error;
+        }
+    }
+}
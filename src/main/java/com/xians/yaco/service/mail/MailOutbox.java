@@ -0,0 +1,317 @@
+package com.xians.yaco.service.mail;
+
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xians.yaco.model.domain.OutboxMail;
+import com.xians.yaco.model.enums.BlogPropertiesEnum;
+import com.xians.yaco.model.enums.TrueFalseEnum;
+import com.xians.yaco.repository.OutboxMailRepository;
+import freemarker.template.Template;
+import io.github.biezhi.ome.OhMyEmail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
+
+/**
+ * <pre>
+ *     邮件发件箱
+ *     请求线程只把邮件写入 halo_mail_outbox，由一个后台线程定时取出到期的邮件，
+ *     每批只建立一次SMTP连接发送；发给博主的新评论通知在DIGEST_SECONDS内合并为一封摘要。
+ *     发送失败的邮件按指数退避重试，超过MAX_ATTEMPTS次后保留在表中不再发送
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class MailOutbox {
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final int MAX_ATTEMPTS = 8;
+
+    private static final long MAX_BACKOFF_SECONDS = TimeUnit.HOURS.toSeconds(6);
+
+    private static final int SMTP_TIMEOUT_MILLIS = 10000;
+
+    private static final String DIGEST_TEMPLATE = "common/mail_template/mail_admin_digest.ftl";
+
+    private static final String SINGLE_DIGEST_TEMPLATE = "common/mail_template/mail_admin.ftl";
+
+    private static final TypeReference<Map<String, Object>> MODEL_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    private final OutboxMailRepository outboxMailRepository;
+
+    private final freemarker.template.Configuration configuration;
+
+    private final ObjectMapper objectMapper;
+
+    private final long pollSeconds;
+
+    private final long digestSeconds;
+
+    private final long retrySeconds;
+
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "mail-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MailOutbox(OutboxMailRepository outboxMailRepository,
+                      freemarker.template.Configuration configuration,
+                      ObjectMapper objectMapper,
+                      @Value("${yaco.mail.poll-seconds:5}") long pollSeconds,
+                      @Value("${yaco.mail.digest-seconds:60}") long digestSeconds,
+                      @Value("${yaco.mail.retry-seconds:30}") long retrySeconds) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.configuration = configuration;
+        this.objectMapper = objectMapper;
+        this.pollSeconds = Math.max(1, pollSeconds);
+        this.digestSeconds = Math.max(0, digestSeconds);
+        this.retrySeconds = Math.max(1, retrySeconds);
+    }
+
+    @PostConstruct
+    public void start() {
+        sender.scheduleWithFixedDelay(this::drain, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * 模板邮件放入发件箱，提交后尽快发送
+     *
+     * @param to           收件人
+     * @param subject      主题
+     * @param model        模板参数
+     * @param templateName 模板路径
+     */
+    public void enqueue(@NonNull String to, @NonNull String subject, @NonNull Map<String, Object> model, @NonNull String templateName) {
+        if (save(to, subject, model, templateName, false, 0)) {
+            wake();
+        }
+    }
+
+    /**
+     * 新评论通知放入发件箱，同一收件人DIGEST_SECONDS内的通知合并为一封摘要
+     *
+     * @param to    收件人
+     * @param model mail_admin.ftl的参数
+     */
+    public void enqueueDigest(@NonNull String to, @NonNull Map<String, Object> model) {
+        save(to, null, model, SINGLE_DIGEST_TEMPLATE, true, digestSeconds);
+    }
+
+    private boolean save(String to, String subject, Map<String, Object> model, String templateName, boolean digest, long delaySeconds) {
+        final Date now = new Date();
+        final OutboxMail mail = new OutboxMail();
+        mail.setMailTo(to);
+        mail.setMailSubject(subject);
+        mail.setMailTemplate(templateName);
+        mail.setMailDigest(digest);
+        mail.setMailCreated(now);
+        mail.setMailNextAttempt(new Date(now.getTime() + TimeUnit.SECONDS.toMillis(delaySeconds)));
+        try {
+            mail.setMailModel(objectMapper.writeValueAsString(model));
+            outboxMailRepository.save(mail);
+            return true;
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.error("Failed to queue mail to {}: {}", to, e.getMessage());
+            return false;
+        }
+    }
+
+    private void wake() {
+        try {
+            sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            //正在停机，下次启动后发送
+        }
+    }
+
+    /**
+     * 发送所有到期的邮件，只在发件线程中执行
+     */
+    private void drain() {
+        try {
+            if (!StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
+                return;
+            }
+            List<OutboxMail> due;
+            do {
+                due = outboxMailRepository.findByMailStatusAndMailNextAttemptLessThanEqualOrderByMailId(OutboxMail.PENDING, new Date(), PageRequest.of(0, BATCH_SIZE));
+                if (!due.isEmpty()) {
+                    send(due);
+                }
+            } while (due.size() == BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Failed to drain mail outbox: {}", e.getMessage());
+        }
+    }
+
+    private void send(List<OutboxMail> due) {
+        final JavaMailSenderImpl mailSender = mailSender();
+        final Map<MimeMessage, List<OutboxMail>> messages = new LinkedHashMap<>();
+        final Map<OutboxMail, String> failed = new HashMap<>();
+        final Set<String> digested = new HashSet<>();
+        for (OutboxMail mail : due) {
+            List<OutboxMail> rows = null;
+            if (mail.getMailDigest()) {
+                if (digested.add(mail.getMailTo())) {
+                    //到期后连同尚未到期的一起发送
+                    rows = outboxMailRepository.findByMailStatusAndMailDigestTrueAndMailToOrderByMailId(OutboxMail.PENDING, mail.getMailTo());
+                }
+            } else {
+                rows = new ArrayList<>(1);
+                rows.add(mail);
+            }
+            if (null == rows || rows.isEmpty()) {
+                continue;
+            }
+            try {
+                messages.put(message(mailSender, rows), rows);
+            } catch (Exception e) {
+                rows.forEach(row -> failed.put(row, e.getMessage()));
+            }
+        }
+        final List<OutboxMail> sent = new ArrayList<>();
+        if (!messages.isEmpty()) {
+            try {
+                //同一批邮件共用一个SMTP连接
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+                messages.values().forEach(sent::addAll);
+            } catch (MailSendException e) {
+                final Map<Object, Exception> failedMessages = e.getFailedMessages();
+                messages.forEach((message, rows) -> {
+                    final Exception cause = failedMessages.get(message);
+                    if (failedMessages.isEmpty() || null != cause) {
+                        final String error = null == cause ? e.getMessage() : cause.getMessage();
+                        rows.forEach(row -> failed.put(row, error));
+                    } else {
+                        sent.addAll(rows);
+                    }
+                });
+            } catch (MailException e) {
+                messages.values().forEach(rows -> rows.forEach(row -> failed.put(row, e.getMessage())));
+            }
+        }
+        if (!sent.isEmpty()) {
+            outboxMailRepository.deleteAll(sent);
+        }
+        if (!failed.isEmpty()) {
+            outboxMailRepository.saveAll(retry(failed));
+        }
+        log.debug("Mail outbox sent {} mails, {} failed", sent.size(), failed.size());
+    }
+
+    /**
+     * 按失败次数推迟下次发送
+     */
+    private List<OutboxMail> retry(Map<OutboxMail, String> failed) {
+        final long now = System.currentTimeMillis();
+        final List<OutboxMail> rows = new ArrayList<>(failed.size());
+        failed.forEach((row, error) -> {
+            final int attempts = row.getMailAttempts() + 1;
+            row.setMailAttempts(attempts);
+            row.setMailError(StrUtil.sub(error, 0, 255));
+            final long backoff = Math.min(MAX_BACKOFF_SECONDS, retrySeconds << Math.min(attempts - 1, 20));
+            row.setMailNextAttempt(new Date(now + TimeUnit.SECONDS.toMillis(backoff)));
+            if (attempts >= MAX_ATTEMPTS) {
+                row.setMailStatus(OutboxMail.FAILED);
+                log.warn("Giving up mail {} to {} after {} attempts: {}", row.getMailId(), row.getMailTo(), attempts, error);
+            }
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    private MimeMessage message(JavaMailSenderImpl mailSender, List<OutboxMail> rows) throws Exception {
+        final OutboxMail first = rows.get(0);
+        final String subject;
+        final String html;
+        if (first.getMailDigest() && rows.size() > 1) {
+            final List<Map<String, Object>> comments = new ArrayList<>(rows.size());
+            for (OutboxMail row : rows) {
+                comments.add(model(row));
+            }
+            final Map<String, Object> model = new HashMap<>(2);
+            model.put("author", comments.get(0).get("author"));
+            model.put("comments", comments);
+            subject = "有" + rows.size() + "条新的评论";
+            html = render(DIGEST_TEMPLATE, model);
+        } else {
+            subject = first.getMailDigest() ? "有新的评论" : first.getMailSubject();
+            html = render(first.getMailTemplate(), model(first));
+        }
+        final MimeMessage message = mailSender.createMimeMessage();
+        final MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+        helper.setFrom(mailSender.getUsername(), OPTIONS.get(BlogPropertiesEnum.MAIL_FROM_NAME.getProp()));
+        helper.setTo(first.getMailTo());
+        helper.setSubject(subject);
+        helper.setText(html, true);
+        return message;
+    }
+
+    private Map<String, Object> model(OutboxMail mail) throws IOException {
+        return objectMapper.readValue(mail.getMailModel(), MODEL_TYPE);
+    }
+
+    private String render(String templateName, Map<String, Object> model) throws Exception {
+        final Template template = configuration.getTemplate(templateName);
+        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    }
+
+    /**
+     * 每批按当前设置创建，设置修改后下一批生效
+     */
+    private JavaMailSenderImpl mailSender() {
+        final String host = OPTIONS.get(BlogPropertiesEnum.MAIL_SMTP_HOST.getProp());
+        final Properties properties = OhMyEmail.defaultConfig(false);
+        properties.setProperty("mail.smtp.host", StrUtil.nullToEmpty(host));
+        properties.setProperty("mail.smtp.connectiontimeout", String.valueOf(SMTP_TIMEOUT_MILLIS));
+        properties.setProperty("mail.smtp.timeout", String.valueOf(SMTP_TIMEOUT_MILLIS));
+        final JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(host);
+        mailSender.setUsername(OPTIONS.get(BlogPropertiesEnum.MAIL_SMTP_USERNAME.getProp()));
+        mailSender.setPassword(OPTIONS.get(BlogPropertiesEnum.MAIL_SMTP_PASSWORD.getProp()));
+        mailSender.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        mailSender.setJavaMailProperties(properties);
+        return mailSender;
+    }
+}
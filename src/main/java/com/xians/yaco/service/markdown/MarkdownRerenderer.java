@@ -0,0 +1,51 @@
+package com.xians.yaco.service.markdown;
+
+import com.xians.yaco.service.job.PostColumnRewriter;
+import com.xians.yaco.utils.MarkdownUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <pre>
+ *     批量重新渲染文章
+ *     渲染插件变化后，按文章编号分批读取Markdown并行渲染，
+ *     只把HTML发生变化的文章批量写回数据库；同一时间只允许一次重新渲染
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class MarkdownRerenderer {
+
+    private static final String SELECT_SQL = "SELECT post_id, post_content_md, post_content FROM halo_post WHERE post_id > ? ORDER BY post_id LIMIT ?";
+
+    private static final String UPDATE_SQL = "UPDATE halo_post SET post_content = ? WHERE post_id = ?";
+
+    private final PostColumnRewriter postColumnRewriter;
+
+    public MarkdownRerenderer(PostColumnRewriter postColumnRewriter) {
+        this.postColumnRewriter = postColumnRewriter;
+    }
+
+    /**
+     * 重新渲染所有文章和页面
+     *
+     * @return HTML发生变化的文章编号
+     */
+    @NonNull
+    public synchronized List<Long> rerenderAll() {
+        final long start = System.currentTimeMillis();
+        final List<Long> changed = new ArrayList<>();
+        final long total = postColumnRewriter.rewrite(SELECT_SQL, UPDATE_SQL,
+                markdown -> null == markdown ? null : MarkdownUtils.renderUncached(markdown).getHtml(),
+                (rows, changedIds) -> changed.addAll(changedIds));
+        log.info("Re-rendered {} posts in {} ms with {}, {} changed", total, System.currentTimeMillis() - start,
+                MarkdownUtils.RENDERER_VERSION, changed.size());
+        return changed;
+    }
+}
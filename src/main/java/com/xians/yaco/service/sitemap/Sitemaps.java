@@ -0,0 +1,271 @@
+package com.xians.yaco.service.sitemap;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.XmlUtil;
+import com.xians.yaco.event.OptionsChangedEvent;
+import com.xians.yaco.event.PostChangedEvent;
+import com.xians.yaco.model.enums.BlogPropertiesEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
+
+/**
+ * <pre>
+ *     站点地图
+ *     按文章编号每MAX_URLS篇分为一段，通过流式游标只读取路径和修改时间，逐行写入 ~/halo/sitemap 下的文件；
+ *     文章不超过MAX_URLS篇时 sitemap.xml 直接包含全部地址，超过后 sitemap.xml 为索引，指向各段的 sitemap-N.xml。
+ *     文章变更只重新生成所在的段和索引，内存占用与文章数无关
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class Sitemaps {
+
+    /**
+     * 协议规定单个站点地图最多50000个地址
+     */
+    public static final int MAX_URLS = 50000;
+
+    private static final String BLOCK_SQL = "FLOOR((post_id - 1) / " + MAX_URLS + ")";
+
+    private static final String STATS_SQL = "SELECT " + BLOCK_SQL + " AS block, COUNT(*) AS urls, MAX(COALESCE(post_update, post_date)) AS lastmod"
+            + " FROM halo_post WHERE post_status = 0 AND post_type = 'post' GROUP BY " + BLOCK_SQL;
+
+    private static final String URLS_SQL = "SELECT post_url, post_date, post_update FROM halo_post"
+            + " WHERE post_status = 0 AND post_type = 'post' AND post_id > ? AND post_id <= ? ORDER BY post_id";
+
+    private static final String SITEMAP_FILE = "sitemap.xml";
+
+    private static final DateTimeFormatter LASTMOD = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Path directory = Paths.get(System.getProperties().getProperty("user.home"), "halo", "sitemap");
+
+    /**
+     * 需要重新生成的段
+     */
+    private final Set<Long> dirtyBlocks = new HashSet<>();
+
+    private boolean allDirty = true;
+
+    /**
+     * 当前 sitemap.xml 是否为索引
+     */
+    private boolean indexed;
+
+    public Sitemaps(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        //MySQL驱动在fetchSize为Integer.MIN_VALUE时逐行读取结果，不把整个结果集放入内存
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * sitemap.xml，需要时先重新生成
+     *
+     * @return Path
+     * @throws IOException IOException
+     */
+    @NonNull
+    public synchronized Path sitemap() throws IOException {
+        refresh();
+        return directory.resolve(SITEMAP_FILE);
+    }
+
+    /**
+     * 索引中的第N段
+     *
+     * @param number 从1开始
+     * @return 不存在时为null
+     * @throws IOException IOException
+     */
+    @Nullable
+    public synchronized Path child(int number) throws IOException {
+        refresh();
+        if (!indexed || number < 1) {
+            return null;
+        }
+        final Path path = directory.resolve(childName(number - 1));
+        return Files.exists(path) ? path : null;
+    }
+
+    @EventListener
+    public synchronized void onPostChanged(PostChangedEvent event) {
+        if (null == event.getPostId()) {
+            allDirty = true;
+        } else {
+            dirtyBlocks.add((event.getPostId() - 1) / MAX_URLS);
+        }
+    }
+
+    @EventListener
+    public synchronized void onOptionsChanged(OptionsChangedEvent event) {
+        //站点地址可能变化
+        allDirty = true;
+    }
+
+    private void refresh() throws IOException {
+        if (!allDirty && dirtyBlocks.isEmpty()) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        final Map<Long, Block> blocks = new TreeMap<>();
+        jdbcTemplate.query(STATS_SQL, rs -> {
+            final long block = rs.getLong("block");
+            blocks.put(block, new Block(block, rs.getLong("urls"), rs.getTimestamp("lastmod")));
+        });
+        final long total = blocks.values().stream().mapToLong(block -> block.urls).sum();
+        final boolean nowIndexed = total > MAX_URLS;
+        final boolean rebuild = allDirty || nowIndexed != indexed;
+        final String blogUrl = StrUtil.nullToEmpty(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
+        int written = 0;
+        if (nowIndexed) {
+            for (Block block : blocks.values()) {
+                if (rebuild || dirtyBlocks.contains(block.number)) {
+                    writeUrlset(childName(block.number), blogUrl, block.number * MAX_URLS, (block.number + 1) * MAX_URLS);
+                    written++;
+                }
+            }
+            deleteChildren(blocks.keySet());
+            writeIndex(blogUrl, blocks);
+        } else {
+            writeUrlset(SITEMAP_FILE, blogUrl, 0, Long.MAX_VALUE);
+            deleteChildren(new HashSet<>());
+        }
+        indexed = nowIndexed;
+        allDirty = false;
+        dirtyBlocks.clear();
+        log.debug("Sitemap refreshed in {} ms: {} urls, {} child sitemaps written", System.currentTimeMillis() - start, total, written);
+    }
+
+    /**
+     * 流式读取(fromId, toId]之间的文章写入站点地图
+     */
+    private void writeUrlset(String name, String blogUrl, long fromId, long toId) throws IOException {
+        write(name, writer -> {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+            try {
+                jdbcTemplate.query(URLS_SQL, rs -> {
+                    try {
+                        final Timestamp update = rs.getTimestamp("post_update");
+                        writer.write("    <url>\n        <loc>");
+                        writer.write(XmlUtil.escape(blogUrl + "/archives/" + rs.getString("post_url")));
+                        writer.write("</loc>\n        <lastmod>");
+                        writer.write(lastmod(null != update ? update : rs.getTimestamp("post_date")));
+                        writer.write("</lastmod>\n    </url>\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, fromId, toId);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.write("</urlset>\n");
+        });
+    }
+
+    private void writeIndex(String blogUrl, Map<Long, Block> blocks) throws IOException {
+        write(SITEMAP_FILE, writer -> {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+            for (Block block : blocks.values()) {
+                writer.write("    <sitemap>\n        <loc>");
+                writer.write(XmlUtil.escape(blogUrl + "/" + childName(block.number)));
+                writer.write("</loc>\n");
+                if (null != block.lastmod) {
+                    writer.write("        <lastmod>");
+                    writer.write(lastmod(block.lastmod));
+                    writer.write("</lastmod>\n");
+                }
+                writer.write("    </sitemap>\n");
+            }
+            writer.write("</sitemapindex>\n");
+        });
+    }
+
+    /**
+     * 先写临时文件再替换，正在输出的旧文件不受影响
+     */
+    private void write(String name, Content content) throws IOException {
+        final Path temp = Files.createTempFile(directory, name, ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                content.writeTo(writer);
+            }
+            Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 删除已经没有文章的段
+     */
+    private void deleteChildren(Set<Long> keep) throws IOException {
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory, "sitemap-*.xml")) {
+            for (Path child : children) {
+                final String number = StrUtil.subBetween(child.getFileName().toString(), "sitemap-", ".xml");
+                if (!NumberUtil.isInteger(number) || !keep.contains(Long.parseLong(number) - 1)) {
+                    Files.deleteIfExists(child);
+                }
+            }
+        }
+    }
+
+    private static String childName(long block) {
+        return "sitemap-" + (block + 1) + ".xml";
+    }
+
+    private static String lastmod(Timestamp timestamp) {
+        return timestamp.toInstant().atZone(ZoneId.systemDefault()).truncatedTo(ChronoUnit.SECONDS).format(LASTMOD);
+    }
+
+    private interface Content {
+
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    private static class Block {
+
+        private final long number;
+
+        private final long urls;
+
+        private final Timestamp lastmod;
+
+        Block(long number, long urls, Timestamp lastmod) {
+            this.number = number;
+            this.urls = urls;
+            this.lastmod = lastmod;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.xians.yaco.service.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <pre>
+ *     文章阅读数计数器
+ *     每篇文章一个LongAdder，请求线程在所在桶的锁内累加；每秒将新增量批量写入预写日志(~/halo/views)，
+ *     定时任务取出已写日志的增量，批量执行 post_views = post_views + ? 写回数据库后删除日志段。
+ *     启动时重放日志，正常停机时写回数据库。
+ *     独立访客数用每篇文章一个HyperLogLog估计，写回时与 halo_post_visitor_sketch 中的寄存器合并。
+ *     取空的计数器和已写回的估计器会被移除，下次访问时重新创建，估计器写回时再与数据库中的合并
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class PostViewCounter {
+
+    private static final String FLUSH_SQL = "UPDATE halo_post SET post_views = post_views + ? WHERE post_id = ?";
+
+    /**
+     * 文章还没有寄存器时先插入空行，保证下面的SELECT ... FOR UPDATE能锁住这一行
+     */
+    private static final String SKETCH_INSERT_SQL = "INSERT IGNORE INTO halo_post_visitor_sketch (post_id) SELECT post_id FROM halo_post WHERE post_id = ?";
+
+    private static final String SKETCH_SELECT_SQL = "SELECT post_id, visitor_sketch FROM halo_post_visitor_sketch WHERE post_id IN (%s) FOR UPDATE";
+
+    private static final String SKETCH_UPDATE_SQL = "UPDATE halo_post_visitor_sketch SET visitor_sketch = ? WHERE post_id = ?";
+
+    private static final String VISITORS_UPDATE_SQL = "UPDATE halo_post SET post_visitors = ? WHERE post_id = ?";
+
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 写日志的间隔，进程崩溃时最多丢失这段时间内的阅读数
+     */
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 尚未写入日志的增量
+     */
+    private final ConcurrentHashMap<Long, LongAdder> unjournaled = new ConcurrentHashMap<>();
+
+    /**
+     * 已写入日志、尚未写入数据库的增量，与未删除的日志段内容一致
+     */
+    private final ConcurrentHashMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 上次写回以来有访问的文章的访客估计器，写回成功且期间没有新访客时移除
+     */
+    private final ConcurrentHashMap<Long, HyperLogLog> sketches = new ConcurrentHashMap<>();
+
+    /**
+     * 有新访客尚未写回数据库的文章
+     */
+    private final Set<Long> dirtySketches = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "post-view-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ViewJournal journal;
+
+    public PostViewCounter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 阅读数加一
+     *
+     * @param postId postId
+     */
+    public void increment(@NonNull Long postId) {
+        add(unjournaled, postId, 1L);
+    }
+
+    /**
+     * 记录一次访问的访客指纹
+     *
+     * @param postId      postId
+     * @param fingerprint 访客指纹的64位哈希
+     */
+    public void offerVisitor(@NonNull Long postId, long fingerprint) {
+        //与写回后的移除互斥，记录的访客不会落在已移除的估计器中
+        sketches.compute(postId, (key, sketch) -> {
+            final HyperLogLog target = null == sketch ? new HyperLogLog() : sketch;
+            target.offer(fingerprint);
+            dirtySketches.add(key);
+            return target;
+        });
+    }
+
+    /**
+     * 尚未写入数据库的阅读数
+     *
+     * @param postId postId
+     * @return long
+     */
+    public long pending(@NonNull Long postId) {
+        final LongAdder counter = counters.get(postId);
+        final LongAdder buffered = unjournaled.get(postId);
+        return (null == counter ? 0L : counter.sum()) + (null == buffered ? 0L : buffered.sum());
+    }
+
+    /**
+     * 重放上次退出时未写入数据库的日志并开始写日志，启动时调用
+     */
+    public void replay() {
+        synchronized (this) {
+            if (null != journal) {
+                return;
+            }
+            final ViewJournal opened = new ViewJournal(Paths.get(System.getProperties().getProperty("user.home"), "halo", "views"));
+            try {
+                final Map<Long, Long> replayed = opened.open();
+                replayed.forEach((postId, delta) -> add(counters, postId, delta));
+                journal = opened;
+                log.info("View journal replayed: {} posts", replayed.size());
+            } catch (IOException e) {
+                log.error("Failed to open view journal, views are kept in memory only: {}", e.getMessage());
+            }
+            syncer.scheduleWithFixedDelay(this::sync, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            log.error("Failed to write replayed views: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将新增量写入日志，再转入待写数据库的计数器
+     */
+    public synchronized void sync() {
+        final List<long[]> deltas = drain(unjournaled);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (null != journal) {
+            try {
+                journal.append(deltas);
+            } catch (IOException e) {
+                log.error("Failed to append view journal: {}", e.getMessage());
+            }
+        }
+        for (long[] delta : deltas) {
+            add(counters, delta[0], delta[1]);
+        }
+    }
+
+    /**
+     * 将累计的增量写入数据库并删除对应的日志段，失败时增量退回计数器，等待下次写入
+     *
+     * @return 更新的文章数
+     */
+    public synchronized int flush() {
+        sync();
+        if (null != journal) {
+            try {
+                journal.rotate();
+            } catch (IOException e) {
+                log.error("Failed to rotate view journal: {}", e.getMessage());
+            }
+        }
+        final List<long[]> deltas = drain(counters);
+        final List<Long> visited = new ArrayList<>();
+        for (Iterator<Long> iterator = dirtySketches.iterator(); iterator.hasNext(); ) {
+            visited.add(iterator.next());
+            iterator.remove();
+        }
+        if (!deltas.isEmpty() || !visited.isEmpty()) {
+            try {
+                transactionTemplate.execute(status -> {
+                    if (!deltas.isEmpty()) {
+                        jdbcTemplate.batchUpdate(FLUSH_SQL, deltas, BATCH_SIZE, (ps, delta) -> {
+                            ps.setLong(1, delta[1]);
+                            ps.setLong(2, delta[0]);
+                        });
+                    }
+                    for (int from = 0; from < visited.size(); from += BATCH_SIZE) {
+                        saveSketches(visited.subList(from, Math.min(from + BATCH_SIZE, visited.size())));
+                    }
+                    return null;
+                });
+            } catch (DataAccessException e) {
+                for (long[] delta : deltas) {
+                    add(counters, delta[0], delta[1]);
+                }
+                dirtySketches.addAll(visited);
+                throw e;
+            }
+        }
+        for (Long postId : visited) {
+            sketches.computeIfPresent(postId, (key, sketch) -> dirtySketches.contains(key) ? sketch : null);
+        }
+        if (null != journal) {
+            journal.deleteClosed();
+        }
+        return deltas.size();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        syncer.shutdownNow();
+        try {
+            flush();
+        } catch (DataAccessException e) {
+            log.error("Failed to write views on shutdown, they will be replayed from the journal: {}", e.getMessage());
+        }
+        if (null != journal) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close view journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 锁定数据库中的寄存器，与内存中的合并后写回，多个节点并发写回也不会丢失访客
+     */
+    private void saveSketches(List<Long> postIds) {
+        final List<Object[]> ids = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            ids.add(new Object[]{postId});
+        }
+        jdbcTemplate.batchUpdate(SKETCH_INSERT_SQL, ids);
+        final String placeholders = String.join(",", Collections.nCopies(postIds.size(), "?"));
+        final List<Object[]> sketchUpdates = new ArrayList<>();
+        final List<Object[]> visitorUpdates = new ArrayList<>();
+        jdbcTemplate.query(String.format(SKETCH_SELECT_SQL, placeholders), postIds.toArray(), (RowCallbackHandler) rs -> {
+            final long postId = rs.getLong(1);
+            final HyperLogLog merged = HyperLogLog.fromBytes(sketches.get(postId).toBytes());
+            merged.merge(rs.getBytes(2));
+            sketchUpdates.add(new Object[]{merged.toBytes(), postId});
+            visitorUpdates.add(new Object[]{merged.estimate(), postId});
+        });
+        if (!sketchUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(SKETCH_UPDATE_SQL, sketchUpdates);
+            jdbcTemplate.batchUpdate(VISITORS_UPDATE_SQL, visitorUpdates);
+        }
+    }
+
+    /**
+     * 在桶的锁内累加，与取空后的移除互斥，不会累加到已移除的计数器上
+     */
+    private static void add(ConcurrentHashMap<Long, LongAdder> target, Long postId, long delta) {
+        if (delta != 0) {
+            target.compute(postId, (key, counter) -> {
+                final LongAdder adder = null == counter ? new LongAdder() : counter;
+                adder.add(delta);
+                return adder;
+            });
+        }
+    }
+
+    /**
+     * 读取当前值后减去同样的数，期间并发的累加不会丢失；取空的计数器随即移除
+     *
+     * @return [postId, delta]
+     */
+    @NonNull
+    private static List<long[]> drain(ConcurrentHashMap<Long, LongAdder> source) {
+        final List<long[]> deltas = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> entry : source.entrySet()) {
+            final long delta = entry.getValue().sum();
+            if (delta != 0) {
+                entry.getValue().add(-delta);
+                deltas.add(new long[]{entry.getKey(), delta});
+            }
+            source.computeIfPresent(entry.getKey(), (key, counter) -> counter.sum() == 0 ? null : counter);
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,45 @@
+package com.xians.yaco.service.view;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Locale;
+
+/**
+ * <pre>
+ *     User-Agent分类
+ *     识别搜索引擎爬虫、订阅阅读器、命令行工具和链接预览等非人工访问，这类请求不计入阅读数
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public final class UserAgentClassifier {
+
+    private static final String[] BOT_MARKERS = {
+            "bot", "spider", "crawl", "slurp", "archiver", "feed", "rss", "reader",
+            "curl", "wget", "httpclient", "http-client", "okhttp", "python", "java/", "go-http", "libwww", "scrapy",
+            "headless", "phantomjs", "lighthouse", "pingdom", "uptime", "monitor",
+            "facebookexternalhit", "preview", "embedly", "whatsapp", "telegram"
+    };
+
+    private UserAgentClassifier() {
+    }
+
+    /**
+     * 是否为非人工访问，User-Agent为空也视为非人工访问
+     *
+     * @param userAgent userAgent
+     * @return boolean
+     */
+    public static boolean isBot(@Nullable String userAgent) {
+        if (null == userAgent || userAgent.length() < 10) {
+            return true;
+        }
+        final String ua = userAgent.toLowerCase(Locale.ROOT);
+        for (String marker : BOT_MARKERS) {
+            if (ua.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,180 @@
+package com.xians.yaco.service.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <pre>
+ *     阅读数预写日志
+ *     按段追加写入，每批记录为 [条数][(文章编号, 增量)...][CRC32]，写入后立即fsync；
+ *     重放时遇到未写完或校验失败的批次即停止读取该段
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+class ViewJournal {
+
+    private static final String SEGMENT_PREFIX = "views-";
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+
+    private final List<Path> closedSegments = new ArrayList<>();
+
+    private FileChannel channel;
+
+    private long sequence;
+
+    ViewJournal(@NonNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 读取已有的日志段并打开新的日志段，已有的日志段在下次 {@link #deleteClosed()} 时删除
+     *
+     * @return 文章编号 -> 增量
+     * @throws IOException IOException
+     */
+    @NonNull
+    Map<Long, Long> open() throws IOException {
+        Files.createDirectories(directory);
+        final Map<Long, Long> deltas = new HashMap<>();
+        final List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        segments.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        for (Path segment : segments) {
+            read(segment, deltas);
+            sequence = Math.max(sequence, sequenceOf(segment));
+            closedSegments.add(segment);
+        }
+        openSegment();
+        return deltas;
+    }
+
+    /**
+     * 追加一批记录并刷盘
+     *
+     * @param deltas [文章编号, 增量]
+     * @throws IOException IOException
+     */
+    void append(@NonNull List<long[]> deltas) throws IOException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + deltas.size() * 16 + 8);
+        buffer.putInt(deltas.size());
+        for (long[] delta : deltas) {
+            buffer.putLong(delta[0]);
+            buffer.putLong(delta[1]);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * 关闭当前日志段并开始新的日志段
+     *
+     * @throws IOException IOException
+     */
+    void rotate() throws IOException {
+        if (channel.size() == 0) {
+            return;
+        }
+        channel.close();
+        closedSegments.add(segmentPath(sequence));
+        openSegment();
+    }
+
+    /**
+     * 删除已关闭的日志段，其中的增量已写入数据库
+     */
+    void deleteClosed() {
+        for (Path segment : closedSegments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("Failed to delete view journal segment {}: {}", segment, e.getMessage());
+            }
+        }
+        closedSegments.clear();
+    }
+
+    void close() throws IOException {
+        if (null != channel) {
+            channel.close();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        sequence++;
+        channel = FileChannel.open(segmentPath(sequence), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long seq) {
+        return directory.resolve(SEGMENT_PREFIX + seq + SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path segment) {
+        final String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static void read(Path segment, Map<Long, Long> deltas) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            while (true) {
+                final int count = in.readInt();
+                if (count <= 0 || count > Files.size(segment) / 16) {
+                    log.warn("View journal segment {} has a corrupt batch, ignoring the rest", segment.getFileName());
+                    return;
+                }
+                final ByteBuffer buffer = ByteBuffer.allocate(4 + count * 16);
+                buffer.putInt(count);
+                in.readFully(buffer.array(), 4, count * 16);
+                final CRC32 crc = new CRC32();
+                crc.update(buffer.array(), 0, buffer.capacity());
+                if (crc.getValue() != in.readLong()) {
+                    log.warn("View journal segment {} has a corrupt batch, ignoring the rest", segment.getFileName());
+                    return;
+                }
+                buffer.position(4);
+                for (int i = 0; i < count; i++) {
+                    deltas.merge(buffer.getLong(), buffer.getLong(), Long::sum);
+                }
+            }
+        } catch (EOFException e) {
+            // 最后一批未写完，丢弃
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.xians.yaco.service.warmup;
+
+import cn.hutool.core.util.StrUtil;
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.enums.PostStatusEnum;
+import com.xians.yaco.service.PostService;
+import com.xians.yaco.utils.HaloUtils;
+import com.xians.yaco.web.controller.core.BaseController;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <pre>
+ *     启动预热
+ *     应用启动后在固定大小的线程池中并行编译当前主题的全部模板，并以爬虫身份请求首页、归档、
+ *     订阅和阅读数最多的文章，填充缓存和页面缓存；完成或超时后才报告就绪
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Slf4j
+@Component
+public class WarmUp {
+
+    /**
+     * 爬虫身份的User-Agent，预热请求不计入阅读数
+     */
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; yaco-warmup-bot)";
+
+    private static final String[] FEED_PATHS = {"/archives", "/feed.xml", "/atom.xml", "/sitemap.xml"};
+
+    private final freemarker.template.Configuration configuration;
+
+    private final PostService postService;
+
+    private final boolean enabled;
+
+    private final int threads;
+
+    private final int indexPages;
+
+    private final int topPosts;
+
+    private final int timeoutSeconds;
+
+    private final int requestTimeoutMillis;
+
+    private volatile boolean ready;
+
+    private volatile long durationMillis = -1;
+
+    public WarmUp(freemarker.template.Configuration configuration,
+                  PostService postService,
+                  @Value("${yaco.warm-up.enabled:true}") boolean enabled,
+                  @Value("${yaco.warm-up.threads:4}") int threads,
+                  @Value("${yaco.warm-up.index-pages:3}") int indexPages,
+                  @Value("${yaco.warm-up.top-posts:20}") int topPosts,
+                  @Value("${yaco.warm-up.timeout-seconds:120}") int timeoutSeconds,
+                  @Value("${yaco.warm-up.request-timeout-millis:10000}") int requestTimeoutMillis) {
+        this.configuration = configuration;
+        this.postService = postService;
+        this.enabled = enabled;
+        this.threads = Math.max(1, threads);
+        this.indexPages = indexPages;
+        this.topPosts = topPosts;
+        this.timeoutSeconds = timeoutSeconds;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    /**
+     * 在后台线程中预热，不阻塞启动
+     *
+     * @param port 本机端口
+     */
+    public void start(int port) {
+        if (!enabled) {
+            durationMillis = 0;
+            ready = true;
+            log.info("Warm-up is disabled, ready");
+            return;
+        }
+        final Thread thread = new Thread(() -> run("http://127.0.0.1:" + port), "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 预热是否已完成
+     *
+     * @return boolean
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 预热耗时，未完成时为-1
+     *
+     * @return long
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    private void run(String baseUrl) {
+        final long start = System.currentTimeMillis();
+        final AtomicInteger templates = new AtomicInteger();
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final String theme = BaseController.THEME;
+        for (String name : HaloUtils.getTplName(theme)) {
+            tasks.add(() -> {
+                try {
+                    configuration.getTemplate("themes/" + theme + "/" + name);
+                    templates.incrementAndGet();
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    log.warn("Warm-up failed to compile template {}: {}", name, e.getMessage());
+                }
+                return null;
+            });
+        }
+        for (String path : paths()) {
+            tasks.add(() -> {
+                if (fetch(baseUrl + path)) {
+                    pages.incrementAndGet();
+                } else {
+                    failures.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "warm-up-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int timedOut = 0;
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks, timeoutSeconds, TimeUnit.SECONDS)) {
+                try {
+                    future.get();
+                } catch (CancellationException e) {
+                    timedOut++;
+                } catch (ExecutionException e) {
+                    failures.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            durationMillis = System.currentTimeMillis() - start;
+            ready = true;
+        }
+        log.info("Warm-up finished in {} ms: {} templates, {} pages, {} failed, {} timed out, ready",
+                durationMillis, templates.get(), pages.get(), failures.get(), timedOut);
+    }
+
+    /**
+     * 需要预热的页面：首页前几页、归档、订阅、站点地图、阅读数最多的文章
+     */
+    private List<String> paths() {
+        final List<String> paths = new ArrayList<>();
+        paths.add("/");
+        for (int page = 2; page <= indexPages; page++) {
+            paths.add("/page/" + page);
+        }
+        for (String path : FEED_PATHS) {
+            paths.add(path);
+        }
+        try {
+            int count = 0;
+            for (Post post : postService.hotPosts()) {
+                if (count >= topPosts) {
+                    break;
+                }
+                if (PostStatusEnum.PUBLISHED.getCode().equals(post.getPostStatus()) && StrUtil.isEmpty(post.getPostPassword())) {
+                    paths.add("/archives/" + post.getPostUrl());
+                    count++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Warm-up failed to list hot posts: {}", e.getMessage());
+        }
+        return paths;
+    }
+
+    /**
+     * 请求页面并读完响应，使页面缓存过滤器写入缓存
+     */
+    private boolean fetch(String url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+            connection.setConnectTimeout(requestTimeoutMillis);
+            connection.setReadTimeout(requestTimeoutMillis);
+            connection.setInstanceFollowRedirects(false);
+            final int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                log.warn("Warm-up request {} returned {}", url, status);
+                return false;
+            }
+            try (InputStream in = connection.getInputStream()) {
+                final byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    //丢弃响应内容
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Warm-up request {} failed: {}", url, e.getMessage());
+            return false;
+        } finally {
+            if (null != connection) {
+                connection.disconnect();
+            }
+        }
+    }
+}
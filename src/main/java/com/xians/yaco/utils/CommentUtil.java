@@ -3,40 +3,45 @@ package com.xians.yaco.utils;
 import com.xians.yaco.model.domain.Comment;
 import org.apache.commons.collections.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * 组装评论
  */
 public class CommentUtil {
 
+    /**
+     * 按上级评论组装评论树，先按commentParent建立索引，只遍历两次
+     *
+     * @param allComments 同一篇文章的评论，按评论编号升序
+     * @return 顶级评论，最新的在前；子评论按原顺序
+     */
     public static List<Comment> getComments(List<Comment> allComments) {
         if (CollectionUtils.isEmpty(allComments)) {
             return Collections.emptyList();
         }
-        List<Comment> levelFirstComments = allComments.stream()
-                .filter(x -> x.getCommentParent() == 0).collect(Collectors.toList());
-        getCommentsRecursion(allComments, levelFirstComments);
+        final Map<Long, List<Comment>> children = new HashMap<>(allComments.size() * 2);
+        for (Comment comment : allComments) {
+            final Long parent = parentOf(comment);
+            //上级是自己的评论无法显示
+            if (!parent.equals(comment.getCommentId())) {
+                children.computeIfAbsent(parent, key -> new ArrayList<>()).add(comment);
+            }
+        }
+        for (Comment comment : allComments) {
+            final List<Comment> sonComments = children.get(comment.getCommentId());
+            comment.setChildComments(null == sonComments ? null : Collections.unmodifiableList(sonComments));
+        }
+        final List<Comment> levelFirstComments = children.getOrDefault(0L, new ArrayList<>());
         Collections.reverse(levelFirstComments);
         return levelFirstComments;
     }
 
-    public static List<Comment> getChildComments(Long commentId, List<Comment> otherLevelComments) {
-        List<Comment> sonComments = otherLevelComments.stream()
-                .filter(x -> commentId.equals(x.getCommentParent())).collect(Collectors.toList());
-        return getCommentsRecursion(otherLevelComments, sonComments);
-    }
-
-    private static List<Comment> getCommentsRecursion(List<Comment> otherLevelComments, List<Comment> sonComments) {
-        if (sonComments.size() > 0) {
-            List<Comment> notSonComments = (List<Comment>) CollectionUtils.subtract(otherLevelComments, sonComments);
-            if (notSonComments.size() > 0) {
-                sonComments.stream().forEach(x -> x.setChildComments(getChildComments(x.getCommentId(), notSonComments)));
-            }
-        }
-        return sonComments;
+    private static Long parentOf(Comment comment) {
+        return null == comment.getCommentParent() ? 0L : comment.getCommentParent();
     }
-
 }
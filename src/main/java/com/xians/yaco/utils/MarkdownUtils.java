@@ -1,5 +1,7 @@
 package com.xians.yaco.utils;
 
+import cn.hutool.crypto.SecureUtil;
+import lombok.Getter;
 import org.commonmark.Extension;
 import org.commonmark.ext.front.matter.YamlFrontMatterExtension;
 import org.commonmark.ext.front.matter.YamlFrontMatterVisitor;
@@ -9,6 +11,7 @@ import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +22,26 @@ import java.util.Set;
  */
 public class MarkdownUtils {
 
+    /**
+     * 渲染器版本，插件或渲染选项变化时修改，使缓存和已保存的HTML失效
+     */
+    public static final String RENDERER_VERSION = "commonmark-yaml-tables-1";
+
+    /**
+     * 最多缓存的渲染结果数
+     */
+    private static final int MAX_CACHED = 256;
+
+    /**
+     * 内容哈希:渲染器版本 -> 渲染结果，重复保存未修改的文章时不再解析
+     */
+    private static final Map<String, Rendered> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, Rendered>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Rendered> eldest) {
+            return size() > MAX_CACHED;
+        }
+    });
+
     /**
      * Front-matter插件
      */
@@ -46,8 +69,7 @@ public class MarkdownUtils {
      * @return String
      */
     public static String renderMarkdown(String content) {
-        final Node document = PARSER.parse(content);
-        return RENDERER.render(document);
+        return render(content).getHtml();
     }
 
     /**
@@ -57,9 +79,52 @@ public class MarkdownUtils {
      * @return Map
      */
     public static Map<String, List<String>> getFrontMatter(String content) {
+        return render(content).getFrontMatter();
+    }
+
+    /**
+     * 渲染Markdown，同时获取元数据，结果按内容哈希缓存
+     *
+     * @param content content
+     * @return Rendered
+     */
+    public static Rendered render(String content) {
+        final String markdown = null == content ? "" : content;
+        final String key = SecureUtil.sha256(markdown) + ":" + RENDERER_VERSION;
+        Rendered rendered = CACHE.get(key);
+        if (null == rendered) {
+            rendered = renderUncached(markdown);
+            CACHE.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * 渲染Markdown，不读写缓存，批量重新渲染时使用；解析一次，同时得到HTML和元数据
+     *
+     * @param content content
+     * @return Rendered
+     */
+    public static Rendered renderUncached(String content) {
+        final Node document = PARSER.parse(null == content ? "" : content);
         final YamlFrontMatterVisitor visitor = new YamlFrontMatterVisitor();
-        final Node document = PARSER.parse(content);
         document.accept(visitor);
-        return visitor.getData();
+        return new Rendered(RENDERER.render(document), visitor.getData());
+    }
+
+    /**
+     * 渲染结果
+     */
+    @Getter
+    public static class Rendered {
+
+        private final String html;
+
+        private final Map<String, List<String>> frontMatter;
+
+        Rendered(String html, Map<String, List<String>> frontMatter) {
+            this.html = html;
+            this.frontMatter = Collections.unmodifiableMap(frontMatter);
+        }
     }
 }
@@ -92,6 +92,9 @@ public class AdminController extends BaseController {
     @Autowired
     private MenuService menuService;
 
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
     @Autowired
     private LocaleMessageUtil localeMessageUtil;
 
@@ -131,9 +134,23 @@ public class AdminController extends BaseController {
         final Date blogStart = DateUtil.parse(OPTIONS.get(BlogPropertiesEnum.BLOG_START.getProp()));
         final long hadDays = DateUtil.between(blogStart, DateUtil.date(), DateUnit.DAY);
         model.addAttribute("hadDays", hadDays);
+
+        //缓存统计
+        model.addAttribute("cacheStats", cacheStatsService.listCacheStats());
         return "admin/admin_index";
     }
 
+    /**
+     * 缓存统计
+     *
+     * @return JsonResult
+     */
+    @GetMapping(value = "/cache/stats")
+    @ResponseBody
+    public JsonResult cacheStats() {
+        return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), cacheStatsService.listCacheStats());
+    }
+
     /**
      * 处理跳转到登录页的请求
      *
@@ -318,9 +335,10 @@ public class AdminController extends BaseController {
         //得到Markdown的输入流及设置字符的编码
         final String markdown = IoUtil.read(file.getInputStream(), "UTF-8");
         //得到输入的内容,将Markdown的内容渲染到页面
-        final String content = MarkdownUtils.renderMarkdown(markdown);
+        final MarkdownUtils.Rendered rendered = MarkdownUtils.render(markdown);
+        final String content = rendered.getHtml();
         //
-        final Map<String, List<String>> frontMatters = MarkdownUtils.getFrontMatter(markdown);
+        final Map<String, List<String>> frontMatters = rendered.getFrontMatter();
         final Post post = new Post();
         List<String> elementValue = null;
         final List<Tag> tags = new ArrayList<>();
@@ -393,7 +411,7 @@ public class AdminController extends BaseController {
     public void dataExport(HttpServletResponse response) {
         final Map<String, String> options = optionsService.findAllOptions();
         final List<Attachment> attachments = attachmentService.listAll();
-        final List<Post> posts = postService.listAll();
+        final List<Post> posts = postService.listAllWithComments();
         final List<Gallery> galleries = galleryService.listAll();
         final List<Link> links = linkService.listAll();
         final List<Menu> menus = menuService.listAll();
@@ -109,11 +109,12 @@ public class CommentController extends BaseController {
                                 @RequestParam("status") Integer status,
                                 HttpSession session) {
         final Comment comment = commentService.updateCommentStatus(commentId, CommentStatusEnum.PUBLISHED.getCode());
-        final Post post = comment.getPost();
+        //评论只带有文章的代理，需要先查询文章
+        final Post post = postService.fetchById(comment.getPost().getPostId()).orElse(new Post());
         final User user = (User) session.getAttribute(USER_SESSION_KEY);
 
         //判断是否启用邮件服务
-        new NoticeToAuthor(comment, post, user, status).start();
+        noticePassed(comment, post, user, status);
         return "redirect:/admin/comments?status=" + status;
     }
 
@@ -189,7 +190,7 @@ public class CommentController extends BaseController {
             commentService.create(comment);
 
             //邮件通知
-            new EmailToAuthor(comment, lastComment, post, user, commentContent).start();
+            noticeReply(comment, lastComment, post, user, commentContent);
             return new JsonResult(ResultCodeEnum.SUCCESS.getCode());
         } catch (Exception e) {
             log.error("Reply to comment failed: {}", e.getMessage());
@@ -198,102 +199,75 @@ public class CommentController extends BaseController {
     }
 
     /**
-     * 异步发送邮件回复给评论者
+     * 邮件回复给评论者，放入发件箱后由后台线程发送
+     *
+     * @param comment        回复
+     * @param lastComment    被回复的评论
+     * @param post           post
+     * @param user           博主
+     * @param commentContent 回复内容
      */
-    class EmailToAuthor extends Thread {
-
-        private Comment comment;
-        private Comment lastComment;
-        private Post post;
-        private User user;
-        private String commentContent;
-
-        private EmailToAuthor(Comment comment, Comment lastComment, Post post, User user, String commentContent) {
-            this.comment = comment;
-            this.lastComment = lastComment;
-            this.post = post;
-            this.user = user;
-            this.commentContent = commentContent;
-        }
-
-        @Override
-        public void run() {
-            if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.COMMENT_REPLY_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
-                if (Validator.isEmail(lastComment.getCommentAuthorEmail())) {
-                    final Map<String, Object> map = new HashMap<>(8);
-                    map.put("blogTitle", OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()));
-                    map.put("commentAuthor", lastComment.getCommentAuthor());
-                    map.put("pageName", lastComment.getPost().getPostTitle());
-
-                    final StrBuilder pageUrl = new StrBuilder(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
-                    if (StrUtil.equals(post.getPostType(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
-                        pageUrl.append("/archives/");
-                    } else {
-                        pageUrl.append("/p/");
-                    }
-                    pageUrl.append(post.getPostUrl());
-                    pageUrl.append("#comment-id-");
-                    pageUrl.append(comment.getCommentId());
-
-                    map.put("pageUrl", pageUrl.toString());
-                    map.put("commentContent", lastComment.getCommentContent());
-                    map.put("replyAuthor", user.getUserDisplayName());
-                    map.put("replyContent", commentContent);
-                    map.put("blogUrl", OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
-                    mailService.sendTemplateMail(
-                            lastComment.getCommentAuthorEmail(), "您在" + OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()) + "的评论有了新回复", map, "common/mail_template/mail_reply.ftl");
+    private void noticeReply(Comment comment, Comment lastComment, Post post, User user, String commentContent) {
+        if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.COMMENT_REPLY_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
+            if (Validator.isEmail(lastComment.getCommentAuthorEmail())) {
+                final Map<String, Object> map = new HashMap<>(8);
+                map.put("blogTitle", OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()));
+                map.put("commentAuthor", lastComment.getCommentAuthor());
+                map.put("pageName", post.getPostTitle());
+
+                final StrBuilder pageUrl = new StrBuilder(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
+                if (StrUtil.equals(post.getPostType(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
+                    pageUrl.append("/archives/");
+                } else {
+                    pageUrl.append("/p/");
                 }
+                pageUrl.append(post.getPostUrl());
+                pageUrl.append("#comment-id-");
+                pageUrl.append(comment.getCommentId());
+
+                map.put("pageUrl", pageUrl.toString());
+                map.put("commentContent", lastComment.getCommentContent());
+                map.put("replyAuthor", user.getUserDisplayName());
+                map.put("replyContent", commentContent);
+                map.put("blogUrl", OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
+                mailService.queueTemplateMail(
+                        lastComment.getCommentAuthorEmail(), "您在" + OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()) + "的评论有了新回复", map, "common/mail_template/mail_reply.ftl");
             }
         }
     }
 
     /**
-     * 异步通知评论者审核通过
+     * 通知评论者审核通过，放入发件箱后由后台线程发送
+     *
+     * @param comment comment
+     * @param post    post
+     * @param user    博主
+     * @param status  评论原来的状态
      */
-    class NoticeToAuthor extends Thread {
-
-        private Comment comment;
-        private Post post;
-        private User user;
-        private Integer status;
-
-        private NoticeToAuthor(Comment comment, Post post, User user, Integer status) {
-            this.comment = comment;
-            this.post = post;
-            this.user = user;
-            this.status = status;
-        }
-
-        @Override
-        public void run() {
-            if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.COMMENT_REPLY_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
-                try {
-                    if (status == 1 && Validator.isEmail(comment.getCommentAuthorEmail())) {
-                        final Map<String, Object> map = new HashMap<>(6);
-
-                        final StrBuilder pageUrl = new StrBuilder(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
-                        if (StrUtil.equals(post.getPostType(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
-                            pageUrl.append("/archives/");
-                        } else {
-                            pageUrl.append("/p/");
-                        }
-                        pageUrl.append(post.getPostUrl());
-                        pageUrl.append("#comment-id-");
-                        pageUrl.append(comment.getCommentId());
-
-                        map.put("pageUrl", pageUrl.toString());
-                        map.put("pageName", post.getPostTitle());
-                        map.put("commentContent", comment.getCommentContent());
-                        map.put("blogUrl", OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
-                        map.put("blogTitle", OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()));
-                        map.put("author", user.getUserDisplayName());
-                        mailService.sendTemplateMail(
-                                comment.getCommentAuthorEmail(),
-                                "您在" + OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()) + "的评论已审核通过！", map, "common/mail_template/mail_passed.ftl");
-                    }
-                } catch (Exception e) {
-                    log.error("Mail server not configured: {}", e.getMessage());
+    private void noticePassed(Comment comment, Post post, User user, Integer status) {
+        if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.COMMENT_REPLY_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
+            if (status == 1 && Validator.isEmail(comment.getCommentAuthorEmail())) {
+                final Map<String, Object> map = new HashMap<>(6);
+
+                final StrBuilder pageUrl = new StrBuilder(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
+                if (StrUtil.equals(post.getPostType(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
+                    pageUrl.append("/archives/");
+                } else {
+                    pageUrl.append("/p/");
                 }
+                pageUrl.append(post.getPostUrl());
+                pageUrl.append("#comment-id-");
+                pageUrl.append(comment.getCommentId());
+
+                map.put("pageUrl", pageUrl.toString());
+                map.put("pageName", post.getPostTitle());
+                map.put("commentContent", comment.getCommentContent());
+                map.put("blogUrl", OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
+                map.put("blogTitle", OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()));
+                map.put("author", user.getUserDisplayName());
+                mailService.queueTemplateMail(
+                        comment.getCommentAuthorEmail(),
+                        "您在" + OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()) + "的评论已审核通过！", map, "common/mail_template/mail_passed.ftl");
             }
         }
     }
@@ -4,6 +4,7 @@ package com.xians.yaco.web.controller.admin;
 import com.xians.yaco.model.dto.JsonResult;
 import com.xians.yaco.model.enums.ResultCodeEnum;
 import com.xians.yaco.service.OptionsService;
+import com.xians.yaco.service.cache.PageCache;
 import com.xians.yaco.utils.LocaleMessageUtil;
 import freemarker.template.Configuration;
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +40,9 @@ public class OptionController {
     @Autowired
     private LocaleMessageUtil localeMessageUtil;
 
+    @Autowired
+    private PageCache pageCache;
+
     /**
      * 请求跳转到option页面并完成渲染
      *
@@ -64,6 +68,8 @@ public class OptionController {
             configuration.setSharedVariable("options", optionsService.findAllOptions());
             OPTIONS.clear();
             OPTIONS = optionsService.findAllOptions();
+            //options是所有页面共用的
+            pageCache.clear();
             session.removeAttribute(SessionLocaleResolver.LOCALE_SESSION_ATTRIBUTE_NAME);
             log.info("List of saved options: " + options);
             return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), localeMessageUtil.getMessage("code.admin.common.save-success"));
@@ -257,7 +257,7 @@ public class PostController extends BaseController {
     }
 
     /**
-     * 更新所有摘要
+     * 在后台更新所有摘要，立即返回
      *
      * @param postSummary 文章摘要字数
      * @return JsonResult
@@ -265,14 +265,42 @@ public class PostController extends BaseController {
     @GetMapping(value = "/updateSummary")
     @ResponseBody
     public JsonResult updateSummary(@RequestParam("postSummary") Integer postSummary) {
+        if (null == postSummary || postSummary < 0) {
+            return new JsonResult(ResultCodeEnum.FAIL.getCode(), localeMessageUtil.getMessage("code.admin.common.update-failed"));
+        }
+        if (!postService.updateAllSummary(postSummary)) {
+            return new JsonResult(ResultCodeEnum.FAIL.getCode(), localeMessageUtil.getMessage("code.admin.post.summary-running"), postService.getSummaryProgress());
+        }
+        return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), localeMessageUtil.getMessage("code.admin.post.summary-started"), postService.getSummaryProgress());
+    }
+
+    /**
+     * 更新摘要的进度
+     *
+     * @return JsonResult
+     */
+    @GetMapping(value = "/updateSummary/progress")
+    @ResponseBody
+    public JsonResult updateSummaryProgress() {
+        return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), postService.getSummaryProgress());
+    }
+
+    /**
+     * 重新渲染所有文章和页面
+     *
+     * @return JsonResult
+     */
+    @PostMapping(value = "/rerender")
+    @ResponseBody
+    public JsonResult rerender() {
+        final int changed;
         try {
-            postService.updateAllSummary(postSummary);
+            changed = postService.rerenderAll();
         } catch (Exception e) {
-            log.error("Update summary failed: {}", e.getMessage());
-            e.printStackTrace();
+            log.error("Re-render posts failed: {}", e.getMessage(), e);
             return new JsonResult(ResultCodeEnum.FAIL.getCode(), localeMessageUtil.getMessage("code.admin.common.update-failed"));
         }
-        return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), localeMessageUtil.getMessage("code.admin.common.update-success"));
+        return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), localeMessageUtil.getMessage("code.admin.post.rerender-success", new Object[]{changed}));
     }
 
     /**
@@ -15,13 +15,13 @@ import com.xians.yaco.model.enums.ResultCodeEnum;
 import com.xians.yaco.model.enums.TrueFalseEnum;
 import com.xians.yaco.service.LogsService;
 import com.xians.yaco.service.OptionsService;
+import com.xians.yaco.service.cache.PageCache;
 import com.xians.yaco.utils.HaloUtils;
 import com.xians.yaco.utils.LocaleMessageUtil;
 import com.xians.yaco.web.controller.core.BaseController;
 import freemarker.template.Configuration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.ResourceUtils;
@@ -63,6 +63,9 @@ public class ThemeController extends BaseController {
     @Autowired
     private LocaleMessageUtil localeMessageUtil;
 
+    @Autowired
+    private PageCache pageCache;
+
     /**
      * 渲染主题设置页面
      *
@@ -87,7 +90,6 @@ public class ThemeController extends BaseController {
      */
     @GetMapping(value = "/set")
     @ResponseBody
-    @CacheEvict(value = "posts", allEntries = true, beforeInvocation = true)
     public JsonResult activeTheme(@RequestParam("siteTheme") String siteTheme,
                                   HttpServletRequest request) {
         try {
@@ -99,6 +101,7 @@ public class ThemeController extends BaseController {
             OPTIONS = optionsService.findAllOptions();
             configuration.setSharedVariable("themeName", siteTheme);
             configuration.setSharedVariable("options", OPTIONS);
+            pageCache.clear();
             log.info("Changed theme to {}", siteTheme);
             logsService.save(LogsRecord.CHANGE_THEME, "更换为" + siteTheme, request);
             return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), localeMessageUtil.getMessage("code.admin.theme.change-success", new Object[]{siteTheme}));
@@ -4,6 +4,7 @@ import com.xians.yaco.model.domain.User;
 import com.xians.yaco.model.dto.JsonResult;
 import com.xians.yaco.model.enums.ResultCodeEnum;
 import com.xians.yaco.service.UserService;
+import com.xians.yaco.service.cache.PageCache;
 
 import cn.hutool.crypto.SecureUtil;
 import com.xians.yaco.utils.LocaleMessageUtil;
@@ -41,6 +42,9 @@ public class UserController {
     @Autowired
     private LocaleMessageUtil localeMessageUtil;
 
+    @Autowired
+    private PageCache pageCache;
+
     /**
      * 获取用户信息并跳转
      *
@@ -69,6 +73,7 @@ public class UserController {
             }
             userService.create(user);
             configuration.setSharedVariable("user", userService.findUser());
+            pageCache.clear();
             session.removeAttribute(USER_SESSION_KEY);
         } catch (Exception e) {
             log.error("Failed to modify user profile: {}", e.getMessage());
@@ -43,23 +43,16 @@ public class ApiArchivesController {
      *             "posts": [
      *                 {
      *                     "postId": "",
-     *                     "user": {},
      *                     "postTitle": "",
-     *                     "postType": "",
-     *                     "postContentMd": "",
-     *                     "postContent": "",
      *                     "postUrl": "",
      *                     "postSummary": "",
-     *                     "categories": [],
-     *                     "tags": [],
-     *                     "comments": [],
      *                     "postThumbnail": "",
      *                     "postDate": "",
      *                     "postUpdate": "",
-     *                     "postStatus": 0,
      *                     "postViews": 0,
      *                     "allowComment": 1,
-     *                     "customTpl": ""
+     *                     "categories": [],
+     *                     "tags": []
      *                 }
      *             ]
      *         }
@@ -97,23 +90,16 @@ public class ApiArchivesController {
      *             "posts": [
      *                 {
      *                     "postId": "",
-     *                     "user": {},
      *                     "postTitle": "",
-     *                     "postType": "",
-     *                     "postContentMd": "",
-     *                     "postContent": "",
      *                     "postUrl": "",
      *                     "postSummary": "",
-     *                     "categories": [],
-     *                     "tags": [],
-     *                     "comments": [],
      *                     "postThumbnail": "",
      *                     "postDate": "",
      *                     "postUpdate": "",
-     *                     "postStatus": 0,
      *                     "postViews": 0,
      *                     "allowComment": 1,
-     *                     "customTpl": ""
+     *                     "categories": [],
+     *                     "tags": []
      *                 }
      *             ]
      *         }
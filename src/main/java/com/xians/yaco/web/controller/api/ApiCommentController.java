@@ -12,6 +12,7 @@ import com.xians.yaco.model.domain.Comment;
 import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.dto.JsonResult;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
+import com.xians.yaco.model.enums.PostStatusEnum;
 import com.xians.yaco.model.enums.TrueFalseEnum;
 import com.xians.yaco.service.CommentService;
 import com.xians.yaco.service.PostService;
@@ -36,6 +37,8 @@ import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
 @RequestMapping(value = "/api/comments")
 public class ApiCommentController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final Logger log = Logger.getLogger(getClass());
 
     @Autowired
@@ -44,6 +47,63 @@ public class ApiCommentController {
     @Autowired
     private PostService postService;
 
+    /**
+     * 获取文章的一页评论
+     *
+     * <p>
+     * result json:
+     * <pre>
+     * {
+     *     "code": 200,
+     *     "msg": "OK",
+     *     "result": {
+     *         "pageList": [
+     *             {
+     *                 "commentId": ,
+     *                 "commentAuthor": "",
+     *                 "commentAuthorUrl": "",
+     *                 "commentAuthorAvatarMd5": "",
+     *                 "commentDate": "",
+     *                 "commentContent": "",
+     *                 "commentParent": 0,
+     *                 "childComments": []
+     *             }
+     *         ],
+     *         "nowPage": 1,
+     *         "pageSize": 10,
+     *         "totalCount": 1,
+     *         "commentCount": 1,
+     *         "nextCursor": null
+     *     }
+     * }
+     *     </pre>
+     * </p>
+     *
+     * @param postId 文章编号
+     * @param page   页码，有游标时忽略
+     * @param cursor 上一页的nextCursor
+     * @param size   每页顶级评论数
+     * @return JsonResult
+     */
+    @GetMapping(value = "/post/{postId}")
+    public JsonResult comments(@PathVariable(value = "postId") Long postId,
+                               @RequestParam(value = "page", defaultValue = "1") Integer page,
+                               @RequestParam(value = "cursor", required = false) String cursor,
+                               @RequestParam(value = "size", required = false) Integer size) {
+        final Post post = postService.fetchById(postId).orElse(null);
+        if (null == post || !PostStatusEnum.PUBLISHED.getCode().equals(post.getPostStatus()) || StrUtil.isNotEmpty(post.getPostPassword())) {
+            return new JsonResult(HttpStatus.NOT_FOUND.value(), HttpStatus.NOT_FOUND.getReasonPhrase());
+        }
+        if (null == size) {
+            size = 10;
+            if (StrUtil.isNotBlank(OPTIONS.get(BlogPropertiesEnum.INDEX_COMMENTS.getProp()))) {
+                size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_COMMENTS.getProp()));
+            }
+        }
+        size = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return new JsonResult(HttpStatus.OK.value(), HttpStatus.OK.getReasonPhrase(), commentService.findCommentPage(postId, page, cursor, size));
+    }
+
     /**
      * 新增评论
      *
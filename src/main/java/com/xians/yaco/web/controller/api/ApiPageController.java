@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+
 /**
  * <pre>
  *     页面API
@@ -63,14 +65,14 @@ public class ApiPageController {
      * @return JsonResult
      */
     @GetMapping(value = "/{postId}")
-    public Post pages(@PathVariable(value = "postId") Long postId) {
+    public Post pages(@PathVariable(value = "postId") Long postId, HttpServletRequest request) {
         final Post post = postService.findByPostId(postId, PostTypeEnum.POST_TYPE_PAGE.getDesc());
         if (post == null) {
             throw new NotFoundException("Post with id: " + postId + " was not found").setErrorData(postId);
         }
 
         // Cache views
-        postService.cacheViews(postId);
+        postService.cacheViews(postId, request);
 
         return post;
     }
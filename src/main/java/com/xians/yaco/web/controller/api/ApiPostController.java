@@ -5,6 +5,7 @@ import cn.hutool.core.util.StrUtil;
 import com.xians.yaco.exception.NotFoundException;
 import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.dto.JsonResult;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import com.xians.yaco.model.enums.PostStatusEnum;
 import com.xians.yaco.model.enums.PostTypeEnum;
@@ -19,8 +20,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 
 import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
 import static org.springframework.data.domain.Sort.Direction.DESC;
@@ -52,23 +55,16 @@ public class ApiPostController {
      *         "content": [
      *             {
      *                 "postId": ,
-     *                 "user": {},
      *                 "postTitle": "",
-     *                 "postType": "",
-     *                 "postContentMd": "",
-     *                 "postContent": "",
      *                 "postUrl": "",
      *                 "postSummary": "",
-     *                 "categories": [],
-     *                 "tags": [],
-     *                 "comments": [],
      *                 "postThumbnail": "",
      *                 "postDate": "",
      *                 "postUpdate": "",
-     *                 "postStatus": 0,
      *                 "postViews": 0,
      *                 "allowComment": 1,
-     *                 "customTpl": ""
+     *                 "categories": [],
+     *                 "tags": []
      *             }
      *         ],
      *         "pageable": {
@@ -112,13 +108,67 @@ public class ApiPostController {
             size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_POSTS.getProp()));
         }
         final Pageable pageable = PageRequest.of(page - 1, size, sort);
-        final Page<Post> posts = postService.findPostByStatus(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(), pageable);
+        final Page<PostCard> posts = postService.findPostCardsByStatus(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(), pageable);
         if (null == posts) {
             return new JsonResult(HttpStatus.NO_CONTENT.value(), HttpStatus.NO_CONTENT.getReasonPhrase());
         }
         return new JsonResult(HttpStatus.OK.value(), HttpStatus.OK.getReasonPhrase(), posts);
     }
 
+    /**
+     * 全文检索文章 分页，按相关度排序
+     *
+     * <p>
+     * result api
+     * <pre>
+     * {
+     *     "code": 200,
+     *     "msg": "OK",
+     *     "result": {
+     *         "content": [
+     *             {
+     *                 "postId": ,
+     *                 "postTitle": "",
+     *                 "postUrl": "",
+     *                 "postSummary": "",
+     *                 "postThumbnail": "",
+     *                 "postDate": "",
+     *                 "postUpdate": "",
+     *                 "postViews": 0,
+     *                 "allowComment": 1,
+     *                 "categories": [],
+     *                 "tags": []
+     *             }
+     *         ],
+     *         "totalElements": 1,
+     *         "totalPages": 1,
+     *         "size": 10,
+     *         "number": 0
+     *     }
+     * }
+     *     </pre>
+     * </p>
+     *
+     * @param keyword 关键词
+     * @param page    页码
+     *
+     * @return JsonResult
+     */
+    @GetMapping(value = "/search")
+    public JsonResult search(@RequestParam(value = "keyword") String keyword,
+                             @RequestParam(value = "page", defaultValue = "1") Integer page) {
+        if (StrUtil.isBlank(keyword)) {
+            return new JsonResult(HttpStatus.BAD_REQUEST.value(), HttpStatus.BAD_REQUEST.getReasonPhrase());
+        }
+        int size = 10;
+        if (StrUtil.isNotBlank(OPTIONS.get(BlogPropertiesEnum.INDEX_POSTS.getProp()))) {
+            size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_POSTS.getProp()));
+        }
+        final Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, size);
+        final Page<PostCard> posts = postService.searchPosts(keyword, PostTypeEnum.POST_TYPE_POST.getDesc(), PostStatusEnum.PUBLISHED.getCode(), pageable);
+        return new JsonResult(HttpStatus.OK.value(), HttpStatus.OK.getReasonPhrase(), posts);
+    }
+
     /**
      * 获取单个文章信息
      *
@@ -157,7 +207,7 @@ public class ApiPostController {
      * @return JsonResult
      */
     @GetMapping(value = "/{postId}")
-    public Post posts(@PathVariable(value = "postId") Long postId) {
+    public Post posts(@PathVariable(value = "postId") Long postId, HttpServletRequest request) {
         final Post post = postService.findByPostId(postId, PostTypeEnum.POST_TYPE_POST.getDesc());
 
         if (post == null) {
@@ -165,7 +215,7 @@ public class ApiPostController {
         }
 
         // Cache views
-        postService.cacheViews(post.getPostId());
+        postService.cacheViews(post.getPostId(), request);
 
         return post;
     }
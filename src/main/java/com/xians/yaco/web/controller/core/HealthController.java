@@ -0,0 +1,54 @@
+package com.xians.yaco.web.controller.core;
+
+import com.xians.yaco.model.dto.JsonResult;
+import com.xians.yaco.model.enums.ResultCodeEnum;
+import com.xians.yaco.service.warmup.WarmUp;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * <pre>
+ *     健康检查，供负载均衡探测
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Controller
+@RequestMapping(value = "/health")
+public class HealthController {
+
+    @Autowired
+    private WarmUp warmUp;
+
+    /**
+     * 进程存活
+     *
+     * @return JsonResult
+     */
+    @GetMapping(value = "/live")
+    @ResponseBody
+    public JsonResult live() {
+        return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), "UP");
+    }
+
+    /**
+     * 预热完成后才返回200，之前返回503
+     *
+     * @param response response
+     * @return JsonResult
+     */
+    @GetMapping(value = "/ready")
+    @ResponseBody
+    public JsonResult ready(HttpServletResponse response) {
+        if (!warmUp.isReady()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return new JsonResult(ResultCodeEnum.FAIL.getCode(), "WARMING_UP");
+        }
+        return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), "READY", warmUp.getDurationMillis());
+    }
+}
@@ -6,18 +6,17 @@ import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.crypto.SecureUtil;
 import cn.hutool.extra.servlet.ServletUtil;
-import com.xians.yaco.model.domain.Comment;
 import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.domain.Tag;
-import com.xians.yaco.model.dto.ListPage;
+import com.xians.yaco.model.dto.CommentPage;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.model.enums.*;
 import com.xians.yaco.service.CommentService;
 import com.xians.yaco.service.PostService;
-import com.xians.yaco.utils.CommentUtil;
 import com.xians.yaco.web.controller.core.BaseController;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,7 +30,6 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 
@@ -51,8 +49,6 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
 @RequestMapping(value = "/archives")
 public class FrontArchiveController extends BaseController {
 
-    private static final String POSTS_CACHE_NAME = "posts";
-
     @Autowired
     private PostService postService;
 
@@ -83,7 +79,7 @@ public class FrontArchiveController extends BaseController {
                            @SortDefault(sort = "postDate", direction = DESC) Sort sort) {
         //所有文章数据，分页，material主题适用
         final Pageable pageable = PageRequest.of(page - 1, 5, sort);
-        final Page<Post> posts = postService.findPostByStatus(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(), pageable);
+        final Page<PostCard> posts = postService.findPostCardsByStatus(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(), pageable);
         if (null == posts) {
             return this.renderNotFound();
         }
@@ -104,7 +100,7 @@ public class FrontArchiveController extends BaseController {
     public String archives(Model model,
                            @PathVariable(value = "year") String year,
                            @PathVariable(value = "month") String month) {
-        final Page<Post> posts = postService.findPostByYearAndMonth(year, month, null);
+        final Page<PostCard> posts = postService.findPostByYearAndMonth(year, month, null);
         if (null == posts) {
             return this.renderNotFound();
         }
@@ -123,16 +119,15 @@ public class FrontArchiveController extends BaseController {
     @GetMapping(value = "{postUrl}")
     public String getPost(@PathVariable String postUrl,
                           @RequestParam(value = "cp", defaultValue = "1") Integer cp,
+                          @RequestParam(value = "cursor", required = false) String cursor,
                           HttpServletRequest request,
                           Model model) {
         final Post post = postService.findByPostUrl(postUrl, PostTypeEnum.POST_TYPE_POST.getDesc());
         if (null == post || !post.getPostStatus().equals(PostStatusEnum.PUBLISHED.getCode())) {
             return this.renderNotFound();
         }
-        //获得当前文章的发布日期
-        final Date postDate = post.getPostDate();
-        final Post prePost = postService.getPrePost(postDate);
-        final Post nextPost = postService.getNextPost(postDate);
+        final PostCard prePost = postService.getPrePost(post);
+        final PostCard nextPost = postService.getNextPost(post);
         if (null != prePost) {
             //兼容老版本主题
             model.addAttribute("beforePost", prePost);
@@ -143,12 +138,6 @@ public class FrontArchiveController extends BaseController {
             model.addAttribute("afterPost", nextPost);
             model.addAttribute("nextPost", nextPost);
         }
-        List<Comment> comments = null;
-        if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NEED_CHECK.getProp()), TrueFalseEnum.TRUE.getDesc()) || OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NEED_CHECK.getProp()) == null) {
-            comments = commentService.findCommentsByPostAndCommentStatus(post, CommentStatusEnum.PUBLISHED.getCode());
-        } else {
-            comments = commentService.findCommentsByPostAndCommentStatusNot(post, CommentStatusEnum.RECYCLE.getCode());
-        }
         //获取文章的标签用作keywords
         final List<Tag> tags = post.getTags();
         final List<String> tagWords = new ArrayList<>();
@@ -164,21 +153,26 @@ public class FrontArchiveController extends BaseController {
             size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_COMMENTS.getProp()));
         }
         //评论分页
-        final ListPage<Comment> commentsPage = new ListPage<Comment>(CommentUtil.getComments(comments), cp, size);
-        final int[] rainbow = PageUtil.rainbow(cp, commentsPage.getTotalPage(), 3);
+        final CommentPage commentsPage = commentService.findCommentPage(post.getPostId(), cp, cursor, size);
+        final int[] rainbow = PageUtil.rainbow(commentsPage.getNowPage(), commentsPage.getTotalPage(), 3);
         model.addAttribute("is_post", true);
         model.addAttribute("comments", commentsPage);
-        model.addAttribute("commentsCount", comments.size());
+        model.addAttribute("commentsCount", commentsPage.getCommentCount());
         model.addAttribute("rainbow", rainbow);
         model.addAttribute("tagWords", CollUtil.join(tagWords, ","));
-        postService.cacheViews(post.getPostId());
+        postService.cacheViews(post.getPostId(), request);
 
         //判断文章是否有加密
         if (StrUtil.isNotEmpty(post.getPostPassword())) {
             Cookie cookie = ServletUtil.getCookie(request, "halo-post-password-" + post.getPostId());
             if (null == cookie) {
-                post.setPostSummary("该文章为加密文章");
-                post.setPostContent("<form id=\"postPasswordForm\" method=\"post\" action=\"/archives/verifyPostPassword\"><p>该文章为加密文章，输入正确的密码即可访问。</p><input type=\"hidden\" id=\"postId\" name=\"postId\" value=\"" + post.getPostId() + "\"> <input type=\"password\" id=\"postPassword\" name=\"postPassword\"> <input type=\"submit\" id=\"passwordSubmit\" value=\"提交\"></form>");
+                //文章实体来自缓存，在副本上替换内容
+                final Post masked = new Post();
+                BeanUtils.copyProperties(post, masked);
+                masked.setPostSummary("该文章为加密文章");
+                masked.setPostContent("<form id=\"postPasswordForm\" method=\"post\" action=\"/archives/verifyPostPassword\"><p>该文章为加密文章，输入正确的密码即可访问。</p><input type=\"hidden\" id=\"postId\" name=\"postId\" value=\"" + post.getPostId() + "\"> <input type=\"password\" id=\"postPassword\" name=\"postPassword\"> <input type=\"submit\" id=\"passwordSubmit\" value=\"提交\"></form>");
+                model.addAttribute("post", masked);
+                return this.render("post");
             }
         }
         model.addAttribute("post", post);
@@ -194,7 +188,6 @@ public class FrontArchiveController extends BaseController {
      * @return String
      */
     @PostMapping(value = "/verifyPostPassword")
-    @CacheEvict(value = POSTS_CACHE_NAME, allEntries = true, beforeInvocation = true)
     public String verifyPostPassword(@RequestParam(value = "postId") Long postId,
                                      @RequestParam(value = "postPassword") String postPassword,
                                      HttpServletResponse response) {
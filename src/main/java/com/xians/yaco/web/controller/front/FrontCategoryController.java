@@ -4,7 +4,7 @@ package com.xians.yaco.web.controller.front;
 import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.StrUtil;
 import com.xians.yaco.model.domain.Category;
-import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import com.xians.yaco.service.CategoryService;
 import com.xians.yaco.service.PostService;
@@ -92,7 +92,7 @@ public class FrontCategoryController extends BaseController {
             size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_POSTS.getProp()));
         }
         final Pageable pageable = PageRequest.of(page - 1, size, sort);
-        final Page<Post> posts = postService.findPostByCategories(category, pageable);
+        final Page<PostCard> posts = postService.findPostByCategories(category, pageable);
         final int[] rainbow = PageUtil.rainbow(page, posts.getTotalPages(), 3);
         model.addAttribute("is_categories", true);
         model.addAttribute("posts", posts);
@@ -106,12 +106,11 @@ public class FrontCommentController {
                 comment.setCommentAuthorUrl(URLUtil.normalize(comment.getCommentAuthorUrl()));
             }
             commentService.create(comment);
+            //通知只放入发件箱，由后台线程发送
             if (comment.getCommentParent() > 0) {
-                new EmailToParent(comment, lastComment, post).start();
-                new EmailToAdmin(comment, post).start();
-            } else {
-                new EmailToAdmin(comment, post).start();
+                noticeParent(comment, lastComment, post);
             }
+            noticeAdmin(comment, post);
             if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NEED_CHECK.getProp()), TrueFalseEnum.TRUE.getDesc()) || OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NEED_CHECK.getProp()) == null) {
                 return new JsonResult(ResultCodeEnum.SUCCESS.getCode(), "你的评论已经提交，待博主审核之后可显示。");
             } else {
@@ -123,88 +122,69 @@ public class FrontCommentController {
     }
 
     /**
-     * 发送邮件给博主
+     * 通知博主，一段时间内的新评论合并为一封邮件
+     *
+     * @param comment comment
+     * @param post    post
      */
-    class EmailToAdmin extends Thread {
-        private Comment comment;
-        private Post post;
-
-        private EmailToAdmin(Comment comment, Post post) {
-            this.comment = comment;
-            this.post = post;
-        }
-
-        @Override
-        public void run() {
-            if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
-                try {
-                    //发送邮件到博主
-                    final Map<String, Object> map = new HashMap<>(5);
-                    final StrBuilder pageUrl = new StrBuilder(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
-                    if (StrUtil.equals(post.getPostType(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
-                        pageUrl.append("/archives/");
-                    } else {
-                        pageUrl.append("/p/");
-                    }
-                    pageUrl.append(post.getPostUrl());
-                    pageUrl.append("#comment-id-");
-                    pageUrl.append(comment.getCommentId());
-                    map.put("pageUrl", pageUrl.toString());
-                    map.put("author", userService.findUser().getUserDisplayName());
-                    map.put("pageName", post.getPostTitle());
-                    map.put("visitor", comment.getCommentAuthor());
-                    map.put("commentContent", comment.getCommentContent());
-                    mailService.sendTemplateMail(userService.findUser().getUserEmail(), "有新的评论", map, "common/mail_template/mail_admin.ftl");
-                } catch (Exception e) {
-                    log.error("Mail server not configured: {}", e.getMessage());
-                }
+    private void noticeAdmin(Comment comment, Post post) {
+        if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
+            try {
+                final Map<String, Object> map = new HashMap<>(5);
+                map.put("pageUrl", pageUrl(comment, post));
+                map.put("author", userService.findUser().getUserDisplayName());
+                map.put("pageName", post.getPostTitle());
+                map.put("visitor", comment.getCommentAuthor());
+                map.put("commentContent", comment.getCommentContent());
+                mailService.queueCommentNotice(userService.findUser().getUserEmail(), map);
+            } catch (Exception e) {
+                log.error("Failed to queue comment notice: {}", e.getMessage());
             }
         }
     }
 
     /**
-     * 发送邮件给被评论方
+     * 通知被回复的评论者
+     *
+     * @param comment     comment
+     * @param lastComment 被回复的评论
+     * @param post        post
      */
-    class EmailToParent extends Thread {
-        private Comment comment;
-        private Comment lastComment;
-        private Post post;
-
-        private EmailToParent(Comment comment, Comment lastComment, Post post) {
-            this.comment = comment;
-            this.lastComment = lastComment;
-            this.post = post;
+    private void noticeParent(Comment comment, Comment lastComment, Post post) {
+        if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
+            if (Validator.isEmail(lastComment.getCommentAuthorEmail())) {
+                final Map<String, Object> map = new HashMap<>(8);
+                map.put("pageUrl", pageUrl(comment, post));
+                map.put("blogTitle", OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()));
+                map.put("commentAuthor", lastComment.getCommentAuthor());
+                map.put("pageName", post.getPostTitle());
+                map.put("commentContent", lastComment.getCommentContent());
+                map.put("replyAuthor", comment.getCommentAuthor());
+                map.put("replyContent", comment.getCommentContent());
+                map.put("blogUrl", OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
+                mailService.queueTemplateMail(
+                        lastComment.getCommentAuthorEmail(), "您在" + OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()) + "的评论有了新回复", map, "common/mail_template/mail_reply.ftl");
+            }
         }
+    }
 
-        @Override
-        public void run() {
-            //发送通知给对方
-            if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.SMTP_EMAIL_ENABLE.getProp()), TrueFalseEnum.TRUE.getDesc()) && StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NOTICE.getProp()), TrueFalseEnum.TRUE.getDesc())) {
-                if (Validator.isEmail(lastComment.getCommentAuthorEmail())) {
-                    final Map<String, Object> map = new HashMap<>(8);
-                    final StrBuilder pageUrl = new StrBuilder(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
-                    if (StrUtil.equals(post.getPostType(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
-                        pageUrl.append("/archives/");
-
-                    } else {
-                        pageUrl.append("/p/");
-                    }
-                    pageUrl.append(post.getPostUrl());
-                    pageUrl.append("#comment-id-");
-                    pageUrl.append(comment.getCommentId());
-                    map.put("pageUrl", pageUrl.toString());
-                    map.put("blogTitle", OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()));
-                    map.put("commentAuthor", lastComment.getCommentAuthor());
-                    map.put("pageName", lastComment.getPost().getPostTitle());
-                    map.put("commentContent", lastComment.getCommentContent());
-                    map.put("replyAuthor", comment.getCommentAuthor());
-                    map.put("replyContent", comment.getCommentContent());
-                    map.put("blogUrl", OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
-                    mailService.sendTemplateMail(
-                            lastComment.getCommentAuthorEmail(), "您在" + OPTIONS.get(BlogPropertiesEnum.BLOG_TITLE.getProp()) + "的评论有了新回复", map, "common/mail_template/mail_reply.ftl");
-                }
-            }
+    /**
+     * 评论的地址
+     *
+     * @param comment comment
+     * @param post    post
+     * @return String
+     */
+    private String pageUrl(Comment comment, Post post) {
+        final StrBuilder pageUrl = new StrBuilder(OPTIONS.get(BlogPropertiesEnum.BLOG_URL.getProp()));
+        if (StrUtil.equals(post.getPostType(), PostTypeEnum.POST_TYPE_POST.getDesc())) {
+            pageUrl.append("/archives/");
+        } else {
+            pageUrl.append("/p/");
         }
+        pageUrl.append(post.getPostUrl());
+        pageUrl.append("#comment-id-");
+        pageUrl.append(comment.getCommentId());
+        return pageUrl.toString();
     }
 }
-
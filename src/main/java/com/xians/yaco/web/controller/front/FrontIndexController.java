@@ -3,7 +3,7 @@ package com.xians.yaco.web.controller.front;
 
 import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.StrUtil;
-import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import com.xians.yaco.service.PostService;
 import com.xians.yaco.web.controller.core.BaseController;
@@ -73,7 +73,7 @@ public class FrontIndexController extends BaseController {
         }
         //所有文章数据，分页
         final Pageable pageable = PageRequest.of(page - 1, size, sort);
-        final Page<Post> posts = postService.findPostByStatus(pageable);
+        final Page<PostCard> posts = postService.findPostByStatus(pageable);
        //如果posts为空,则重定向到404页面
         if (null == posts) {
             return this.renderNotFound();
@@ -1,28 +1,33 @@
 package com.xians.yaco.web.controller.front;
 
-import com.xians.yaco.model.domain.Post;
-import com.xians.yaco.model.enums.BlogPropertiesEnum;
+import com.xians.yaco.filter.ConditionalRequestFilter;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.model.enums.PostStatusEnum;
 import com.xians.yaco.model.enums.PostTypeEnum;
 import com.xians.yaco.service.PostService;
-import cn.hutool.core.util.StrUtil;
+import com.xians.yaco.service.cache.FeedCache;
+import com.xians.yaco.service.sitemap.Sitemaps;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.view.freemarker.FreeMarkerConfigurer;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
-
-import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <pre>
@@ -40,98 +45,70 @@ public class FrontOthersController {
     @Autowired
     private FreeMarkerConfigurer freeMarker;
 
+    @Autowired
+    private FeedCache feedCache;
+
+    @Autowired
+    private Sitemaps sitemaps;
+
     /**
      * 获取文章rss
      *
-     * @param model model
-     *
-     * @return String
+     * @param request  request
+     * @param response response
      *
-     * @throws IOException       IOException
-     * @throws TemplateException TemplateException
+     * @throws IOException IOException
      */
     @GetMapping(value = {"feed", "feed.xml", "rss", "rss.xml"}, produces = "application/xml;charset=UTF-8")
-    @ResponseBody
-    public String feed(Model model) throws IOException, TemplateException {
-        String rssPosts = OPTIONS.get(BlogPropertiesEnum.RSS_POSTS.getProp());
-        if (StrUtil.isBlank(rssPosts)) {
-            rssPosts = "20";
-        }
-        final Sort sort = new Sort(Sort.Direction.DESC, "postDate");
-        final Pageable pageable = PageRequest.of(0, Integer.parseInt(rssPosts), sort);
-        final Page<Post> postsPage = postService.findPostByStatus(0, PostTypeEnum.POST_TYPE_POST.getDesc(), pageable).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostContent("该文章为加密文章");
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
-        final List<Post> posts = postsPage.getContent();
-        model.addAttribute("posts", posts);
-        final Template template = freeMarker.getConfiguration().getTemplate("common/web/rss.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public void feed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeFeed(feedCache.get(FeedCache.Format.RSS), request, response);
     }
 
     /**
      * 获取 atom.xml
      *
-     * @param model model
-     *
-     * @return String
+     * @param request  request
+     * @param response response
      *
-     * @throws IOException       IOException
-     * @throws TemplateException TemplateException
+     * @throws IOException IOException
      */
     @GetMapping(value = {"atom", "atom.xml"}, produces = "application/xml;charset=UTF-8")
-    @ResponseBody
-    public String atom(Model model) throws IOException, TemplateException {
-        String rssPosts = OPTIONS.get(BlogPropertiesEnum.RSS_POSTS.getProp());
-        if (StrUtil.isBlank(rssPosts)) {
-            rssPosts = "20";
-        }
-        final Sort sort = new Sort(Sort.Direction.DESC, "postDate");
-        final Pageable pageable = PageRequest.of(0, Integer.parseInt(rssPosts), sort);
-        final Page<Post> postsPage = postService.findPostByStatus(0, PostTypeEnum.POST_TYPE_POST.getDesc(), pageable).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostContent("该文章为加密文章");
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
-        final List<Post> posts = postsPage.getContent();
-        model.addAttribute("posts", posts);
-        final Template template = freeMarker.getConfiguration().getTemplate("common/web/atom.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public void atom(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeFeed(feedCache.get(FeedCache.Format.ATOM), request, response);
     }
 
     /**
-     * 获取 XML 格式的站点地图
-     *
-     * @param model model
+     * 获取 XML 格式的站点地图，文章较多时为站点地图索引
      *
-     * @return String
+     * @param response response
      *
-     * @throws IOException       IOException
-     * @throws TemplateException TemplateException
+     * @throws IOException IOException
      */
     @GetMapping(value = {"sitemap", "sitemap.xml"}, produces = "application/xml;charset=UTF-8")
-    @ResponseBody
-    public String sitemapXml(Model model) throws IOException, TemplateException {
-        final Page<Post> postsPage = postService.findPostByStatus(0, PostTypeEnum.POST_TYPE_POST.getDesc(), null).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostContent("该文章为加密文章");
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
-        final List<Post> posts = postsPage.getContent();
-        model.addAttribute("posts", posts);
-        final Template template = freeMarker.getConfiguration().getTemplate("common/web/sitemap_xml.ftl");
-        return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+    public void sitemapXml(HttpServletResponse response) throws IOException {
+        writeXml(sitemaps.sitemap(), response);
+    }
+
+    /**
+     * 获取站点地图索引中的一段
+     *
+     * @param number   从1开始
+     * @param response response
+     *
+     * @throws IOException IOException
+     */
+    @GetMapping(value = "sitemap-{number}.xml", produces = "application/xml;charset=UTF-8")
+    public void sitemapChild(@PathVariable("number") Integer number, HttpServletResponse response) throws IOException {
+        final Path child = sitemaps.child(number);
+        if (null == child) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        writeXml(child, response);
     }
 
     /**
-     * 获取 HTML 格式的站点地图
+     * 获取 HTML 格式的站点地图，只查询文章卡片，最多列出最新的 Sitemaps.MAX_URLS 篇
      *
      * @param model model
      *
@@ -139,15 +116,10 @@ public class FrontOthersController {
      */
     @GetMapping(value = "sitemap.html", produces = {"text/html"})
     public String sitemapHtml(Model model) {
-        final Page<Post> postsPage = postService.findPostByStatus(0, PostTypeEnum.POST_TYPE_POST.getDesc(), null).map(post -> {
-            if (StrUtil.isNotEmpty(post.getPostPassword())) {
-                post.setPostContent("该文章为加密文章");
-                post.setPostSummary("该文章为加密文章");
-            }
-            return post;
-        });
-        final List<Post> posts = postsPage.getContent();
-        model.addAttribute("posts", posts);
+        final Sort sort = new Sort(Sort.Direction.DESC, "postDate");
+        final Page<PostCard> posts = postService.findPostCardsByStatus(PostStatusEnum.PUBLISHED.getCode(), PostTypeEnum.POST_TYPE_POST.getDesc(),
+                PageRequest.of(0, Sitemaps.MAX_URLS, sort));
+        model.addAttribute("posts", posts.getContent());
         return "common/web/sitemap_html";
     }
 
@@ -167,4 +139,37 @@ public class FrontOthersController {
         final Template template = freeMarker.getConfiguration().getTemplate("common/web/robots.ftl");
         return FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
     }
+
+    /**
+     * 输出生成好的站点地图文件
+     */
+    private void writeXml(Path path, HttpServletResponse response) throws IOException {
+        response.setContentType("application/xml;charset=UTF-8");
+        response.setContentLengthLong(Files.size(path));
+        Files.copy(path, response.getOutputStream());
+    }
+
+    /**
+     * 输出生成好的订阅，按Accept-Encoding选择压缩或未压缩的内容
+     */
+    private void writeFeed(FeedCache.Feed feed, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        final boolean gzip = null != acceptEncoding && acceptEncoding.contains("gzip");
+        final long lastModified = TimeUnit.SECONDS.toMillis(feed.getVersion());
+        response.setContentType("application/xml;charset=UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.ETAG, gzip ? ConditionalRequestFilter.gzipETag(feed.getETag()) : feed.getETag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (ConditionalRequestFilter.notModified(request, feed.getETag(), lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        final byte[] body = gzip ? feed.getGzipBody() : feed.getBody();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
 }
@@ -2,15 +2,13 @@ package com.xians.yaco.web.controller.front;
 
 import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.StrUtil;
-import com.xians.yaco.model.domain.Comment;
 import com.xians.yaco.model.domain.Gallery;
 import com.xians.yaco.model.domain.Post;
-import com.xians.yaco.model.dto.ListPage;
+import com.xians.yaco.model.dto.CommentPage;
 import com.xians.yaco.model.enums.*;
 import com.xians.yaco.service.CommentService;
 import com.xians.yaco.service.GalleryService;
 import com.xians.yaco.service.PostService;
-import com.xians.yaco.utils.CommentUtil;
 import com.xians.yaco.web.controller.core.BaseController;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -19,6 +17,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 
 import static com.xians.yaco.model.dto.HaloConst.OPTIONS;
@@ -78,31 +77,27 @@ public class FrontPageController extends BaseController {
     @GetMapping(value = "/p/{postUrl}")
     public String getPage(@PathVariable(value = "postUrl") String postUrl,
                           @RequestParam(value = "cp", defaultValue = "1") Integer cp,
+                          @RequestParam(value = "cursor", required = false) String cursor,
+                          HttpServletRequest request,
                           Model model) {
         final Post post = postService.findByPostUrl(postUrl, PostTypeEnum.POST_TYPE_PAGE.getDesc());
         if (null == post || !post.getPostStatus().equals(PostStatusEnum.PUBLISHED.getCode())) {
             return this.renderNotFound();
         }
-        List<Comment> comments = null;
-        if (StrUtil.equals(OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NEED_CHECK.getProp()), TrueFalseEnum.TRUE.getDesc()) || OPTIONS.get(BlogPropertiesEnum.NEW_COMMENT_NEED_CHECK.getProp()) == null) {
-            comments = commentService.findCommentsByPostAndCommentStatus(post, CommentStatusEnum.PUBLISHED.getCode());
-        } else {
-            comments = commentService.findCommentsByPostAndCommentStatusNot(post, CommentStatusEnum.RECYCLE.getCode());
-        }
         //默认显示10条
         int size = 10;
         if (StrUtil.isNotBlank(OPTIONS.get(BlogPropertiesEnum.INDEX_COMMENTS.getProp()))) {
             size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_COMMENTS.getProp()));
         }
         //评论分页
-        final ListPage<Comment> commentsPage = new ListPage<Comment>(CommentUtil.getComments(comments), cp, size);
-        final int[] rainbow = PageUtil.rainbow(cp, commentsPage.getTotalPage(), 3);
+        final CommentPage commentsPage = commentService.findCommentPage(post.getPostId(), cp, cursor, size);
+        final int[] rainbow = PageUtil.rainbow(commentsPage.getNowPage(), commentsPage.getTotalPage(), 3);
         model.addAttribute("is_page", true);
         model.addAttribute("post", post);
         model.addAttribute("comments", commentsPage);
-        model.addAttribute("commentsCount", comments.size());
+        model.addAttribute("commentsCount", commentsPage.getCommentCount());
         model.addAttribute("rainbow", rainbow);
-        postService.cacheViews(post.getPostId());
+        postService.cacheViews(post.getPostId(), request);
 
         //如果设置了自定义模板，则渲染自定义模板
         if (StrUtil.isNotEmpty(post.getCustomTpl())) {
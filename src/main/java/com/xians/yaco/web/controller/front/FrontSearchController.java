@@ -4,7 +4,7 @@ package com.xians.yaco.web.controller.front;
 import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.http.HtmlUtil;
-import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import com.xians.yaco.model.enums.PostStatusEnum;
 import com.xians.yaco.model.enums.PostTypeEnum;
@@ -52,7 +52,7 @@ public class FrontSearchController extends BaseController {
     @GetMapping
     public String search(Model model,
                          @RequestParam(value = "keyword") String keyword) {
-        return this.search(model, HtmlUtil.escape(keyword), 1, Sort.by(DESC, "postDate"));
+        return this.search(model, keyword, 1, Sort.by(DESC, "postDate"));
     }
 
     /**
@@ -73,10 +73,11 @@ public class FrontSearchController extends BaseController {
             size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_POSTS.getProp()));
         }
         final Pageable pageable = PageRequest.of(page - 1, size, sort);
-        final Page<Post> posts = postService.searchPosts(HtmlUtil.escape(keyword), PostTypeEnum.POST_TYPE_POST.getDesc(), PostStatusEnum.PUBLISHED.getCode(), pageable);
+        final Page<PostCard> posts = postService.searchPosts(keyword, PostTypeEnum.POST_TYPE_POST.getDesc(), PostStatusEnum.PUBLISHED.getCode(), pageable);
         final int[] rainbow = PageUtil.rainbow(page, posts.getTotalPages(), 3);
         model.addAttribute("is_search", true);
-        model.addAttribute("keyword", keyword);
+        //关键词原样检索，输出到页面前转义
+        model.addAttribute("keyword", HtmlUtil.escape(keyword));
         model.addAttribute("posts", posts);
         model.addAttribute("rainbow", rainbow);
         return this.render("search");
@@ -3,8 +3,8 @@ package com.xians.yaco.web.controller.front;
 
 import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.StrUtil;
-import com.xians.yaco.model.domain.Post;
 import com.xians.yaco.model.domain.Tag;
+import com.xians.yaco.model.dto.PostCard;
 import com.xians.yaco.model.enums.BlogPropertiesEnum;
 import com.xians.yaco.service.PostService;
 import com.xians.yaco.service.TagService;
@@ -86,7 +86,7 @@ public class FrontTagController extends BaseController {
             size = Integer.parseInt(OPTIONS.get(BlogPropertiesEnum.INDEX_POSTS.getProp()));
         }
         final Pageable pageable = PageRequest.of(page - 1, size, sort);
-        final Page<Post> posts = postService.findPostsByTags(tag, pageable);
+        final Page<PostCard> posts = postService.findPostsByTags(tag, pageable);
         final int[] rainbow = PageUtil.rainbow(page, posts.getTotalPages(), 3);
         model.addAttribute("is_tags", true);
         model.addAttribute("posts", posts);
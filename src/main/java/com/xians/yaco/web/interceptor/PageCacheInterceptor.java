@@ -0,0 +1,101 @@
+package com.xians.yaco.web.interceptor;
+
+import com.xians.yaco.model.domain.Category;
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.domain.Tag;
+import com.xians.yaco.model.dto.PostCard;
+import com.xians.yaco.service.cache.PageCache;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <pre>
+ *     页面缓存依赖收集
+ *     前台页面渲染前，从model中找出页面引用的文章、标签、分类，交给页面缓存过滤器
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@Component
+public class PageCacheInterceptor implements HandlerInterceptor {
+
+    /**
+     * 页面依赖，request attribute
+     */
+    public static final String TAGS_ATTRIBUTE = PageCacheInterceptor.class.getName() + ".tags";
+
+    /**
+     * 命中缓存时需要计入阅读数的文章，request attribute
+     */
+    public static final String VIEW_POST_ATTRIBUTE = PageCacheInterceptor.class.getName() + ".viewPost";
+
+    private static final String FRONT_PACKAGE = "com.xians.yaco.web.controller.front";
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) throws Exception {
+        if (!(handler instanceof HandlerMethod) || null == modelAndView || null == modelAndView.getViewName()
+                || modelAndView.getViewName().startsWith("redirect:")
+                || !((HandlerMethod) handler).getBeanType().getPackage().getName().equals(FRONT_PACKAGE)) {
+            return;
+        }
+        final Map<String, Object> model = modelAndView.getModel();
+        final Set<String> tags = new HashSet<>();
+        final Object post = model.get("post");
+        if (post instanceof Post) {
+            //文章页只依赖文章本身和上一篇、下一篇
+            final Post detail = (Post) post;
+            tags.add(PageCache.postTag(detail.getPostId()));
+            addTaxonomies(tags, detail.getTags(), detail.getCategories());
+            addCard(tags, model.get("prePost"));
+            addCard(tags, model.get("nextPost"));
+            request.setAttribute(VIEW_POST_ATTRIBUTE, detail.getPostId());
+        } else {
+            tags.add(PageCache.LIST_TAG);
+        }
+        final Object posts = model.get("posts");
+        if (posts instanceof Page) {
+            for (Object content : ((Page<?>) posts).getContent()) {
+                addCard(tags, content);
+            }
+        }
+        if (model.get("tag") instanceof Tag) {
+            tags.add(PageCache.tagTag(((Tag) model.get("tag")).getTagId()));
+        }
+        if (model.get("category") instanceof Category) {
+            tags.add(PageCache.categoryTag(((Category) model.get("category")).getCateId()));
+        }
+        request.setAttribute(TAGS_ATTRIBUTE, tags);
+    }
+
+    private void addCard(Set<String> tags, Object card) {
+        if (card instanceof PostCard) {
+            tags.add(PageCache.postTag(((PostCard) card).getPostId()));
+            addTaxonomies(tags, ((PostCard) card).getTags(), ((PostCard) card).getCategories());
+        } else if (card instanceof Post) {
+            tags.add(PageCache.postTag(((Post) card).getPostId()));
+        }
+    }
+
+    private void addTaxonomies(Set<String> tags, List<Tag> postTags, List<Category> categories) {
+        if (null != postTags) {
+            for (Tag tag : postTags) {
+                tags.add(PageCache.tagTag(tag.getTagId()));
+            }
+        }
+        if (null != categories) {
+            for (Category category : categories) {
+                tags.add(PageCache.categoryTag(category.getCateId()));
+            }
+        }
+    }
+}
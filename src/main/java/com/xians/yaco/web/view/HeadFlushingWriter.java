@@ -0,0 +1,76 @@
+package com.xians.yaco.web.view;
+
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <pre>
+ *     输出到 &lt;/head&gt; 时立即刷新的Writer
+ *     文档头中的CSS、JS链接先发给浏览器，浏览器在页面主体渲染期间即可开始下载；
+ *     找到 &lt;/head&gt; 之后不再检查，直接写入
+ * </pre>
+ *
+ * @author : XIANS
+ */
+class HeadFlushingWriter extends Writer {
+
+    private static final char[] HEAD_END = "</head>".toCharArray();
+
+    private final Writer out;
+
+    /**
+     * 已匹配的字符数，等于HEAD_END长度时表示已刷新
+     */
+    private int matched;
+
+    HeadFlushingWriter(@NonNull Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(@NonNull char[] buffer, int offset, int length) throws IOException {
+        if (matched == HEAD_END.length) {
+            out.write(buffer, offset, length);
+            return;
+        }
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final char c = Character.toLowerCase(buffer[i]);
+            if (c == HEAD_END[matched]) {
+                matched++;
+            } else {
+                matched = c == HEAD_END[0] ? 1 : 0;
+            }
+            if (matched == HEAD_END.length) {
+                out.write(buffer, offset, i + 1 - offset);
+                out.flush();
+                out.write(buffer, i + 1, end - i - 1);
+                return;
+            }
+        }
+        out.write(buffer, offset, length);
+    }
+
+    @Override
+    public void write(@NonNull String str, int offset, int length) throws IOException {
+        if (matched == HEAD_END.length) {
+            out.write(str, offset, length);
+            return;
+        }
+        final char[] chars = new char[length];
+        str.getChars(offset, offset + length, chars, 0);
+        write(chars, 0, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,44 @@
+package com.xians.yaco.web.view;
+
+import freemarker.template.SimpleHash;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerView;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <pre>
+ *     流式输出的FreeMarker视图
+ *     模板直接写入响应，经过固定大小的缓冲区分块发送，不在内存中拼出整个页面；
+ *     开启earlyHeadFlush时输出到 &lt;/head&gt; 立即发送，对现有主题无需修改。
+ *     响应提交后出错无法再跳转到错误页面
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class StreamingFreeMarkerView extends FreeMarkerView {
+
+    private int bufferSize = 8192;
+
+    private boolean earlyHeadFlush = true;
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setEarlyHeadFlush(boolean earlyHeadFlush) {
+        this.earlyHeadFlush = earlyHeadFlush;
+    }
+
+    @Override
+    protected void processTemplate(Template template, SimpleHash model, HttpServletResponse response) throws IOException, TemplateException {
+        final Writer buffered = new BufferedWriter(response.getWriter(), bufferSize);
+        final Writer writer = earlyHeadFlush ? new HeadFlushingWriter(buffered) : buffered;
+        template.process(model, writer);
+        writer.flush();
+    }
+}
@@ -0,0 +1,37 @@
+package com.xians.yaco.web.view;
+
+import org.springframework.web.servlet.view.AbstractUrlBasedView;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerViewResolver;
+
+/**
+ * <pre>
+ *     创建StreamingFreeMarkerView的视图解析器
+ * </pre>
+ *
+ * @author : XIANS
+ */
+public class StreamingFreeMarkerViewResolver extends FreeMarkerViewResolver {
+
+    private final int bufferSize;
+
+    private final boolean earlyHeadFlush;
+
+    public StreamingFreeMarkerViewResolver(int bufferSize, boolean earlyHeadFlush) {
+        this.bufferSize = bufferSize;
+        this.earlyHeadFlush = earlyHeadFlush;
+        setViewClass(StreamingFreeMarkerView.class);
+    }
+
+    @Override
+    protected Class<?> requiredViewClass() {
+        return StreamingFreeMarkerView.class;
+    }
+
+    @Override
+    protected AbstractUrlBasedView buildView(String viewName) throws Exception {
+        final StreamingFreeMarkerView view = (StreamingFreeMarkerView) super.buildView(viewName);
+        view.setBufferSize(bufferSize);
+        view.setEarlyHeadFlush(earlyHeadFlush);
+        return view;
+    }
+}
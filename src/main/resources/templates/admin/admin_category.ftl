@@ -100,7 +100,7 @@
                                                 <td>${cate.cateUrl!}</td>
                                                 <td>${cate.cateDesc!}</td>
                                                 <td>
-                                                    <span class="label" style="background-color: #d6cdcd;">${cate.posts?size}</span>
+                                                    <span class="label" style="background-color: #d6cdcd;">${cate.postCount!0}</span>
                                                 </td>
                                                 <td>
                                                     <#if updateCategory?? && updateCategory.cateId?c==cate.cateId?c>
@@ -356,6 +356,57 @@
                 </div>
             </div>
             </#if>
+            <#if cacheStats??>
+            <div class="col-lg-12 col-xs-12" id="widgetCacheStatsBody">
+                <div class="box box-primary">
+                    <div class="box-header with-border">
+                        <h3 class="box-title"><@spring.message code='admin.index.widgets.cache-stats' /></h3>
+                        <div class="box-tools">
+                            <div class="btn-group">
+                                <a class="btn btn-box-tool" target="_blank" href="/admin/cache/stats" data-toggle="tooltip" title="JSON"><i class="fa fa-code"></i></a>
+                                <button type="button" class="btn btn-box-tool" data-widget="collapse" data-toggle="tooltip" title="Collapse">
+                                    <i class="fa fa-minus"></i>
+                                </button>
+                            </div>
+                        </div>
+                    </div>
+                    <div class="box-body table-responsive no-padding">
+                        <table class="table table-hover text-center">
+                            <tbody>
+                                <tr>
+                                    <th><@spring.message code='admin.index.widgets.cache.name' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.hit-rate' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.hits-misses' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.invalidations' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.evictions' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.load' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.entries' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.bytes' /></th>
+                                    <th><@spring.message code='admin.index.widgets.cache.top-miss-keys' /></th>
+                                </tr>
+                                <#list cacheStats as stats>
+                                    <tr>
+                                        <td>${stats.name}</td>
+                                        <td>${(stats.hitRate * 100)?string("0.0")}%</td>
+                                        <td>${stats.hits?c} / ${stats.misses?c}</td>
+                                        <td>${stats.invalidations?c}</td>
+                                        <td>${stats.evictions?c} / ${stats.expirations?c}</td>
+                                        <td><#if stats.loads == 0>-<#else>${stats.loadMeanMillis?string("0.0")}ms / <#if stats.loadP95Millis lt 0>&gt;2500<#else>&lt;${stats.loadP95Millis?c}</#if>ms</#if></td>
+                                        <td>${stats.entries?c}</td>
+                                        <td>${(stats.occupiedBytes / 1048576)?string("0.00")}MB</td>
+                                        <td class="text-left">
+                                            <#list stats.topMissKeys as key>
+                                                <#if key?index lt 3>${key.key?html} (${key.misses?c})<br></#if>
+                                            </#list>
+                                        </td>
+                                    </tr>
+                                </#list>
+                            </tbody>
+                        </table>
+                    </div>
+                </div>
+            </div>
+            </#if>
         </div>
     </section>
     <div class="modal fade" id="blogInfo" tabindex="-1" role="dialog">
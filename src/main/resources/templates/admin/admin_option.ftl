@@ -212,6 +212,16 @@
                                             </div>
                                         </div>
                                     </div>
+                                    <div class="form-group">
+                                        <label class="col-lg-2 col-sm-4 control-label"><@spring.message code='admin.setting.form.post-rerender' />
+                                            <span data-toggle="tooltip" data-placement="top" title="<@spring.message code='admin.setting.form.post-rerender-tips' />" style="cursor: pointer">
+                                                <i class="fa fa-question-circle" aria-hidden="true"></i>
+                                            </span>
+                                        </label>
+                                        <div class="col-lg-4 col-sm-8">
+                                            <button class="btn btn-default btn-flat" id="btn_rerender_all" onclick="rerenderAll()" type="button"><@spring.message code='admin.setting.form.post-rerender-btn' /></button>
+                                        </div>
+                                    </div>
                                 </div>
                                 <div class="box-footer">
                                     <button type="button" class="btn btn-primary btn-sm " onclick="saveOptions('postOptions')"><@spring.message code='common.btn.save' /></button>
@@ -692,6 +702,43 @@
      */
     function updateAllSummary() {
         $.get('/admin/posts/updateSummary',{'postSummary' : $('#postSummary').val()},function (data) {
+            if(data.code === 1){
+                halo.showMsg(data.msg,'success',1000);
+                $('#btn_update_summary').attr('disabled', true);
+                setTimeout(summaryProgress, 1000);
+            }else{
+                halo.showMsg(data.msg,'error',2000);
+            }
+        },'JSON');
+    }
+
+    /**
+     * 查询摘要更新进度，完成前每秒刷新一次
+     */
+    function summaryProgress() {
+        $.get('/admin/posts/updateSummary/progress',function (data) {
+            var progress = data.result;
+            if(progress.running){
+                $('#btn_update_summary').text(progress.processed + ' / ' + progress.total);
+                setTimeout(summaryProgress, 1000);
+                return;
+            }
+            $('#btn_update_summary').attr('disabled', false).text("<@spring.message code='admin.setting.form.post-summary-btn-update' />");
+            if(progress.error){
+                halo.showMsg(progress.error,'error',2000);
+            }else{
+                halo.showMsg("<@spring.message code='code.admin.common.update-success' />",'success',1000);
+            }
+        },'JSON');
+    }
+
+    /**
+     * 重新渲染所有文章
+     */
+    function rerenderAll() {
+        $('#btn_rerender_all').attr('disabled', true);
+        $.post('/admin/posts/rerender',function (data) {
+            $('#btn_rerender_all').attr('disabled', false);
             if(data.code === 1){
                 halo.showMsg(data.msg,'success',1000);
             }else{
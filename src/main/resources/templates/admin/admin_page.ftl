@@ -76,7 +76,7 @@
                                                     <td>${page.postTitle}</td>
                                                     <td>/p/${page.postUrl}</td>
                                                     <td>
-                                                        <span class="label" style="background-color: #d6cdcd;">${page.comments?size}</span>
+                                                        <span class="label" style="background-color: #d6cdcd;">${page.commentCount!0}</span>
                                                     </td>
                                                     <td>
                                                         <span class="label" style="background-color: #d6cdcd;">${page.postViews}</span>
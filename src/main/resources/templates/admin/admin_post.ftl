@@ -81,7 +81,7 @@
                                                 </#if>
                                             </td>
                                             <td>
-                                                <span class="label" style="background-color: #d6cdcd;">${post.getComments()?size}</span>
+                                                <span class="label" style="background-color: #d6cdcd;">${post.commentCount!0}</span>
                                             </td>
                                             <td>
                                                 <span class="label" style="background-color: #d6cdcd;">${post.postViews}</span>
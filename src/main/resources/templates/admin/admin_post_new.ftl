@@ -121,7 +121,7 @@
                                 <#if tags??>
                                     <option value=""><@spring.message code='admin.editor.select.tag.default' /></option>
                                     <#list tags as tag>
-                                        <option value="${tag.tagName}">${tag.tagName}(${tag.posts?size})</option>
+                                        <option value="${tag.tagName}">${tag.tagName}(${tag.postCount!0})</option>
                                     </#list>
                                 <#else>
                                     <option><@spring.message code='common.text.no-data' /></option>
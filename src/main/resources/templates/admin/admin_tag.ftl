@@ -44,7 +44,7 @@
                             <div class="box-footer">
                                 <button type="button" class="btn btn-primary btn-sm" onclick="save()"><@spring.message code='common.btn.define-edit' /></button>
                                 <a data-pjax="true" href="/admin/tag" class="btn btn-info btn-sm"><@spring.message code='common.btn.back-to-add' /></a>
-                                <#if updateTag.posts?size = 0>
+                                <#if (updateTag.postCount!0) = 0>
                                 <a data-pjax="true" href="/admin/tag/remove?tagId=${updateTag.tagId?c}" class="btn btn-danger btn-sm  pull-right"><@spring.message code='common.btn.delete' /></a>
                                 </#if>
                             </div>
@@ -86,7 +86,7 @@
                                         <li>
                                             <a data-pjax="true" href="/admin/tag/edit?tagId=${tag.tagId?c}">
                                                 ${tag.tagName}
-                                                <span>${tag.posts?size}</span>
+                                                <span>${tag.postCount!0}</span>
                                             </a>
                                         </li>
                                     </#list>
@@ -106,7 +106,7 @@ ${options.native_css!}
                 </li>
                 <#if comments.hasNext>
                 <li>
-                    <a href="?cp=${comments.nowPage+1}#comments-list" title="下一页">→</a>
+                    <a href="?<#if comments.nextCursor??>cursor=${comments.nextCursor}<#else>cp=${comments.nowPage+1}</#if>#comments-list" title="下一页">→</a>
                 </li>
                 </#if>
             </ol>
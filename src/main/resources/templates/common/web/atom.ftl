@@ -40,7 +40,7 @@
                         ${post.postContent!}
                     ]]>
                 </content:encoded>
-                <slash:comments>${post.comments?size}</slash:comments>
+                <slash:comments>${post.commentCount!0}</slash:comments>
             </item>
         </#list>
     </#if>
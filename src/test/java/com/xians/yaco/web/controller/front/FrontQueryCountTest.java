@@ -0,0 +1,326 @@
+package com.xians.yaco.web.controller.front;
+
+import cn.hutool.core.io.FileUtil;
+import com.xians.yaco.event.PostChangedEvent;
+import com.xians.yaco.logging.QueryCounter;
+import com.xians.yaco.model.dto.HaloConst;
+import com.xians.yaco.model.domain.Category;
+import com.xians.yaco.model.domain.Comment;
+import com.xians.yaco.model.domain.Post;
+import com.xians.yaco.model.domain.Tag;
+import com.xians.yaco.model.domain.User;
+import com.xians.yaco.model.enums.BlogPropertiesEnum;
+import com.xians.yaco.model.enums.CommentStatusEnum;
+import com.xians.yaco.model.enums.PostStatusEnum;
+import com.xians.yaco.model.enums.PostTypeEnum;
+import com.xians.yaco.model.enums.TrueFalseEnum;
+import com.xians.yaco.repository.CategoryRepository;
+import com.xians.yaco.repository.CommentRepository;
+import com.xians.yaco.repository.PostRepository;
+import com.xians.yaco.repository.TagRepository;
+import com.xians.yaco.repository.UserRepository;
+import com.xians.yaco.service.cache.DependencyTrackingCache;
+import com.xians.yaco.service.cache.DependencyTrackingCacheManager;
+import com.xians.yaco.service.OptionsService;
+import com.xians.yaco.service.index.SearchIndex;
+import com.xians.yaco.web.controller.core.BaseController;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * <pre>
+ *     前台页面的SQL数
+ *     每个列表有多篇文章，清空缓存后请求一次，统计Hibernate执行的语句数，
+ *     超过页面固定的上限说明延迟加载或N+1查询重新出现。
+ *     使用test配置中的内存数据库，每个测试结束后回滚；搜索索引等文件写入临时的user.home。
+ *     启动监听器需要Web服务器，使用随机端口
+ * </pre>
+ *
+ * @author : XIANS
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@Transactional
+public class FrontQueryCountTest {
+
+    /**
+     * 每个列表中的文章数，少于一页，各页面的SQL数与它无关
+     */
+    private static final int POSTS = 5;
+
+    private static final int COMMENTS = 10;
+
+    private static final int INDEX_QUERIES = 9;
+
+    private static final int POST_QUERIES = 21;
+
+    private static final int PAGE_QUERIES = 19;
+
+    private static final int TAG_QUERIES = 10;
+
+    private static final int CATEGORY_QUERIES = 10;
+
+    private static final int SEARCH_QUERIES = 11;
+
+    private static final String THEME = "material";
+
+    private static final String HOME = createHome();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private OptionsService optionsService;
+
+    @Autowired
+    private Configuration configuration;
+
+    @Autowired
+    private DependencyTrackingCacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Tag tag;
+
+    private Category category;
+
+    private final List<Post> posts = new ArrayList<>();
+
+    private Post page;
+
+    private String theme;
+
+    private Map<String, String> options;
+
+    private TemplateModel sharedOptions;
+
+    private TemplateModel sharedUser;
+
+    /**
+     * 在Spring容器创建之前替换user.home，索引、阅读数日志等不写入用户目录
+     */
+    private static String createHome() {
+        try {
+            final String home = Files.createTempDirectory("yaco-test").toString();
+            System.setProperty("user.home", home);
+            return home;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @AfterClass
+    public static void deleteHome() {
+        FileUtil.del(HOME);
+    }
+
+    @Before
+    public void setUp() throws TemplateModelException {
+        User user = new User();
+        user.setUserName("query-count");
+        user.setUserDisplayName("query-count");
+        user.setUserEmail("query-count@example.com");
+        user = userRepository.save(user);
+
+        tag = new Tag();
+        tag.setTagName("tag");
+        tag.setTagUrl("tag");
+        tag = tagRepository.save(tag);
+
+        category = new Category();
+        category.setCateName("category");
+        category.setCateUrl("category");
+        category = categoryRepository.save(category);
+
+        for (int i = 0; i < POSTS; i++) {
+            //每篇文章另有自己的标签、分类，逐篇加载时SQL数随文章数增加
+            final Tag ownTag = new Tag();
+            ownTag.setTagName("tag" + i);
+            ownTag.setTagUrl("tag" + i);
+            final Category ownCategory = new Category();
+            ownCategory.setCateName("category" + i);
+            ownCategory.setCateUrl("category" + i);
+            posts.add(postRepository.save(newPost(user, "post" + i, PostTypeEnum.POST_TYPE_POST.getDesc(),
+                    tagRepository.save(ownTag), categoryRepository.save(ownCategory))));
+        }
+        page = postRepository.save(newPost(user, "page", PostTypeEnum.POST_TYPE_PAGE.getDesc(), tag, category));
+
+        final List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < COMMENTS; i++) {
+            final Comment comment = new Comment();
+            comment.setPost(posts.get(0));
+            comment.setCommentAuthor("visitor" + i);
+            comment.setCommentAuthorEmail("visitor" + i + "@example.com");
+            comment.setCommentAuthorAvatarMd5("");
+            comment.setCommentContent("comment " + i);
+            comment.setCommentDate(new Date());
+            comment.setCommentStatus(CommentStatusEnum.PUBLISHED.getCode());
+            comment.setCommentRoot(0L);
+            comment.setIsAdmin(0);
+            comments.add(comment);
+        }
+        commentRepository.saveAll(comments);
+
+        searchIndex.load();
+        for (Post post : posts) {
+            searchIndex.update(post);
+        }
+        install(user);
+        //页面请求从数据库重新加载，不使用保存时已经填充的关联
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @After
+    public void tearDown() {
+        for (Post post : posts) {
+            searchIndex.remove(post.getPostId());
+        }
+        BaseController.THEME = theme;
+        HaloConst.OPTIONS = options;
+        configuration.setSharedVariable("options", sharedOptions);
+        configuration.setSharedVariable("user", sharedUser);
+        clearCaches();
+    }
+
+    @Test
+    public void index() throws Exception {
+        assertQueries("/", INDEX_QUERIES);
+    }
+
+    @Test
+    public void post() throws Exception {
+        assertQueries("/archives/" + posts.get(0).getPostUrl(), POST_QUERIES);
+    }
+
+    @Test
+    public void page() throws Exception {
+        assertQueries("/p/" + page.getPostUrl(), PAGE_QUERIES);
+    }
+
+    @Test
+    public void tag() throws Exception {
+        assertQueries("/tags/" + tag.getTagUrl(), TAG_QUERIES);
+    }
+
+    @Test
+    public void category() throws Exception {
+        assertQueries("/categories/" + category.getCateUrl(), CATEGORY_QUERIES);
+    }
+
+    @Test
+    public void search() throws Exception {
+        assertQueries("/search?keyword=query", SEARCH_QUERIES);
+    }
+
+    /**
+     * 清空缓存后请求页面，SQL数不超过该页面的上限
+     */
+    private void assertQueries(String url, int maxQueries) throws Exception {
+        clearCaches();
+        entityManager.clear();
+        QueryCounter.reset();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        final int count = QueryCounter.count();
+        assertTrue(url + " executed " + count + " queries, expected at most " + maxQueries, count <= maxQueries);
+    }
+
+    /**
+     * 与安装时一样保存设置，使用带有全部前台模板的material主题
+     */
+    private void install(User user) throws TemplateModelException {
+        theme = BaseController.THEME;
+        options = HaloConst.OPTIONS;
+        sharedOptions = configuration.getSharedVariable("options");
+        sharedUser = configuration.getSharedVariable("user");
+
+        final Map<String, String> installOptions = new HashMap<>();
+        installOptions.put(BlogPropertiesEnum.IS_INSTALL.getProp(), TrueFalseEnum.TRUE.getDesc());
+        installOptions.put(BlogPropertiesEnum.BLOG_TITLE.getProp(), "query-count");
+        installOptions.put(BlogPropertiesEnum.BLOG_URL.getProp(), "http://localhost");
+        installOptions.put(BlogPropertiesEnum.THEME.getProp(), THEME);
+        optionsService.saveOptions(installOptions);
+        BaseController.THEME = THEME;
+        HaloConst.OPTIONS = optionsService.findAllOptions();
+        configuration.setSharedVariable("options", HaloConst.OPTIONS);
+        configuration.setSharedVariable("user", user);
+    }
+
+    private void clearCaches() {
+        //页面缓存、评论第一页等随文章变更失效
+        eventPublisher.publishEvent(PostChangedEvent.all(this));
+        for (DependencyTrackingCache cache : cacheManager.getCaches()) {
+            cache.clear();
+        }
+    }
+
+    private Post newPost(User user, String url, String postType, Tag ownTag, Category ownCategory) {
+        final Post newPost = new Post();
+        newPost.setUser(user);
+        newPost.setPostTitle(url);
+        newPost.setPostUrl(url);
+        newPost.setPostType(postType);
+        newPost.setPostContentMd("query count " + url);
+        newPost.setPostContent("<p>query count " + url + "</p>");
+        newPost.setPostSummary("query count " + url);
+        newPost.setPostStatus(PostStatusEnum.PUBLISHED.getCode());
+        newPost.setAllowComment(0);
+        newPost.setTags(new ArrayList<>(Arrays.asList(tag, ownTag)));
+        newPost.setCategories(new ArrayList<>(Arrays.asList(category, ownCategory)));
+        return newPost;
+    }
+}